@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sérialisation aller-retour d'une page de résultats : ArrayList par la sérialisation Java (format d'avant {@link ResultList#writeExternal(ObjectOutput)}),
+ * ResultList dont les éléments sont écrits par la sérialisation Java, et ResultList dont les éléments ont un codec enregistré.<br>
+ * Lancement : mvn -P bench test-compile exec:exec
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ResultListSerializationBenchmark
+{
+    private static final int CODEC_ID = 100;
+    private static final CodedElementCodec CODEC = new CodedElementCodec( );
+
+    /** Nombre d'éléments de la page, public pour JMH */
+    @Param( {
+            "20", "1000"
+    } )
+    public int size;
+
+    private ArrayList<SerializedElement> _listBefore;
+
+    private ResultList<SerializedElement> _listSerialized;
+
+    private ResultList<CodedElement> _listCoded;
+
+    /**
+     * Crée les listes et enregistre le codec.
+     */
+    @Setup
+    public void setUp( )
+    {
+        ElementCodecRegistry.register( CodedElement.class, CODEC_ID, CODEC );
+        _listBefore = new ArrayList<SerializedElement>( size );
+        _listSerialized = new ResultList<SerializedElement>( );
+        _listCoded = new ResultList<CodedElement>( );
+        for ( int i = 0; i < size; i++ )
+        {
+            _listBefore.add( new SerializedElement( i, "Produit " + i, i * 1.5 ) );
+            _listSerialized.add( new SerializedElement( i, "Produit " + i, i * 1.5 ) );
+            _listCoded.add( new CodedElement( i, "Produit " + i, i * 1.5 ) );
+        }
+        _listSerialized.setTotalResult( size * 10 );
+        _listCoded.setTotalResult( size * 10 );
+    }
+
+    /**
+     * ArrayList par la sérialisation Java.
+     * 
+     * @return la liste relue
+     * @throws Exception
+     *             en cas d'erreur de sérialisation
+     */
+    @Benchmark
+    public Object arrayListSerialization( ) throws Exception
+    {
+        return roundTrip( _listBefore );
+    }
+
+    /**
+     * ResultList, éléments sans codec.
+     * 
+     * @return la liste relue
+     * @throws Exception
+     *             en cas d'erreur de sérialisation
+     */
+    @Benchmark
+    public Object resultListWithoutCodec( ) throws Exception
+    {
+        return roundTrip( _listSerialized );
+    }
+
+    /**
+     * ResultList, éléments avec un codec.
+     * 
+     * @return la liste relue
+     * @throws Exception
+     *             en cas d'erreur de sérialisation
+     */
+    @Benchmark
+    public Object resultListWithCodec( ) throws Exception
+    {
+        return roundTrip( _listCoded );
+    }
+
+    /**
+     * Sérialise puis désérialise une liste.
+     * 
+     * @param list
+     *            la liste
+     * @return la liste relue
+     * @throws Exception
+     *             en cas d'erreur de sérialisation
+     */
+    private static Object roundTrip( List<?> list ) throws Exception
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( );
+        ObjectOutputStream out = new ObjectOutputStream( buffer );
+        out.writeObject( list );
+        out.close( );
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( buffer.toByteArray( ) ) );
+
+        return in.readObject( );
+    }
+
+    /**
+     * Élément écrit par la sérialisation Java.
+     */
+    public static class SerializedElement implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int _nId;
+
+        private final String _strName;
+
+        private final double _dPrice;
+
+        /**
+         * Constructeur
+         * 
+         * @param nId
+         *            l'identifiant
+         * @param strName
+         *            le nom
+         * @param dPrice
+         *            le prix
+         */
+        public SerializedElement( int nId, String strName, double dPrice )
+        {
+            this._nId = nId;
+            this._strName = strName;
+            this._dPrice = dPrice;
+        }
+    }
+
+    /**
+     * Élément écrit par son codec.
+     */
+    public static class CodedElement implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int _nId;
+
+        private final String _strName;
+
+        private final double _dPrice;
+
+        /**
+         * Constructeur
+         * 
+         * @param nId
+         *            l'identifiant
+         * @param strName
+         *            le nom
+         * @param dPrice
+         *            le prix
+         */
+        public CodedElement( int nId, String strName, double dPrice )
+        {
+            this._nId = nId;
+            this._strName = strName;
+            this._dPrice = dPrice;
+        }
+    }
+
+    /**
+     * Codec de {@link CodedElement}.
+     */
+    private static final class CodedElementCodec implements IElementCodec<CodedElement>
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public void write( ObjectOutput out, CodedElement element ) throws IOException
+        {
+            out.writeInt( element._nId );
+            out.writeUTF( element._strName );
+            out.writeDouble( element._dPrice );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public CodedElement read( ObjectInput in ) throws IOException
+        {
+            return new CodedElement( in.readInt( ), in.readUTF( ), in.readDouble( ) );
+        }
+    }
+}
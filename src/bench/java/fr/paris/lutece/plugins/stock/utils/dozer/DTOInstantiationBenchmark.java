@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.dozer;
+
+import fr.paris.lutece.plugins.stock.commons.AbstractDTO;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dozer.DozerBeanMapper;
+import org.dozer.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Instanciation d'un DTO : avec la recherche du bean "mapper" dans le contexte Spring à chaque instance (initialiseur d'avant {@link MapperProvider}, la
+ * recherche faite par SpringContextService.getBean étant reproduite sur un contexte Spring local) et avec le mapper partagé par {@link MapperProvider}.<br>
+ * Lancement : mvn -P bench test-compile exec:exec
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DTOInstantiationBenchmark
+{
+    private static final String BEAN_MAPPER = "mapper";
+
+    private static GenericApplicationContext _context;
+
+    /**
+     * Crée le contexte Spring contenant le mapper et injecte ce mapper dans {@link MapperProvider}.
+     */
+    @Setup
+    public void setUp( )
+    {
+        Mapper mapper = new DozerBeanMapper( );
+        _context = new GenericApplicationContext( );
+        _context.getBeanFactory( ).registerSingleton( BEAN_MAPPER, mapper );
+        _context.refresh( );
+        MapperProvider.setMapper( mapper );
+    }
+
+    /**
+     * Ferme le contexte Spring et retire le mapper de {@link MapperProvider}.
+     */
+    @TearDown
+    public void tearDown( )
+    {
+        MapperProvider.setMapper( null );
+        _context.close( );
+    }
+
+    /**
+     * Avant : une recherche dans le contexte Spring par instance.
+     * 
+     * @return le DTO
+     */
+    @Benchmark
+    public Object instantiationWithContextLookup( )
+    {
+        return new LookupDTO( );
+    }
+
+    /**
+     * Après : le mapper partagé par {@link MapperProvider}.
+     * 
+     * @return le DTO
+     */
+    @Benchmark
+    public Object instantiationWithProvider( )
+    {
+        return new ProvidedDTO( );
+    }
+
+    /**
+     * DTO dont le mapper est fourni par {@link MapperProvider}.
+     */
+    public static class ProvidedDTO extends AbstractDTO<Object>
+    {
+        private Integer _nId;
+
+        private String _strName;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object convert( )
+        {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Integer getId( )
+        {
+            return _nId;
+        }
+
+        /**
+         * Retourne le nom
+         * 
+         * @return le nom
+         */
+        public String getName( )
+        {
+            return _strName;
+        }
+    }
+
+    /**
+     * DTO cherchant le mapper dans le contexte Spring à chaque instanciation, comme le faisait l'initialiseur de {@link AbstractDTO}.
+     */
+    public static class LookupDTO extends ProvidedDTO
+    {
+        /**
+         * Constructeur
+         */
+        public LookupDTO( )
+        {
+            mapper = (Mapper) _context.getBean( BEAN_MAPPER );
+        }
+    }
+}
@@ -1,89 +1,246 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons;
-
-import fr.paris.lutece.portal.service.spring.SpringContextService;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-import org.dozer.Mapper;
-
-/**
- * Classe abstraite des DTO.
- * 
- * @param <E>
- *            the element type
- * @author abataille
- */
-public abstract class AbstractDTO<E>
-{
-
-    protected Mapper mapper = (Mapper) SpringContextService.getBean( "mapper" );
-
-    /**
-     * Convert a DTO to entity
-     * 
-     * @return the e entity
-     */
-    public abstract E convert( );
-
-    /**
-     * Returns id
-     * 
-     * @return id
-     */
-    public abstract Integer getId( );
-
-    /**
-     * Convert entity list to DTO list.
-     * 
-     * @param listSource
-     *            the list source
-     * @return the list
-     */
-    public List<E> convertList( Collection<? extends AbstractDTO<E>> listSource )
-    {
-        List<E> listDest = new ArrayList<E>( listSource.size( ) );
-
-        for ( AbstractDTO<E> source : listSource )
-        {
-            listDest.add( source.convert( ) );
-        }
-
-        return listDest;
-    }
-
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+import fr.paris.lutece.plugins.stock.utils.dozer.MapperProvider;
+import fr.paris.lutece.plugins.stock.utils.dozer.MapperThreadSafety;
+import fr.paris.lutece.plugins.stock.utils.mapper.GenerateMapper;
+import fr.paris.lutece.plugins.stock.utils.mapper.StockMappers;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.dozer.Mapper;
+
+/**
+ * Classe abstraite des DTO.
+ * 
+ * @param <E>
+ *            the element type
+ * @author abataille
+ */
+public abstract class AbstractDTO<E>
+{
+    private static final String PROPERTY_PARALLEL_THRESHOLD = "stock.dto.convertList.parallelThreshold";
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    protected Mapper mapper = MapperProvider.getMapper( );
+
+    /**
+     * Convert a DTO to entity. By default, a DTO annotated with {@link GenerateMapper} is converted with its generated mapper, or with Dozer when the
+     * mapper was not generated (see {@link #map(Class)}) : such a DTO does not have to implement this method. The other DTOs must implement it.
+     * 
+     * @return the e entity
+     * @throws TechnicalException
+     *             if the DTO is not annotated with {@link GenerateMapper} and does not implement this method
+     */
+    @SuppressWarnings( "unchecked" )
+    public E convert( )
+    {
+        GenerateMapper generateMapper = getClass( ).getAnnotation( GenerateMapper.class );
+        if ( generateMapper == null )
+        {
+            throw new TechnicalException( "Le DTO " + getClass( ).getName( ) + " doit implémenter convert( ) ou être annoté avec @GenerateMapper" );
+        }
+
+        return map( (Class<E>) generateMapper.entity( ) );
+    }
+
+    /**
+     * Convert the DTO to entity with the mapper generated at compile time (see {@link GenerateMapper}) when there is one, with Dozer otherwise. Used by
+     * the default {@link #convert()}, and by the implementations of {@link #convert()} which complete the conversion.<br>
+     * Only the DTO to entity conversion uses the generated mappers in this class : the entity to DTO conversions made with Dozer are still made by
+     * Dozer, only an explicit call to {@link StockMappers#map(Object, Class)} uses the generated mapper in this direction.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @return the entity
+     */
+    protected E map( Class<E> entityClass )
+    {
+        return StockMappers.map( this, entityClass, mapper );
+    }
+
+    /**
+     * Returns id
+     * 
+     * @return id
+     */
+    public abstract Integer getId( );
+
+    /**
+     * Convert entity list to DTO list.
+     * 
+     * @param listSource
+     *            the list source
+     * @return the list
+     */
+    public List<E> convertList( Collection<? extends AbstractDTO<E>> listSource )
+    {
+        List<E> listDest = new ArrayList<E>( listSource.size( ) );
+
+        for ( AbstractDTO<E> source : listSource )
+        {
+            listDest.add( source.convert( ) );
+        }
+
+        return listDest;
+    }
+
+    /**
+     * Convert DTO list to entity list, in parallel on the common fork-join pool when the list has at least stock.dto.convertList.parallelThreshold
+     * elements (10000 by default), sequentially otherwise. The order of the list is preserved.<br>
+     * The mappers of the DTOs and their converters must be thread safe (see {@link MapperThreadSafety}) : they are checked before any conversion, whatever the size of the list. The
+     * {@link #convert()} implementations must not use other shared state.
+     * 
+     * @param listSource
+     *            the list source
+     * @return the list
+     * @throws fr.paris.lutece.plugins.stock.commons.exception.TechnicalException
+     *             if a mapper or a converter is not declared thread safe
+     */
+    @SuppressWarnings( "unchecked" )
+    public List<E> convertListParallel( Collection<? extends AbstractDTO<E>> listSource )
+    {
+        Set<Mapper> setCheckedMappers = Collections.newSetFromMap( new IdentityHashMap<Mapper, Boolean>( ) );
+        for ( AbstractDTO<E> source : listSource )
+        {
+            if ( source != null && setCheckedMappers.add( source.mapper ) )
+            {
+                MapperThreadSafety.check( source.mapper );
+            }
+        }
+
+        int nThreshold = AppPropertiesService.getPropertyInt( PROPERTY_PARALLEL_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD );
+        int nParallelism = ForkJoinPool.getCommonPoolParallelism( );
+        if ( listSource.size( ) < nThreshold || nParallelism < 2 )
+        {
+            return convertList( listSource );
+        }
+
+        AbstractDTO<?> [ ] sources = listSource.toArray( new AbstractDTO<?> [ listSource.size( )] );
+        Object [ ] results = new Object [ sources.length];
+        int nChunkSize = Math.max( MIN_CHUNK_SIZE, sources.length / ( nParallelism * 4 ) );
+        ForkJoinPool.commonPool( ).invoke( new ConvertTask( sources, results, 0, sources.length, nChunkSize, Thread.currentThread( ).getContextClassLoader( ) ) );
+
+        List<E> listDest = new ArrayList<E>( results.length );
+        for ( Object result : results )
+        {
+            listDest.add( (E) result );
+        }
+
+        return listDest;
+    }
+
+    /**
+     * Conversion of a range of DTOs, split in two until the range is smaller than the chunk size.
+     */
+    private static final class ConvertTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = -3395186386208893618L;
+
+        private final transient AbstractDTO<?> [ ] _sources;
+        private final transient Object [ ] _results;
+        private final int _nStart;
+        private final int _nEnd;
+        private final int _nChunkSize;
+        private final transient ClassLoader _classLoader;
+
+        /**
+         * Constructor
+         * 
+         * @param sources
+         *            the DTOs
+         * @param results
+         *            the entities, at the index of their DTO
+         * @param nStart
+         *            the start of the range (inclusive)
+         * @param nEnd
+         *            the end of the range (exclusive)
+         * @param nChunkSize
+         *            the size of the ranges converted by a single task
+         * @param classLoader
+         *            the context class loader of the caller, used by Dozer to load the classes
+         */
+        ConvertTask( AbstractDTO<?> [ ] sources, Object [ ] results, int nStart, int nEnd, int nChunkSize, ClassLoader classLoader )
+        {
+            _sources = sources;
+            _results = results;
+            _nStart = nStart;
+            _nEnd = nEnd;
+            _nChunkSize = nChunkSize;
+            _classLoader = classLoader;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute( )
+        {
+            if ( _nEnd - _nStart > _nChunkSize )
+            {
+                int nMiddle = ( _nStart + _nEnd ) >>> 1;
+                invokeAll( new ConvertTask( _sources, _results, _nStart, nMiddle, _nChunkSize, _classLoader ), new ConvertTask( _sources, _results, nMiddle,
+                        _nEnd, _nChunkSize, _classLoader ) );
+
+                return;
+            }
+
+            Thread thread = Thread.currentThread( );
+            ClassLoader previousClassLoader = thread.getContextClassLoader( );
+            thread.setContextClassLoader( _classLoader );
+            try
+            {
+                for ( int i = _nStart; i < _nEnd; i++ )
+                {
+                    _results [i] = _sources [i].convert( );
+                }
+            }
+            finally
+            {
+                thread.setContextClassLoader( previousClassLoader );
+            }
+        }
+    }
+}
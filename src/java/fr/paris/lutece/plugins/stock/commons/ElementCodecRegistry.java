@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des codecs des éléments des {@link ResultList} sérialisées. Chaque codec est enregistré pour une classe exacte avec un identifiant, écrit devant
+ * chaque élément : l'identifiant doit être le même sur tous les noeuds qui échangent des listes (ie réplication de session). Les éléments sans codec sont
+ * écrits par la sérialisation Java.
+ */
+public final class ElementCodecRegistry
+{
+    private static final byte ID_NULL = 0;
+    private static final byte ID_SERIALIZATION = 1;
+    private static final int ID_MIN = 2;
+
+    private static final Map<Class<?>, Byte> CODEC_IDS = new ConcurrentHashMap<Class<?>, Byte>( );
+    private static final Map<Byte, IElementCodec<?>> CODECS = new ConcurrentHashMap<Byte, IElementCodec<?>>( );
+
+    /**
+     * Constructeur
+     */
+    private ElementCodecRegistry( )
+    {
+
+    }
+
+    /**
+     * Enregistre le codec des éléments d'une classe. Une classe déjà enregistrée est associée au nouveau codec, l'ancien identifiant étant libéré s'il
+     * n'est plus utilisé par aucune classe.
+     * 
+     * @param <E>
+     *            le type des éléments
+     * @param elementClass
+     *            la classe des éléments (classe exacte, les sous classes ne sont pas concernées)
+     * @param nId
+     *            l'identifiant du codec, entre 2 et 127
+     * @param codec
+     *            le codec
+     */
+    public static synchronized <E> void register( Class<E> elementClass, int nId, IElementCodec<E> codec )
+    {
+        if ( nId < ID_MIN || nId > Byte.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "Identifiant de codec hors de [" + ID_MIN + ", " + Byte.MAX_VALUE + "] : " + nId );
+        }
+        IElementCodec<?> previous = CODECS.get( (byte) nId );
+        if ( previous != null && previous != codec )
+        {
+            throw new IllegalArgumentException( "Identifiant de codec déjà utilisé : " + nId );
+        }
+        CODECS.put( (byte) nId, codec );
+        Byte previousId = CODEC_IDS.put( elementClass, (byte) nId );
+        // Classe réenregistrée sous un autre identifiant : l'ancien codec n'est plus utilisé
+        if ( previousId != null && previousId.byteValue( ) != nId && !CODEC_IDS.containsValue( previousId ) )
+        {
+            CODECS.remove( previousId );
+        }
+    }
+
+    /**
+     * Écrit un élément avec son codec
+     * 
+     * @param out
+     *            le flux de sortie
+     * @param element
+     *            l'élément
+     * @throws IOException
+     *             en cas d'erreur d'écriture
+     */
+    @SuppressWarnings( "unchecked" )
+    static void write( ObjectOutput out, Object element ) throws IOException
+    {
+        if ( element == null )
+        {
+            out.writeByte( ID_NULL );
+
+            return;
+        }
+        Byte id = CODEC_IDS.get( element.getClass( ) );
+        if ( id == null )
+        {
+            out.writeByte( ID_SERIALIZATION );
+            out.writeObject( element );
+        }
+        else
+        {
+            out.writeByte( id );
+            ( (IElementCodec<Object>) CODECS.get( id ) ).write( out, element );
+        }
+    }
+
+    /**
+     * Lit un élément avec son codec
+     * 
+     * @param in
+     *            le flux d'entrée
+     * @return l'élément
+     * @throws IOException
+     *             en cas d'erreur de lecture
+     * @throws ClassNotFoundException
+     *             si une classe lue est introuvable
+     */
+    static Object read( ObjectInput in ) throws IOException, ClassNotFoundException
+    {
+        byte id = in.readByte( );
+        if ( id == ID_NULL )
+        {
+            return null;
+        }
+        if ( id == ID_SERIALIZATION )
+        {
+            return in.readObject( );
+        }
+        IElementCodec<?> codec = CODECS.get( id );
+        if ( codec == null )
+        {
+            throw new InvalidObjectException( "Codec d'élément inconnu : " + id );
+        }
+
+        return codec.read( in );
+    }
+}
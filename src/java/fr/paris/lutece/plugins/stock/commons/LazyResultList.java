@@ -0,0 +1,718 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * ResultList paginée à la demande : le nombre total de résultats est connu dès la création, et les éléments sont chargés par fenêtres de taille fixe lors de
+ * leur parcours. Seul un nombre borné de fenêtres est conservé en mémoire, les moins récemment utilisées étant libérées : une liste de taille quelconque est
+ * ainsi parcourue en mémoire constante.<br>
+ * La liste est en lecture seule. Elle est égale, au sens de {@link List#equals(Object)}, à toute liste des mêmes éléments : equals et hashCode chargent
+ * toutes ses fenêtres. Les fenêtres étant lues par position, les résultats ajoutés ou supprimés pendant le parcours peuvent décaler les éléments :
+ * la requête doit être triée sur une clé unique. Cette classe n'est pas thread safe.<br>
+ * À la sérialisation, la liste est remplacée par une {@link ResultList} contenant tous ses éléments.
+ * 
+ * @param <E>
+ *            le type de l'élément
+ */
+public class LazyResultList<E> extends ResultList<E>
+{
+    private static final long serialVersionUID = -2718281828459045235L;
+
+    private final transient IWindowLoader<E> _loader;
+    private final int _nWindowSize;
+    private final int _nMaxWindows;
+    private final transient Map<Integer, List<E>> _mapWindows;
+    private int _nLoadCount;
+
+    /**
+     * Chargeur des fenêtres de la liste
+     * 
+     * @param <E>
+     *            le type de l'élément
+     */
+    public interface IWindowLoader<E>
+    {
+        /**
+         * Charge une fenêtre
+         * 
+         * @param nFirstResult
+         *            la position du premier élément
+         * @param nSize
+         *            le nombre d'éléments
+         * @return les éléments de la fenêtre, moins nombreux en fin de liste
+         */
+        List<E> load( int nFirstResult, int nSize );
+    }
+
+    /**
+     * Crée une liste paginée à la demande
+     * 
+     * @param loader
+     *            le chargeur des fenêtres
+     * @param nTotalResult
+     *            le nombre total de résultats
+     * @param nWindowSize
+     *            la taille des fenêtres
+     * @param nMaxWindows
+     *            le nombre maximum de fenêtres conservées en mémoire
+     */
+    public LazyResultList( IWindowLoader<E> loader, int nTotalResult, int nWindowSize, final int nMaxWindows )
+    {
+        super( );
+        if ( nWindowSize <= 0 || nMaxWindows <= 0 )
+        {
+            throw new IllegalArgumentException( "Taille de fenêtre et nombre de fenêtres positifs attendus" );
+        }
+        this._loader = loader;
+        this._nWindowSize = nWindowSize;
+        this._nMaxWindows = nMaxWindows;
+        this._mapWindows = new LinkedHashMap<Integer, List<E>>( nMaxWindows + 1, 1f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Integer, List<E>> eldest )
+            {
+                return size( ) > nMaxWindows;
+            }
+        };
+        setTotalResult( nTotalResult );
+    }
+
+    /**
+     * Retourne une vue de cette liste dont les éléments sont transformés lors du chargement de chaque fenêtre (ie conversion des entités en DTO)
+     * 
+     * @param <R>
+     *            le type des éléments transformés
+     * @param mapper
+     *            la transformation
+     * @return la liste transformée, paginée à la demande
+     */
+    public <R> LazyResultList<R> map( final Function<? super E, ? extends R> mapper )
+    {
+        final IWindowLoader<E> loader = _loader;
+        LazyResultList<R> mapped = new LazyResultList<R>( new IWindowLoader<R>( )
+        {
+            public List<R> load( int nFirstResult, int nSize )
+            {
+                List<E> listElements = loader.load( nFirstResult, nSize );
+                List<R> listMapped = new ArrayList<R>( listElements.size( ) );
+                for ( E element : listElements )
+                {
+                    listMapped.add( mapper.apply( element ) );
+                }
+
+                return listMapped;
+            }
+        }, getTotalResult( ), _nWindowSize, _nMaxWindows );
+        mapped.setTotalResultType( getTotalResultType( ) );
+
+        return mapped;
+    }
+
+    /**
+     * Retourne la taille des fenêtres
+     * 
+     * @return la taille des fenêtres
+     */
+    public int getWindowSize( )
+    {
+        return _nWindowSize;
+    }
+
+    /**
+     * Retourne le nombre de fenêtres chargées depuis la création de la liste
+     * 
+     * @return le nombre de chargements
+     */
+    public int getLoadCount( )
+    {
+        return _nLoadCount;
+    }
+
+    /**
+     * Retourne l'élément d'une position, en chargeant sa fenêtre si besoin
+     * 
+     * @param index
+     *            la position
+     * @return l'élément
+     */
+    @Override
+    public E get( int index )
+    {
+        if ( index >= 0 && index < size( ) )
+        {
+            List<E> window = getWindow( index );
+            int nOffset = index % _nWindowSize;
+            if ( nOffset < window.size( ) )
+            {
+                return window.get( nOffset );
+            }
+        }
+
+        throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size( ) );
+    }
+
+    /**
+     * Retourne la fenêtre contenant une position, en la chargeant si besoin
+     * 
+     * @param index
+     *            la position
+     * @return la fenêtre
+     */
+    private List<E> getWindow( int index )
+    {
+        Integer nWindow = index / _nWindowSize;
+        List<E> window = _mapWindows.get( nWindow );
+        if ( window == null )
+        {
+            window = _loader.load( nWindow * _nWindowSize, _nWindowSize );
+            _nLoadCount++;
+            _mapWindows.put( nWindow, window );
+        }
+
+        return window;
+    }
+
+    /**
+     * Retourne le nombre total de résultats
+     * 
+     * @return le nombre d'éléments de la liste
+     */
+    @Override
+    public int size( )
+    {
+        return Math.max( getTotalResult( ), 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty( )
+    {
+        return size( ) == 0;
+    }
+
+    /**
+     * Parcourt la liste fenêtre par fenêtre. Le parcours s'arrête à la fin de la dernière fenêtre si la liste a raccourci depuis son comptage.
+     * 
+     * @return l'itérateur
+     */
+    @Override
+    public Iterator<E> iterator( )
+    {
+        return listIterator( 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ListIterator<E> listIterator( )
+    {
+        return listIterator( 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ListIterator<E> listIterator( final int nStart )
+    {
+        return new ListIterator<E>( )
+        {
+            private int _nNext = nStart;
+
+            public boolean hasNext( )
+            {
+                return _nNext < size( ) && ( _nNext % _nWindowSize ) < getWindow( _nNext ).size( );
+            }
+
+            public E next( )
+            {
+                if ( !hasNext( ) )
+                {
+                    throw new NoSuchElementException( );
+                }
+
+                return get( _nNext++ );
+            }
+
+            public boolean hasPrevious( )
+            {
+                return _nNext > 0;
+            }
+
+            public E previous( )
+            {
+                if ( !hasPrevious( ) )
+                {
+                    throw new NoSuchElementException( );
+                }
+
+                return get( --_nNext );
+            }
+
+            public int nextIndex( )
+            {
+                return _nNext;
+            }
+
+            public int previousIndex( )
+            {
+                return _nNext - 1;
+            }
+
+            public void remove( )
+            {
+                throw new UnsupportedOperationException( );
+            }
+
+            public void set( E element )
+            {
+                throw new UnsupportedOperationException( );
+            }
+
+            public void add( E element )
+            {
+                throw new UnsupportedOperationException( );
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Spliterator<E> spliterator( )
+    {
+        return Spliterators.spliterator( iterator( ), size( ), Spliterator.ORDERED );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEach( Consumer<? super E> action )
+    {
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); )
+        {
+            action.accept( it.next( ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains( Object o )
+    {
+        return indexOf( o ) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf( Object o )
+    {
+        int nIndex = 0;
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); nIndex++ )
+        {
+            E element = it.next( );
+            if ( ( o == null ) ? ( element == null ) : o.equals( element ) )
+            {
+                return nIndex;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndexOf( Object o )
+    {
+        int nLastIndex = -1;
+        int nIndex = 0;
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); nIndex++ )
+        {
+            E element = it.next( );
+            if ( ( o == null ) ? ( element == null ) : o.equals( element ) )
+            {
+                nLastIndex = nIndex;
+            }
+        }
+
+        return nLastIndex;
+    }
+
+    /**
+     * Charge tous les éléments : à éviter sur les grandes listes
+     * 
+     * @return les éléments
+     */
+    @Override
+    public Object [ ] toArray( )
+    {
+        return toList( ).toArray( );
+    }
+
+    /**
+     * Charge tous les éléments : à éviter sur les grandes listes
+     * 
+     * @param <T>
+     *            le type du tableau
+     * @param array
+     *            le tableau
+     * @return les éléments
+     */
+    @Override
+    public <T> T [ ] toArray( T [ ] array )
+    {
+        return toList( ).toArray( array );
+    }
+
+    /**
+     * Retourne une copie des éléments d'une plage
+     * 
+     * @param nFromIndex
+     *            la première position (incluse)
+     * @param nToIndex
+     *            la dernière position (exclue)
+     * @return les éléments de la plage
+     */
+    @Override
+    public List<E> subList( int nFromIndex, int nToIndex )
+    {
+        if ( nFromIndex < 0 || nToIndex > size( ) || nFromIndex > nToIndex )
+        {
+            throw new IndexOutOfBoundsException( "fromIndex: " + nFromIndex + ", toIndex: " + nToIndex + ", Size: " + size( ) );
+        }
+        List<E> listElements = new ArrayList<E>( nToIndex - nFromIndex );
+        for ( ListIterator<E> it = listIterator( nFromIndex ); it.hasNext( ) && it.nextIndex( ) < nToIndex; )
+        {
+            listElements.add( it.next( ) );
+        }
+
+        return listElements;
+    }
+
+    /**
+     * Charge tous les éléments
+     * 
+     * @return la liste des éléments
+     */
+    private List<E> toList( )
+    {
+        List<E> listElements = new ArrayList<E>( size( ) );
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); )
+        {
+            listElements.add( it.next( ) );
+        }
+
+        return listElements;
+    }
+
+    /**
+     * Égalité des listes : mêmes éléments dans le même ordre, comme pour toute {@link List}. Le parcours charge toutes les fenêtres nécessaires à la
+     * comparaison, soit toute la liste si elles sont égales.
+     * 
+     * @param o
+     *            l'objet comparé
+     * @return true si o est une liste des mêmes éléments
+     */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( o == this )
+        {
+            return true;
+        }
+        if ( !( o instanceof List ) )
+        {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        if ( other.size( ) != size( ) )
+        {
+            return false;
+        }
+        Iterator<?> otherIt = other.iterator( );
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); )
+        {
+            Object element = it.next( );
+            Object otherElement = otherIt.next( );
+            if ( ( element == null ) ? ( otherElement != null ) : !element.equals( otherElement ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Code de hachage d'une {@link List}, calculé sur les éléments : charge toutes les fenêtres.
+     * 
+     * @return le code de hachage
+     */
+    @Override
+    public int hashCode( )
+    {
+        int nHashCode = 1;
+        for ( Iterator<E> it = iterator( ); it.hasNext( ); )
+        {
+            E element = it.next( );
+            nHashCode = 31 * nHashCode + ( ( element == null ) ? 0 : element.hashCode( ) );
+        }
+
+        return nHashCode;
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param element
+     *            l'élément
+     * @return rien
+     */
+    @Override
+    public boolean add( E element )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param index
+     *            la position
+     * @param element
+     *            l'élément
+     */
+    @Override
+    public void add( int index, E element )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param collection
+     *            les éléments
+     * @return rien
+     */
+    @Override
+    public boolean addAll( Collection<? extends E> collection )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param index
+     *            la position
+     * @param collection
+     *            les éléments
+     * @return rien
+     */
+    @Override
+    public boolean addAll( int index, Collection<? extends E> collection )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param index
+     *            la position
+     * @param element
+     *            l'élément
+     * @return rien
+     */
+    @Override
+    public E set( int index, E element )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param index
+     *            la position
+     * @return rien
+     */
+    @Override
+    public E remove( int index )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param o
+     *            l'élément
+     * @return rien
+     */
+    @Override
+    public boolean remove( Object o )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param collection
+     *            les éléments
+     * @return rien
+     */
+    @Override
+    public boolean removeAll( Collection<?> collection )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param collection
+     *            les éléments
+     * @return rien
+     */
+    @Override
+    public boolean retainAll( Collection<?> collection )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param filter
+     *            le filtre
+     * @return rien
+     */
+    @Override
+    public boolean removeIf( Predicate<? super E> filter )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param operator
+     *            l'opérateur
+     */
+    @Override
+    public void replaceAll( UnaryOperator<E> operator )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     * 
+     * @param comparator
+     *            le comparateur
+     */
+    @Override
+    public void sort( Comparator<? super E> comparator )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Remplace la liste à la sérialisation par une {@link ResultList} contenant tous ses éléments : le chargeur n'est pas sérialisable
+     * 
+     * @return la liste chargée
+     * @throws ObjectStreamException
+     *             jamais
+     */
+    protected Object writeReplace( ) throws ObjectStreamException
+    {
+        ResultList<E> resultList = new ResultList<E>( );
+        resultList.addAll( toList( ) );
+        resultList.setTotalResult( getTotalResult( ) );
+        resultList.setTotalResultType( getTotalResultType( ) );
+        resultList.setHasMore( hasMore( ) );
+        resultList.setNextCursor( getNextCursor( ) );
+
+        return resultList;
+    }
+
+    /**
+     * Non supporté : liste en lecture seule
+     */
+    @Override
+    public void clear( )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Libère les fenêtres chargées : elles seront rechargées si elles sont de nouveau parcourues
+     */
+    public void releaseWindows( )
+    {
+        _mapWindows.clear( );
+    }
+}
@@ -1,72 +1,241 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons;
-
-import java.util.ArrayList;
-
-/**
- * Extension de l'objet ArrayList pour fournir des informations supplémentaires
- * 
- * @param <E>
- *            le type de l'entité
- */
-public class ResultList<E> extends ArrayList<E>
-{
-    /**  
-     *
-     */
-    private static final long serialVersionUID = 412957549497129907L;
-    private int _totalResult;
-
-    /**
-     * Retourne le nombre total de résultats
-     * 
-     * @return le nombre total de résultats
-     */
-    public int getTotalResult( )
-    {
-        return _totalResult;
-    }
-
-    /**
-     * Initialise le nombre total de résultats
-     * 
-     * @param totalResult
-     *            le nombre total de résultats
-     */
-    public void setTotalResult( int totalResult )
-    {
-        this._totalResult = totalResult;
-    }
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+
+/**
+ * Extension de l'objet ArrayList pour fournir des informations supplémentaires.<br>
+ * La liste est sérialisée dans un format compact : un en-tête versionné, le nombre total de résultats, les indicateurs de pagination, puis les éléments,
+ * chacun écrit par son codec (voir {@link ElementCodecRegistry}).<br>
+ * Les sous classes héritent de ce format : seuls les champs de ResultList et les éléments sont écrits, les champs propres à la sous classe sont perdus
+ * à la désérialisation, sauf à redéfinir writeExternal et readExternal en appelant les méthodes parentes, ou à se remplacer par une ResultList à
+ * l'écriture (voir {@link LazyResultList}). Comme tout {@link Externalizable}, une sous classe sérialisée doit avoir un constructeur public sans
+ * argument.
+ * 
+ * @param <E>
+ *            le type de l'entité
+ */
+public class ResultList<E> extends ArrayList<E> implements Externalizable
+{
+    /**  
+     *
+     */
+    private static final long serialVersionUID = 412957549497129908L;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int FLAG_HAS_MORE = 1;
+    private static final int FLAG_NEXT_CURSOR = 2;
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+    private int _totalResult;
+    private TotalResultType _totalResultType = TotalResultType.EXACT;
+    private boolean _hasMore;
+    private String _nextCursor;
+
+    /**
+     * Précision du nombre total de résultats
+     */
+    public enum TotalResultType
+    {
+        /** Nombre exact */
+        EXACT,
+        /** Nombre plafonné : il y a au moins ce nombre de résultats (ie "1000+") */
+        CAPPED,
+        /** Nombre estimé (ie à partir des statistiques de la base) */
+        ESTIMATED,
+        /** Nombre inconnu : pas de comptage */
+        UNKNOWN
+    }
+
+    /**
+     * Retourne le nombre total de résultats
+     * 
+     * @return le nombre total de résultats
+     */
+    public int getTotalResult( )
+    {
+        return _totalResult;
+    }
+
+    /**
+     * Initialise le nombre total de résultats
+     * 
+     * @param totalResult
+     *            le nombre total de résultats
+     */
+    public void setTotalResult( int totalResult )
+    {
+        this._totalResult = totalResult;
+    }
+
+    /**
+     * Retourne la précision du nombre total de résultats
+     * 
+     * @return la précision du nombre total de résultats
+     */
+    public TotalResultType getTotalResultType( )
+    {
+        return _totalResultType;
+    }
+
+    /**
+     * Initialise la précision du nombre total de résultats
+     * 
+     * @param totalResultType
+     *            la précision du nombre total de résultats
+     */
+    public void setTotalResultType( TotalResultType totalResultType )
+    {
+        this._totalResultType = totalResultType;
+    }
+
+    /**
+     * Indique si le nombre total de résultats est exact
+     * 
+     * @return true si le nombre total de résultats est exact
+     */
+    public boolean isTotalResultExact( )
+    {
+        return _totalResultType == TotalResultType.EXACT;
+    }
+
+    /**
+     * Indique s'il existe une page suivante. Renseigné uniquement lorsque les résultats ne sont pas comptés (voir
+     * {@link fr.paris.lutece.plugins.stock.commons.dao.PaginationProperties#isCountRequired()})
+     * 
+     * @return true s'il existe au moins un résultat après cette page
+     */
+    public boolean hasMore( )
+    {
+        return _hasMore;
+    }
+
+    /**
+     * Indique s'il existe une page suivante
+     * 
+     * @param hasMore
+     *            true s'il existe au moins un résultat après cette page
+     */
+    public void setHasMore( boolean hasMore )
+    {
+        this._hasMore = hasMore;
+    }
+
+    /**
+     * Retourne le curseur de la page suivante, pour une pagination par clés
+     * 
+     * @return le curseur opaque de la page suivante, null s'il n'y en a pas
+     */
+    public String getNextCursor( )
+    {
+        return _nextCursor;
+    }
+
+    /**
+     * Initialise le curseur de la page suivante
+     * 
+     * @param nextCursor
+     *            le curseur opaque de la page suivante
+     */
+    public void setNextCursor( String nextCursor )
+    {
+        this._nextCursor = nextCursor;
+    }
+
+    /**
+     * Écrit la liste dans le format compact
+     * 
+     * @param out
+     *            le flux de sortie
+     * @throws IOException
+     *             en cas d'erreur d'écriture
+     */
+    public void writeExternal( ObjectOutput out ) throws IOException
+    {
+        out.writeByte( FORMAT_VERSION );
+        out.writeInt( _totalResult );
+        out.writeByte( _totalResultType.ordinal( ) );
+        out.writeByte( ( _hasMore ? FLAG_HAS_MORE : 0 ) | ( ( _nextCursor != null ) ? FLAG_NEXT_CURSOR : 0 ) );
+        if ( _nextCursor != null )
+        {
+            out.writeUTF( _nextCursor );
+        }
+        out.writeInt( size( ) );
+        for ( E element : this )
+        {
+            ElementCodecRegistry.write( out, element );
+        }
+    }
+
+    /**
+     * Lit la liste dans le format compact
+     * 
+     * @param in
+     *            le flux d'entrée
+     * @throws IOException
+     *             en cas d'erreur de lecture ou de version inconnue
+     * @throws ClassNotFoundException
+     *             si la classe d'un élément est introuvable
+     */
+    @SuppressWarnings( "unchecked" )
+    public void readExternal( ObjectInput in ) throws IOException, ClassNotFoundException
+    {
+        byte version = in.readByte( );
+        if ( version != FORMAT_VERSION )
+        {
+            throw new InvalidObjectException( "Version de ResultList inconnue : " + version );
+        }
+        _totalResult = in.readInt( );
+        int nType = in.readUnsignedByte( );
+        if ( nType >= TotalResultType.values( ).length )
+        {
+            throw new InvalidObjectException( "Précision du nombre total de résultats inconnue : " + nType );
+        }
+        _totalResultType = TotalResultType.values( ) [nType];
+        int nFlags = in.readUnsignedByte( );
+        _hasMore = ( nFlags & FLAG_HAS_MORE ) != 0;
+        _nextCursor = ( ( nFlags & FLAG_NEXT_CURSOR ) != 0 ) ? in.readUTF( ) : null;
+        int nSize = in.readInt( );
+        // La taille lue n'est pas fiable tant que les éléments ne sont pas lus : capacité initiale bornée
+        ensureCapacity( Math.min( nSize, MAX_INITIAL_CAPACITY ) );
+        for ( int i = 0; i < nSize; i++ )
+        {
+            add( (E) ElementCodecRegistry.read( in ) );
+        }
+    }
+}
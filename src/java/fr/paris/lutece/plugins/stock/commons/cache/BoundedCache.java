@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.cache;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache with frequency aware eviction, optional time to live and read-through loading.
+ * <ul>
+ * <li>Eviction : entries are kept in access order ; when the cache is full, a new value is admitted only if its key has been requested more often than the
+ * least recently used entry, which is then evicted (TinyLFU admission). Frequencies are estimated by a {@link FrequencySketch}.</li>
+ * <li>Loading : concurrent misses on a key load it once, the other callers waiting for the result.</li>
+ * <li>Invalidation : a value loaded before an invalidation is not stored.</li>
+ * </ul>
+ * Null values are not cached.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class BoundedCache<K, V>
+{
+    private final int _nMaxSize;
+
+    private final long _lTimeToLive;
+
+    private final LinkedHashMap<K, Entry<V>> _mapEntries;
+
+    private final FrequencySketch _sketch;
+
+    private final ConcurrentMap<K, FutureTask<V>> _mapLoads = new ConcurrentHashMap<K, FutureTask<V>>( );
+
+    private final AtomicLong _lGeneration = new AtomicLong( );
+
+    private final AtomicLong _lHitCount = new AtomicLong( );
+    private final AtomicLong _lMissCount = new AtomicLong( );
+    private final AtomicLong _lLoadCount = new AtomicLong( );
+    private final AtomicLong _lEvictionCount = new AtomicLong( );
+    private final AtomicLong _lRejectionCount = new AtomicLong( );
+
+    /**
+     * Creates a new BoundedCache.
+     * 
+     * @param nMaxSize
+     *            the maximum number of entries
+     * @param lTimeToLive
+     *            the time to live of the entries in milliseconds, 0 for none
+     */
+    public BoundedCache( int nMaxSize, long lTimeToLive )
+    {
+        this._nMaxSize = nMaxSize;
+        this._lTimeToLive = lTimeToLive * 1000000L;
+        this._mapEntries = new LinkedHashMap<K, Entry<V>>( 16, 0.75f, true );
+        this._sketch = new FrequencySketch( nMaxSize );
+    }
+
+    /**
+     * Returns the cached value of a key.
+     * 
+     * @param key
+     *            the key
+     * @return the value, null if not cached
+     */
+    public V getIfPresent( K key )
+    {
+        V value = lookup( key );
+        if ( value == null )
+        {
+            _lMissCount.incrementAndGet( );
+        }
+        else
+        {
+            _lHitCount.incrementAndGet( );
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the value of a key, loading it on a miss. Concurrent misses on the same key call the loader once.
+     * 
+     * @param key
+     *            the key
+     * @param loader
+     *            the loader of the value
+     * @return the value, null if the loader returns null
+     */
+    public V get( K key, Function<? super K, ? extends V> loader )
+    {
+        V value = lookup( key );
+        if ( value != null )
+        {
+            _lHitCount.incrementAndGet( );
+
+            return value;
+        }
+        _lMissCount.incrementAndGet( );
+
+        FutureTask<V> load = _mapLoads.get( key );
+        if ( load == null )
+        {
+            final K loadKey = key;
+            final Function<? super K, ? extends V> loadFunction = loader;
+            FutureTask<V> newLoad = new FutureTask<V>( new Callable<V>( )
+            {
+                public V call( )
+                {
+                    return loadFunction.apply( loadKey );
+                }
+            } );
+            load = _mapLoads.putIfAbsent( key, newLoad );
+            if ( load == null )
+            {
+                long lGeneration = _lGeneration.get( );
+                _lLoadCount.incrementAndGet( );
+                try
+                {
+                    newLoad.run( );
+                    V loadedValue = waitFor( newLoad );
+                    put( key, loadedValue, lGeneration );
+
+                    return loadedValue;
+                }
+                finally
+                {
+                    _mapLoads.remove( key, newLoad );
+                }
+            }
+        }
+
+        return waitFor( load );
+    }
+
+    /**
+     * Stores a value. A value loaded outside of this cache must be stored with {@link #put(Object, Object, long)} instead, so that it is not stored if an
+     * invalidation happened during the load.
+     * 
+     * @param key
+     *            the key
+     * @param value
+     *            the value (not stored if null)
+     */
+    public void put( K key, V value )
+    {
+        put( key, value, _lGeneration.get( ) );
+    }
+
+    /**
+     * Returns the generation of the cache, incremented by each invalidation. To be read before loading values stored with
+     * {@link #put(Object, Object, long)}.
+     * 
+     * @return the generation
+     */
+    public long getGeneration( )
+    {
+        return _lGeneration.get( );
+    }
+
+    /**
+     * Removes the value of a key. A load of this key in progress is not stored.
+     * 
+     * @param key
+     *            the key
+     */
+    public void invalidate( K key )
+    {
+        _lGeneration.incrementAndGet( );
+        synchronized( _mapEntries )
+        {
+            _mapEntries.remove( key );
+        }
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void invalidateAll( )
+    {
+        _lGeneration.incrementAndGet( );
+        synchronized( _mapEntries )
+        {
+            _mapEntries.clear( );
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return the size
+     */
+    public int size( )
+    {
+        synchronized( _mapEntries )
+        {
+            return _mapEntries.size( );
+        }
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     * 
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics( )
+    {
+        return new CacheStatistics( _lHitCount.get( ), _lMissCount.get( ), _lLoadCount.get( ), _lEvictionCount.get( ), _lRejectionCount.get( ), size( ) );
+    }
+
+    /**
+     * Looks up a key, recording the access in the frequency sketch.
+     * 
+     * @param key
+     *            the key
+     * @return the value, null if absent or expired
+     */
+    private V lookup( K key )
+    {
+        synchronized( _mapEntries )
+        {
+            _sketch.increment( key );
+            Entry<V> entry = _mapEntries.get( key );
+            if ( entry == null )
+            {
+                return null;
+            }
+            if ( _lTimeToLive > 0 && entry._lExpiration - System.nanoTime( ) <= 0 )
+            {
+                _mapEntries.remove( key );
+
+                return null;
+            }
+
+            return entry._value;
+        }
+    }
+
+    /**
+     * Stores a value if no invalidation happened since the given generation and if it is admitted.
+     * 
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @param lGeneration
+     *            the generation read before loading the value (see {@link #getGeneration()})
+     */
+    public void put( K key, V value, long lGeneration )
+    {
+        if ( value == null || _nMaxSize <= 0 )
+        {
+            return;
+        }
+        synchronized( _mapEntries )
+        {
+            if ( lGeneration != _lGeneration.get( ) )
+            {
+                return;
+            }
+            if ( !_mapEntries.containsKey( key ) && _mapEntries.size( ) >= _nMaxSize && !evictFor( key ) )
+            {
+                _lRejectionCount.incrementAndGet( );
+
+                return;
+            }
+            _mapEntries.put( key, new Entry<V>( value, ( _lTimeToLive > 0 ) ? System.nanoTime( ) + _lTimeToLive : 0 ) );
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry if the candidate key is more frequent. Must be called under the lock.
+     * 
+     * @param candidateKey
+     *            the key to admit
+     * @return true if an entry has been evicted
+     */
+    private boolean evictFor( K candidateKey )
+    {
+        Iterator<Map.Entry<K, Entry<V>>> it = _mapEntries.entrySet( ).iterator( );
+        Map.Entry<K, Entry<V>> victim = it.next( );
+        boolean bExpired = _lTimeToLive > 0 && victim.getValue( )._lExpiration - System.nanoTime( ) <= 0;
+        if ( !bExpired && _sketch.frequency( candidateKey ) <= _sketch.frequency( victim.getKey( ) ) )
+        {
+            return false;
+        }
+        it.remove( );
+        _lEvictionCount.incrementAndGet( );
+
+        return true;
+    }
+
+    /**
+     * Waits for a load.
+     * 
+     * @param load
+     *            the load
+     * @return the loaded value
+     */
+    private V waitFor( FutureTask<V> load )
+    {
+        try
+        {
+            return load.get( );
+        }
+        catch( ExecutionException e )
+        {
+            if ( e.getCause( ) instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause( );
+            }
+            throw new TechnicalException( "Erreur lors du chargement d'une valeur en cache", e.getCause( ) );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new TechnicalException( "Chargement d'une valeur en cache interrompu", e );
+        }
+    }
+
+    /**
+     * Cached value.
+     * 
+     * @param <V>
+     *            the value type
+     */
+    private static final class Entry<V>
+    {
+        private final V _value;
+        private final long _lExpiration;
+
+        /**
+         * Creates a new Entry.
+         * 
+         * @param value
+         *            the value
+         * @param lExpiration
+         *            the expiration time in nanoseconds
+         */
+        Entry( V value, long lExpiration )
+        {
+            this._value = value;
+            this._lExpiration = lExpiration;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.cache;
+
+/**
+ * Snapshot of the statistics of a {@link BoundedCache}.
+ */
+public final class CacheStatistics
+{
+    private final long _lHitCount;
+    private final long _lMissCount;
+    private final long _lLoadCount;
+    private final long _lEvictionCount;
+    private final long _lRejectionCount;
+    private final int _nSize;
+
+    /**
+     * Creates a new CacheStatistics.
+     * 
+     * @param lHitCount
+     *            the number of hits
+     * @param lMissCount
+     *            the number of misses
+     * @param lLoadCount
+     *            the number of loads (concurrent misses on a key load it once)
+     * @param lEvictionCount
+     *            the number of entries evicted to make room
+     * @param lRejectionCount
+     *            the number of loaded values not admitted because less frequent than the eviction candidate
+     * @param nSize
+     *            the number of entries
+     */
+    public CacheStatistics( long lHitCount, long lMissCount, long lLoadCount, long lEvictionCount, long lRejectionCount, int nSize )
+    {
+        this._lHitCount = lHitCount;
+        this._lMissCount = lMissCount;
+        this._lLoadCount = lLoadCount;
+        this._lEvictionCount = lEvictionCount;
+        this._lRejectionCount = lRejectionCount;
+        this._nSize = nSize;
+    }
+
+    /**
+     * Returns the number of hits.
+     * 
+     * @return the hit count
+     */
+    public long getHitCount( )
+    {
+        return _lHitCount;
+    }
+
+    /**
+     * Returns the number of misses.
+     * 
+     * @return the miss count
+     */
+    public long getMissCount( )
+    {
+        return _lMissCount;
+    }
+
+    /**
+     * Returns the number of loads.
+     * 
+     * @return the load count
+     */
+    public long getLoadCount( )
+    {
+        return _lLoadCount;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room.
+     * 
+     * @return the eviction count
+     */
+    public long getEvictionCount( )
+    {
+        return _lEvictionCount;
+    }
+
+    /**
+     * Returns the number of loaded values not admitted in the cache.
+     * 
+     * @return the rejection count
+     */
+    public long getRejectionCount( )
+    {
+        return _lRejectionCount;
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return the size
+     */
+    public int getSize( )
+    {
+        return _nSize;
+    }
+
+    /**
+     * Returns the ratio of hits among the requests.
+     * 
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio( )
+    {
+        long lRequests = _lHitCount + _lMissCount;
+
+        return ( lRequests == 0 ) ? 0 : (double) _lHitCount / lRequests;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return "CacheStatistics [hits=" + _lHitCount + ", misses=" + _lMissCount + ", hitRatio=" + getHitRatio( ) + ", loads=" + _lLoadCount
+                + ", evictions=" + _lEvictionCount + ", rejections=" + _lRejectionCount + ", size=" + _nSize + "]";
+    }
+}
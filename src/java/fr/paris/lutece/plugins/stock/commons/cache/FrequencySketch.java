@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.cache;
+
+/**
+ * Approximate access frequencies of keys (count-min sketch with 4 hash functions). Counters are capped at 15 and all halved after a sample of accesses, so
+ * that old frequencies fade out. Not thread safe : used under the lock of {@link BoundedCache}.
+ */
+final class FrequencySketch
+{
+    private static final int MAX_FREQUENCY = 15;
+    private static final int DEPTH = 4;
+    private static final int [ ] SEEDS = {
+            0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F
+    };
+    private static final int SAMPLE_FACTOR = 10;
+
+    private final int [ ] _counters;
+
+    private final int _nMask;
+
+    private final int _nSampleSize;
+
+    private int _nAdditions;
+
+    /**
+     * Creates a new FrequencySketch.
+     * 
+     * @param nMaxSize
+     *            the maximum number of entries of the cache
+     */
+    FrequencySketch( int nMaxSize )
+    {
+        int nWidth = Integer.highestOneBit( Math.max( 16, nMaxSize ) - 1 ) << 1;
+        this._counters = new int [ nWidth * DEPTH];
+        this._nMask = nWidth - 1;
+        this._nSampleSize = Math.max( 1, nMaxSize ) * SAMPLE_FACTOR;
+    }
+
+    /**
+     * Records an access to a key.
+     * 
+     * @param key
+     *            the key
+     */
+    void increment( Object key )
+    {
+        int nHash = spread( key.hashCode( ) );
+        boolean bAdded = false;
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            int nIndex = index( nHash, i );
+            if ( _counters [nIndex] < MAX_FREQUENCY )
+            {
+                _counters [nIndex]++;
+                bAdded = true;
+            }
+        }
+        if ( bAdded && ++_nAdditions >= _nSampleSize )
+        {
+            reset( );
+        }
+    }
+
+    /**
+     * Returns the estimated frequency of a key.
+     * 
+     * @param key
+     *            the key
+     * @return the frequency, between 0 and 15
+     */
+    int frequency( Object key )
+    {
+        int nHash = spread( key.hashCode( ) );
+        int nFrequency = MAX_FREQUENCY;
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            nFrequency = Math.min( nFrequency, _counters [index( nHash, i )] );
+        }
+
+        return nFrequency;
+    }
+
+    /**
+     * Halves all the counters.
+     */
+    private void reset( )
+    {
+        for ( int i = 0; i < _counters.length; i++ )
+        {
+            _counters [i] >>>= 1;
+        }
+        _nAdditions = _nAdditions >>> 1;
+    }
+
+    /**
+     * Returns the counter index of a hash for a row.
+     * 
+     * @param nHash
+     *            the hash
+     * @param nRow
+     *            the row
+     * @return the index
+     */
+    private int index( int nHash, int nRow )
+    {
+        int nRowHash = ( nHash ^ SEEDS [nRow] ) * SEEDS [( nRow + 1 ) % DEPTH];
+        nRowHash ^= nRowHash >>> 16;
+
+        return ( nRow * ( _nMask + 1 ) ) + ( nRowHash & _nMask );
+    }
+
+    /**
+     * Spreads the bits of a hash code.
+     * 
+     * @param nHashCode
+     *            the hash code
+     * @return the spread hash
+     */
+    private static int spread( int nHashCode )
+    {
+        int nHash = nHashCode * 0x7FEB352D;
+        nHash ^= nHash >>> 15;
+
+        return nHash * 0x846CA68B;
+    }
+}
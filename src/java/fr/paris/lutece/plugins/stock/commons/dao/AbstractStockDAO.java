@@ -1,137 +1,1768 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons.dao;
-
-import fr.paris.lutece.plugins.stock.commons.ResultList;
-import fr.paris.lutece.portal.service.jpa.JPALuteceDAO;
-
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Expression;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
-
-/**
- * Abstract class for stock DAO.
- * 
- * @param <K>
- *            the key type
- * @param <E>
- *            the entity type
- * @author abataille
- */
-public abstract class AbstractStockDAO<K, E> extends JPALuteceDAO<K, E>
-{
-
-    /**
-     * Generate count query from criteria query and return a paged query.
-     * 
-     * @param <T>
-     *            the generic type of criteria query
-     * @param criteriaQuery
-     *            criteria query
-     * @param paginationProperties
-     *            pagination data
-     * @return query paged
-     */
-    protected <T> PagedQuery createPagedQuery( CriteriaQuery<T> criteriaQuery, PaginationProperties paginationProperties )
-    {
-
-        // Generate count query
-        EntityManager em = getEM( );
-        CriteriaBuilder cb = em.getCriteriaBuilder( );
-        CriteriaQuery<Long> countQuery = cb.createQuery( Long.class );
-        countQuery.select( cb.count( countQuery.from( criteriaQuery.getResultType( ) ) ) );
-        // Rebuild the roots if
-        // if ( cq.getRoots( ).size( ) > 1 )
-        // {
-        countQuery.getRoots( ).clear( );
-        for ( Root<?> root : criteriaQuery.getRoots( ) )
-        {
-            countQuery.getRoots( ).add( root );
-        }
-        // }
-        if ( criteriaQuery.getRestriction( ) != null )
-        {
-            countQuery.where( criteriaQuery.getRestriction( ) ).distinct( true );
-        }
-
-        // Create the paged query
-        PagedQuery pq = new PagedQuery( em.createQuery( criteriaQuery ), em.createQuery( countQuery ), paginationProperties );
-
-        return pq;
-    }
-
-    /**
-     * Return all entities paged.
-     * 
-     * @param paginationProperties
-     *            properties for pagination
-     * @return the result list
-     */
-    public ResultList<E> findAll( PaginationProperties paginationProperties )
-    {
-
-        Query query = getEM( ).createQuery( "SELECT e FROM " + getEntityClassName( ) + " e " );
-
-        Query countQuery = getEM( ).createQuery( "SELECT count(e) FROM " + getEntityClassName( ) + " e " );
-
-        PagedQuery pq = new PagedQuery( query, countQuery, paginationProperties );
-        return pq.getResultList( );
-    }
-
-    /**
-     * Add a predicate to an existing query
-     * 
-     * @param query
-     *            existing query
-     * @param exp
-     *            restriction
-     */
-    protected void addRestriction( CriteriaQuery<?> query, Expression<Boolean> exp )
-    {
-        CriteriaBuilder builder = getEM( ).getCriteriaBuilder( );
-        Predicate restriction = query.getRestriction( );
-        if ( restriction == null )
-        {
-            query.where( exp );
-        }
-        else
-        {
-            query.where( builder.and( restriction, exp ) );
-        }
-    }
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.LazyResultList;
+import fr.paris.lutece.plugins.stock.commons.LazyResultList.IWindowLoader;
+import fr.paris.lutece.plugins.stock.commons.ResultList;
+import fr.paris.lutece.plugins.stock.commons.dao.PagedQuery.ReadOnlyMode;
+import fr.paris.lutece.plugins.stock.commons.dao.QueryShapeCache.CompiledShape;
+import fr.paris.lutece.plugins.stock.commons.dao.QueryShapeCache.IShapeCompiler;
+import fr.paris.lutece.portal.service.jpa.JPALuteceDAO;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.EntityType;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Abstract class for stock DAO.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <E>
+ *            the entity type
+ * @author abataille
+ */
+public abstract class AbstractStockDAO<K, E> extends JPALuteceDAO<K, E>
+{
+
+    private static final String PATH_SEPARATOR = "\\.";
+    private static final String PROPERTY_COUNT_CACHE_ENABLED = "stock.dao.countCache.enabled";
+    private static final String PROPERTY_CONCURRENT_COUNT_ENABLED = "stock.dao.concurrentCount.enabled";
+    private static final String PROPERTY_PREFETCH_ENABLED = "stock.dao.prefetch.enabled";
+    private static final String PROPERTY_READ_ONLY_MODE = "stock.dao.readOnlyMode";
+    private static final String PROPERTY_LAZY_MAX_WINDOWS = "stock.dao.lazyResultList.maxWindows";
+    private static final int DEFAULT_LAZY_MAX_WINDOWS = 2;
+    private static final String PROPERTY_STREAM_CHUNK_SIZE = "stock.dao.stream.chunkSize";
+    private static final int DEFAULT_STREAM_CHUNK_SIZE = 500;
+    private static final String PROPERTY_FIND_BY_IDS_CHUNK_SIZE = "stock.dao.findByIds.chunkSize";
+    private static final int DEFAULT_FIND_BY_IDS_CHUNK_SIZE = 500;
+    private static final String PROPERTY_BATCH_SIZE = "stock.dao.batch.size";
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    /** Properties enabling JDBC batching, ignored by the providers not knowing them */
+    private static final String [ ] PROPERTIES_BATCH_SIZE = {
+            "hibernate.jdbc.batch_size", "eclipselink.jdbc.batch-writing.size"
+    };
+    private static final String PROPERTY_ECLIPSELINK_BATCH_WRITING = "eclipselink.jdbc.batch-writing";
+    private static final String ECLIPSELINK_BATCH_WRITING_JDBC = "JDBC";
+    /** Defaults of the providers (batching disabled) for the properties of PROPERTIES_BATCH_SIZE then eclipselink.jdbc.batch-writing */
+    private static final Object [ ] DEFAULTS_BATCH_PROPERTIES = {
+            0, 100, "None"
+    };
+    private static final Logger LOGGER = Logger.getLogger( AbstractStockDAO.class );
+    private static final String SHAPE_FIND_ALL = "findAll";
+    private static final String SHAPE_FIND_BY_ID = "findById";
+    private static final String SHAPE_FIND_BY_IDS = "findByIds";
+    private static final String SHAPE_STREAM = "stream";
+    private static final String SHAPE_SAVE_ALL = "saveAll";
+    private static final String SHAPE_UPDATE_ALL = "updateAll";
+    private static final String SHAPE_UPDATE_WHERE = "updateWhere";
+    private static final String SHAPE_DELETE_WHERE = "deleteWhere";
+
+    private boolean _bCountCacheEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_COUNT_CACHE_ENABLED, false );
+
+    private boolean _bConcurrentCountEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_CONCURRENT_COUNT_ENABLED, false );
+
+    private ICountStrategy _countStrategy;
+
+    private ReadOnlyMode _readOnlyMode = ReadOnlyMode.valueOf( AppPropertiesService.getProperty( PROPERTY_READ_ONLY_MODE, ReadOnlyMode.OFF.name( ) ) );
+
+    private boolean _bPrefetchEnabled = AppPropertiesService.getPropertyBoolean( PROPERTY_PREFETCH_ENABLED, false );
+
+    private int _nStreamChunkSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_STREAM_CHUNK_SIZE, DEFAULT_STREAM_CHUNK_SIZE ) );
+
+    private int _nLazyMaxWindows = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_LAZY_MAX_WINDOWS, DEFAULT_LAZY_MAX_WINDOWS ) );
+
+    private int _nFindByIdsChunkSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_FIND_BY_IDS_CHUNK_SIZE, DEFAULT_FIND_BY_IDS_CHUNK_SIZE ) );
+
+    private int _nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+
+    /**
+     * Generate count query from criteria query and return a paged query.
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param criteriaQuery
+     *            criteria query
+     * @param paginationProperties
+     *            pagination data
+     * @return query paged
+     */
+    protected <T> PagedQuery createPagedQuery( CriteriaQuery<T> criteriaQuery, PaginationProperties paginationProperties )
+    {
+        EntityManager em = getEM( );
+        CriteriaQuery<Long> countQuery = createCountQuery( criteriaQuery );
+
+        // Create the paged query
+        PagedQuery pq = new PagedQuery( em.createQuery( criteriaQuery ), em.createQuery( countQuery ), paginationProperties );
+        initCount( pq, createCountContext( criteriaQuery, countQuery ) );
+
+        return pq;
+    }
+
+    /**
+     * Generate count query from criteria query and return a paged query whose count is cached, if the count cache is enabled for this DAO.
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param criteriaQuery
+     *            criteria query
+     * @param paginationProperties
+     *            pagination data
+     * @param countKey
+     *            the key of the search : a shape naming the structure of the criteria query and the values of its criteria
+     * @return query paged
+     */
+    protected <T> PagedQuery createPagedQuery( CriteriaQuery<T> criteriaQuery, PaginationProperties paginationProperties, QueryKey countKey )
+    {
+        PagedQuery pq = createPagedQuery( criteriaQuery, paginationProperties );
+        enableCountCache( pq, countKey );
+        enablePrefetch( pq, countKey, createQueryFactory( criteriaQuery ) );
+
+        return pq;
+    }
+
+    /**
+     * Return a paged query for a search of a given shape, whose criteria queries are only built and translated once (see {@link QueryShapeCache}) : the
+     * next searches of the same shape create the compiled queries and bind their parameters. The count is cached and the next page prefetched if enabled for
+     * this DAO.
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param strShape
+     *            the shape of the search, unique for the entity of this DAO
+     * @param queryBuilder
+     *            the builder of the criteria query, whose criteria values are named parameter expressions
+     * @param mapParameters
+     *            the values of the parameters, by name
+     * @param paginationProperties
+     *            pagination data
+     * @return query paged
+     */
+    protected <T> PagedQuery createPagedQuery( String strShape, final ICriteriaQueryBuilder<T> queryBuilder, Map<String, ?> mapParameters,
+            PaginationProperties paginationProperties )
+    {
+        final EntityManager em = getEM( );
+        CompiledShape shape = QueryShapeCache.getInstance( ).get( getEntityClass( ).getName( ) + "." + strShape, new IShapeCompiler( )
+        {
+            public CompiledShape compile( )
+            {
+                CriteriaQuery<T> criteriaQuery = queryBuilder.build( em.getCriteriaBuilder( ) );
+
+                return new CompiledShape( em, getEntityClass( ), criteriaQuery, createCountQuery( criteriaQuery ), createRowQuery( criteriaQuery ) );
+            }
+        } );
+
+        Map<String, Object> mapValues = new HashMap<String, Object>( mapParameters );
+        IQueryFactory pageQueryFactory = bindParameters( shape.getPageQueryFactory( ), mapValues );
+        IQueryFactory countQueryFactory = bindParameters( shape.getCountQueryFactory( ), mapValues );
+        IQueryFactory rowQueryFactory = ( shape.getRowQueryFactory( ) == null ) ? null : bindParameters( shape.getRowQueryFactory( ), mapValues );
+
+        PagedQuery pq = new PagedQuery( pageQueryFactory.createQuery( em ), countQueryFactory.createQuery( em ), paginationProperties );
+        initCount( pq, new CountContext( em, getEntityClass( ), shape.isRestricted( ), countQueryFactory, rowQueryFactory ) );
+        QueryKey key = QueryKey.of( getEntityClass( ), strShape, mapValues );
+        enableCountCache( pq, key );
+        enablePrefetch( pq, key, pageQueryFactory );
+
+        return pq;
+    }
+
+    /**
+     * Returns a factory binding the parameters of the queries created by another factory.
+     * 
+     * @param queryFactory
+     *            the factory of the queries
+     * @param mapParameters
+     *            the values of the parameters, by name
+     * @return the factory of the bound queries
+     */
+    private static IQueryFactory bindParameters( final IQueryFactory queryFactory, final Map<String, Object> mapParameters )
+    {
+        return new IQueryFactory( )
+        {
+            public Query createQuery( EntityManager em )
+            {
+                Query query = queryFactory.createQuery( em );
+                for ( Parameter<?> parameter : query.getParameters( ) )
+                {
+                    if ( parameter.getName( ) != null && mapParameters.containsKey( parameter.getName( ) ) )
+                    {
+                        query.setParameter( parameter.getName( ), mapParameters.get( parameter.getName( ) ) );
+                    }
+                }
+
+                return query;
+            }
+        };
+    }
+
+    /**
+     * Generate count query from criteria query and return a paged query reading DTO instead of entities : only the columns of the basic attributes of the
+     * root having a matching property in the DTO are selected, and the results are not managed by the persistence context (see {@link DTOProjection}).
+     * 
+     * @param <D>
+     *            the DTO type
+     * @param criteriaQuery
+     *            criteria query (its selection is replaced by the projection)
+     * @param root
+     *            the root projected
+     * @param dtoClass
+     *            the DTO class, having a public constructor without argument
+     * @param paginationProperties
+     *            pagination data
+     * @return query paged, returning DTO
+     */
+    protected <D> PagedQuery createProjectedPagedQuery( CriteriaQuery<?> criteriaQuery, Root<?> root, Class<D> dtoClass,
+            PaginationProperties paginationProperties )
+    {
+        EntityManager em = getEM( );
+        DTOProjection<D> projection = DTOProjection.of( dtoClass, root.getModel( ) );
+        CriteriaQuery<Tuple> projectionQuery = em.getCriteriaBuilder( ).createTupleQuery( );
+        copyQuery( criteriaQuery, projectionQuery );
+        projectionQuery.multiselect( getPaths( root, projection.getAttributes( ) ) );
+
+        CriteriaQuery<Long> countQuery = createCountQuery( criteriaQuery );
+        PagedQuery pq = new PagedQuery( em.createQuery( projectionQuery ), em.createQuery( countQuery ), paginationProperties );
+        initCount( pq, createCountContext( criteriaQuery, countQuery ) );
+        pq.setRowMapper( projection );
+
+        return pq;
+    }
+
+    /**
+     * Generate count query from criteria query and return a paged query reading DTO instead of entities, built by a constructor expression : only the
+     * columns of the given attributes are selected, and the DTO constructor taking them in order is called for each result.
+     * 
+     * @param <D>
+     *            the DTO type
+     * @param criteriaQuery
+     *            criteria query (its selection is replaced by the constructor expression)
+     * @param root
+     *            the root projected
+     * @param dtoClass
+     *            the DTO class
+     * @param paginationProperties
+     *            pagination data
+     * @param attributes
+     *            the attributes given to the constructor, may be nested (ie "category.name")
+     * @return query paged, returning DTO
+     */
+    protected <D> PagedQuery createProjectedPagedQuery( CriteriaQuery<?> criteriaQuery, Root<?> root, Class<D> dtoClass,
+            PaginationProperties paginationProperties, String... attributes )
+    {
+        EntityManager em = getEM( );
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaQuery<D> projectionQuery = cb.createQuery( dtoClass );
+        copyQuery( criteriaQuery, projectionQuery );
+        List<Selection<?>> listPaths = getPaths( root, Arrays.asList( attributes ) );
+        projectionQuery.select( cb.construct( dtoClass, listPaths.toArray( new Selection<?> [ listPaths.size( )] ) ) );
+
+        CriteriaQuery<Long> countQuery = createCountQuery( criteriaQuery );
+        PagedQuery pq = new PagedQuery( em.createQuery( projectionQuery ), em.createQuery( countQuery ), paginationProperties );
+        initCount( pq, createCountContext( criteriaQuery, countQuery ) );
+
+        return pq;
+    }
+
+    /**
+     * Copies the roots, restriction, order and distinct flag of a criteria query to another one, with another selection.
+     * 
+     * @param source
+     *            the source query
+     * @param target
+     *            the target query
+     */
+    private static void copyQuery( CriteriaQuery<?> source, CriteriaQuery<?> target )
+    {
+        target.getRoots( ).clear( );
+        for ( Root<?> root : source.getRoots( ) )
+        {
+            target.getRoots( ).add( root );
+        }
+        if ( source.getRestriction( ) != null )
+        {
+            target.where( source.getRestriction( ) );
+        }
+        target.orderBy( source.getOrderList( ) );
+        target.distinct( source.isDistinct( ) );
+    }
+
+    /**
+     * Returns the paths of attributes.
+     * 
+     * @param root
+     *            the root
+     * @param listAttributes
+     *            the attributes, may be nested
+     * @return the paths
+     */
+    private List<Selection<?>> getPaths( Root<?> root, List<String> listAttributes )
+    {
+        List<Selection<?>> listPaths = new ArrayList<Selection<?>>( listAttributes.size( ) );
+        for ( String strAttribute : listAttributes )
+        {
+            listPaths.add( getPath( root, strAttribute ) );
+        }
+
+        return listPaths;
+    }
+
+    /**
+     * Cache the count of a paged query, if the count cache is enabled for this DAO. The shape of the key also names the query for the
+     * {@link QueryInstrumentation}.
+     * 
+     * @param pagedQuery
+     *            the paged query
+     * @param countKey
+     *            the key of the search : a shape naming the structure of the query and the values of its criteria
+     */
+    protected void enableCountCache( PagedQuery pagedQuery, QueryKey countKey )
+    {
+        pagedQuery.setQueryShape( getEntityClass( ), countKey.getShape( ) );
+        if ( _bCountCacheEnabled )
+        {
+            pagedQuery.setCountCache( CountCache.getInstance( ), countKey );
+        }
+    }
+
+    /**
+     * Prefetch the next page of a paged query, if the prefetch is enabled for this DAO.
+     * 
+     * @param pagedQuery
+     *            the paged query
+     * @param key
+     *            the key of the search : a shape naming the structure of the query and the values of its criteria
+     * @param pageQueryFactory
+     *            the factory of the query, without pagination
+     */
+    protected void enablePrefetch( PagedQuery pagedQuery, QueryKey key, IQueryFactory pageQueryFactory )
+    {
+        if ( _bPrefetchEnabled )
+        {
+            pagedQuery.setPrefetch( PagePrefetcher.getInstance( ), key, getEntityManagerFactory( ), pageQueryFactory );
+        }
+    }
+
+    /**
+     * Configure the count of a paged query for this DAO : count strategy and concurrent count, if enabled. The query is also instrumented, without shape.
+     * 
+     * @param pagedQuery
+     *            the paged query
+     * @param countContext
+     *            the query to count
+     */
+    protected void initCount( PagedQuery pagedQuery, CountContext countContext )
+    {
+        pagedQuery.setQueryShape( getEntityClass( ), null );
+        if ( _countStrategy != null )
+        {
+            pagedQuery.setCountStrategy( _countStrategy, countContext );
+        }
+        if ( _bConcurrentCountEnabled )
+        {
+            pagedQuery.setConcurrentCount( getEntityManagerFactory( ), countContext.getCountQueryFactory( ) );
+        }
+    }
+
+    /**
+     * Returns the query to count for a criteria query.
+     * 
+     * @param criteriaQuery
+     *            the criteria query, without the pagination restrictions
+     * @param countQuery
+     *            its count query
+     * @return the count context
+     */
+    protected CountContext createCountContext( CriteriaQuery<?> criteriaQuery, CriteriaQuery<Long> countQuery )
+    {
+        return createCountContext( getEM( ), criteriaQuery, countQuery );
+    }
+
+    /**
+     * Returns the query to count for a criteria query, run on a given entity manager.
+     * 
+     * @param em
+     *            the entity manager
+     * @param criteriaQuery
+     *            the criteria query, without the pagination restrictions
+     * @param countQuery
+     *            its count query
+     * @return the count context
+     */
+    private CountContext createCountContext( EntityManager em, CriteriaQuery<?> criteriaQuery, CriteriaQuery<Long> countQuery )
+    {
+        CriteriaQuery<Object> rowQuery = createRowQuery( criteriaQuery );
+        boolean bRestricted = !CountContext.isWholeTable( criteriaQuery, getEntityClass( ) );
+
+        return new CountContext( em, getEntityClass( ), bRestricted, createQueryFactory( countQuery ), ( rowQuery == null ) ? null
+                : createQueryFactory( rowQuery ) );
+    }
+
+    /**
+     * Generate a query returning the id of the first root for each result of a criteria query, with the FROM and WHERE clauses of its count query. Used to
+     * count the results up to a cap.
+     * 
+     * @param criteriaQuery
+     *            criteria query
+     * @return the row query, null if the first root has no single id
+     */
+    protected CriteriaQuery<Object> createRowQuery( CriteriaQuery<?> criteriaQuery )
+    {
+        if ( criteriaQuery.getRoots( ).isEmpty( ) )
+        {
+            return null;
+        }
+        Root<?> firstRoot = criteriaQuery.getRoots( ).iterator( ).next( );
+        if ( !firstRoot.getModel( ).hasSingleIdAttribute( ) )
+        {
+            return null;
+        }
+
+        CriteriaQuery<Object> rowQuery = getEM( ).getCriteriaBuilder( ).createQuery( Object.class );
+        Root<?> rowRoot = CountQueryOptimizer.copyFrom( rowQuery, criteriaQuery );
+        rowQuery.select( getIdPath( rowRoot ) ).distinct( CountQueryOptimizer.isDistinctRequired( rowQuery ) );
+
+        return rowQuery;
+    }
+
+    /**
+     * Returns a factory creating a criteria query on any entity manager.
+     * 
+     * @param criteriaQuery
+     *            the criteria query
+     * @return the query factory
+     */
+    protected IQueryFactory createQueryFactory( final CriteriaQuery<?> criteriaQuery )
+    {
+        return new IQueryFactory( )
+        {
+            public Query createQuery( EntityManager em )
+            {
+                return em.createQuery( criteriaQuery );
+            }
+        };
+    }
+
+    /**
+     * Returns a factory creating a JPQL query on any entity manager.
+     * 
+     * @param strQuery
+     *            the JPQL query
+     * @return the query factory
+     */
+    protected IQueryFactory createQueryFactory( final String strQuery )
+    {
+        return new IQueryFactory( )
+        {
+            public Query createQuery( EntityManager em )
+            {
+                return em.createQuery( strQuery );
+            }
+        };
+    }
+
+    /**
+     * Generate count query from criteria query and return a paged query using keyset pagination : the query is ordered on the key attributes and restricted
+     * to the rows following the last keys of the pagination properties, instead of skipping the previous rows with an offset. The count query is generated
+     * before the keyset restriction is added, so it still counts all the results of the search.<br>
+     * The last key attribute must be unique (usually the id) so that the order is total. Key values can not be null. The result list holds the cursor of
+     * the next page (see {@link PageCursor}), to decode with the scope {@link PageCursor#getScope(Class, String...)} of the entity class and key
+     * attributes.
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param criteriaQuery
+     *            criteria query (its order is replaced by the order of the keys)
+     * @param root
+     *            the root holding the key attributes
+     * @param paginationProperties
+     *            keyset pagination data
+     * @param keyAttributes
+     *            the key attributes, may be nested (ie "category.name"), the last one being unique
+     * @return query paged
+     */
+    protected <T> PagedQuery createPagedQuery( CriteriaQuery<T> criteriaQuery, Root<?> root, KeysetPaginationProperties paginationProperties,
+            String... keyAttributes )
+    {
+        return createPagedQuery( getEM( ), criteriaQuery, root, paginationProperties, keyAttributes );
+    }
+
+    /**
+     * Generate count query from criteria query and return a paged query using keyset pagination, run on a given entity manager (see
+     * {@link #createPagedQuery(CriteriaQuery, Root, KeysetPaginationProperties, String...)}).
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param em
+     *            the entity manager
+     * @param criteriaQuery
+     *            criteria query (its order is replaced by the order of the keys)
+     * @param root
+     *            the root holding the key attributes
+     * @param paginationProperties
+     *            keyset pagination data
+     * @param keyAttributes
+     *            the key attributes, may be nested (ie "category.name"), the last one being unique
+     * @return query paged
+     */
+    private <T> PagedQuery createPagedQuery( EntityManager em, CriteriaQuery<T> criteriaQuery, Root<?> root,
+            KeysetPaginationProperties paginationProperties, String... keyAttributes )
+    {
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaQuery<Long> countQuery = createCountQuery( criteriaQuery );
+        CountContext countContext = createCountContext( em, criteriaQuery, countQuery );
+
+        List<Path<?>> listKeyPaths = new ArrayList<Path<?>>( keyAttributes.length );
+        List<Order> listOrders = new ArrayList<Order>( keyAttributes.length );
+        for ( String strAttribute : keyAttributes )
+        {
+            Path<?> path = getPath( root, strAttribute );
+            listKeyPaths.add( path );
+            listOrders.add( paginationProperties.isAscending( ) ? cb.asc( path ) : cb.desc( path ) );
+        }
+        criteriaQuery.orderBy( listOrders );
+
+        if ( !paginationProperties.isFirstPage( ) )
+        {
+            addRestriction( criteriaQuery, createKeysetPredicate( cb, listKeyPaths, paginationProperties ) );
+        }
+
+        PagedQuery pq = new PagedQuery( em.createQuery( criteriaQuery ), em.createQuery( countQuery ), paginationProperties );
+        initCount( pq, countContext );
+        pq.setCursorKeys( getEntityClass( ), keyAttributes );
+
+        return pq;
+    }
+
+    /**
+     * Generate the count query of a criteria query, without its order : when it has a restriction, the count query shares its roots and restriction,
+     * otherwise only the joins filtering the results are kept (see {@link CountQueryOptimizer}). The count is distinct only when a to-many join may multiply
+     * the results.
+     * 
+     * @param criteriaQuery
+     *            criteria query
+     * @return the count query
+     * @throws IllegalArgumentException
+     *             if the criteria query has a restriction and a fetch
+     */
+    protected CriteriaQuery<Long> createCountQuery( CriteriaQuery<?> criteriaQuery )
+    {
+        CriteriaBuilder cb = getEM( ).getCriteriaBuilder( );
+        CriteriaQuery<Long> countQuery = cb.createQuery( Long.class );
+        Root<?> countRoot = CountQueryOptimizer.copyFrom( countQuery, criteriaQuery );
+        countQuery.select( CountQueryOptimizer.isDistinctRequired( countQuery ) ? cb.countDistinct( countRoot ) : cb.count( countRoot ) );
+
+        return countQuery;
+    }
+
+    /**
+     * Return all entities paged, in the read only mode of this DAO.
+     * 
+     * @param paginationProperties
+     *            properties for pagination, keyset pagination is done on the id
+     * @return the result list
+     */
+    public ResultList<E> findAll( PaginationProperties paginationProperties )
+    {
+        return findAll( paginationProperties, _readOnlyMode );
+    }
+
+    /**
+     * Return all entities paged, in a given read only mode (see {@link PagedQuery#setReadOnly(ReadOnlyMode, EntityManager)}).
+     * 
+     * @param paginationProperties
+     *            properties for pagination, keyset pagination is done on the id
+     * @param readOnlyMode
+     *            the read only mode
+     * @return the result list
+     */
+    public ResultList<E> findAll( PaginationProperties paginationProperties, ReadOnlyMode readOnlyMode )
+    {
+        EntityManager em = getEM( );
+        if ( paginationProperties instanceof KeysetPaginationProperties )
+        {
+            CriteriaBuilder cb = em.getCriteriaBuilder( );
+            CriteriaQuery<E> query = cb.createQuery( getEntityClass( ) );
+            Root<E> root = query.from( getEntityClass( ) );
+            query.select( root );
+
+            PagedQuery pq = createPagedQuery( em, query, root, (KeysetPaginationProperties) paginationProperties, getIdAttributeName( ) );
+            enableCountCache( pq, QueryKey.of( getEntityClass( ), SHAPE_FIND_ALL ) );
+            pq.setReadOnly( readOnlyMode, em );
+
+            return pq.getResultList( );
+        }
+
+        String strQuery = "SELECT e FROM " + getEntityClassName( ) + " e ";
+        Query query = em.createQuery( strQuery );
+
+        String strCountQuery = "SELECT count(e) FROM " + getEntityClassName( ) + " e ";
+        Query countQuery = em.createQuery( strCountQuery );
+
+        PagedQuery pq = new PagedQuery( query, countQuery, paginationProperties );
+        initCount( pq, new CountContext( em, getEntityClass( ), false, createQueryFactory( strCountQuery ),
+                createQueryFactory( "SELECT e." + getIdAttributeName( ) + " FROM " + getEntityClassName( ) + " e " ) ) );
+        enableCountCache( pq, QueryKey.of( getEntityClass( ), SHAPE_FIND_ALL ) );
+        enablePrefetch( pq, QueryKey.of( getEntityClass( ), SHAPE_FIND_ALL ), createQueryFactory( strQuery ) );
+        pq.setReadOnly( readOnlyMode, em );
+
+        return pq.getResultList( );
+    }
+
+    /**
+     * Return all entities, ordered by id, as a list read by windows on demand (see {@link LazyResultList}).
+     * 
+     * @param nWindowSize
+     *            the number of entities per window
+     * @return the lazy result list
+     */
+    public LazyResultList<E> findAllLazy( int nWindowSize )
+    {
+        CriteriaBuilder cb = getEM( ).getCriteriaBuilder( );
+        CriteriaQuery<E> query = cb.createQuery( getEntityClass( ) );
+        Root<E> root = query.from( getEntityClass( ) );
+        query.select( root ).orderBy( cb.asc( getIdPath( root ) ) );
+
+        return createLazyResultList( query, nWindowSize );
+    }
+
+    /**
+     * Return the results of a criteria query as a list read by windows on demand : the results are counted first, then each window is read by a paged query
+     * when iterated, its entities being detached. Only the last windows used are kept in memory (2 by default, see property
+     * stock.dao.lazyResultList.maxWindows). The criteria query must be ordered on a unique key.<br>
+     * The count and each window are read on an entity manager of their own, closed once read : they do not see the changes not yet committed by the
+     * current transaction.
+     * 
+     * @param <T>
+     *            the generic type of criteria query
+     * @param criteriaQuery
+     *            criteria query
+     * @param nWindowSize
+     *            the number of results per window
+     * @return the lazy result list
+     */
+    protected <T> LazyResultList<T> createLazyResultList( final CriteriaQuery<T> criteriaQuery, int nWindowSize )
+    {
+        long lTotal;
+        EntityManager countEm = getEntityManagerFactory( ).createEntityManager( );
+        try
+        {
+            lTotal = countEm.createQuery( createCountQuery( criteriaQuery ) ).getSingleResult( );
+        }
+        finally
+        {
+            countEm.close( );
+        }
+
+        return new LazyResultList<T>( new IWindowLoader<T>( )
+        {
+            @SuppressWarnings( "unchecked" )
+            public List<T> load( int nFirstResult, int nSize )
+            {
+                EntityManager em = getEntityManagerFactory( ).createEntityManager( );
+                try
+                {
+                    PagedQuery pq = new PagedQuery( em.createQuery( criteriaQuery ), null, new PaginationPropertiesImpl( nFirstResult, nSize ) );
+                    pq.setQueryShape( getEntityClass( ), null );
+                    pq.setReadOnly( ReadOnlyMode.DETACH, em );
+
+                    return pq.getResultList( );
+                }
+                finally
+                {
+                    em.close( );
+                }
+            }
+        }, (int) Math.min( lTotal, Integer.MAX_VALUE ), nWindowSize, _nLazyMaxWindows );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<E> stream( )
+    {
+        CriteriaQuery<E> query = getEM( ).getCriteriaBuilder( ).createQuery( getEntityClass( ) );
+        Root<E> root = query.from( getEntityClass( ) );
+        query.select( root );
+
+        return stream( query, root );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void forEach( Consumer<? super E> consumer )
+    {
+        CriteriaQuery<E> query = getEM( ).getCriteriaBuilder( ).createQuery( getEntityClass( ) );
+        Root<E> root = query.from( getEntityClass( ) );
+        query.select( root );
+
+        forEach( query, root, consumer );
+    }
+
+    /**
+     * Return the results of a criteria query as a stream read by chunks ordered by id (see {@link ChunkedResultIterator}). The chunks are read on their own
+     * entity manager, released when the stream is fully consumed or closed : a stream which may not be fully consumed must be closed.
+     * 
+     * @param criteriaQuery
+     *            criteria query selecting its root entity (read in id order, the query is not modified)
+     * @param root
+     *            the root of the query
+     * @return stream of entities
+     */
+    protected Stream<E> stream( CriteriaQuery<E> criteriaQuery, Root<?> root )
+    {
+        final ChunkedResultIterator<E> iterator = new ChunkedResultIterator<E>( getEntityManagerFactory( ), criteriaQuery, getIdPath( root ),
+                _nStreamChunkSize );
+        iterator.setQueryShape( getEntityClass( ), SHAPE_STREAM );
+
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator, Spliterator.ORDERED | Spliterator.NONNULL ), false ).onClose(
+                new Runnable( )
+                {
+                    public void run( )
+                    {
+                        iterator.close( );
+                    }
+                } );
+    }
+
+    /**
+     * Process the results of a criteria query, read by chunks ordered by id (see {@link ChunkedResultIterator}).
+     * 
+     * @param criteriaQuery
+     *            criteria query selecting its root entity (read in id order, the query is not modified)
+     * @param root
+     *            the root of the query
+     * @param consumer
+     *            the consumer of the entities
+     */
+    protected void forEach( CriteriaQuery<E> criteriaQuery, Root<?> root, Consumer<? super E> consumer )
+    {
+        ChunkedResultIterator<E> iterator = new ChunkedResultIterator<E>( getEntityManagerFactory( ), criteriaQuery, getIdPath( root ), _nStreamChunkSize );
+        iterator.setQueryShape( getEntityClass( ), SHAPE_STREAM );
+        try
+        {
+            while ( iterator.hasNext( ) )
+            {
+                consumer.accept( iterator.next( ) );
+            }
+        }
+        finally
+        {
+            iterator.close( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E findById( K key )
+    {
+        long lStart = System.nanoTime( );
+        E entity = super.findById( key );
+        fireQuery( SHAPE_FIND_BY_ID, lStart, ( entity == null ) ? 0 : 1 );
+
+        return entity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void create( E entity )
+    {
+        super.create( entity );
+        onWrite( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update( E entity )
+    {
+        super.update( entity );
+        onWrite( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove( K key )
+    {
+        super.remove( key );
+        onWrite( );
+    }
+
+    /**
+     * Process the entities matching a restriction with a parallel partitioned scan : the id space is split in ranges, read in parallel by worker threads, each
+     * one on its own entity manager and transaction (see {@link PartitionedScanProperties}). The entities are delivered to the consumer in the calling
+     * thread, detached : their lazy associations are not loaded. Needs a numeric id.
+     * 
+     * @param where
+     *            the restriction builder, null for all the entities (called once per range, on the criteria builder of the worker)
+     * @param properties
+     *            the scan properties
+     * @param consumer
+     *            the consumer of the entities
+     * @return the number of entities processed
+     */
+    public long scanPartitioned( IRestrictionBuilder<E> where, PartitionedScanProperties properties, Consumer<? super E> consumer )
+    {
+        Object [ ] bounds = findIdBounds( where );
+        if ( bounds == null )
+        {
+            return 0;
+        }
+        PartitionedScan<E> scan = new PartitionedScan<E>( getEntityManagerFactory( ), getEntityClass( ), where, properties );
+
+        return scan.run( ( (Number) bounds [0] ).longValue( ), ( (Number) bounds [1] ).longValue( ), getIdType( ), consumer );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<E> findByIds( Collection<K> ids )
+    {
+        return findByIds( ids, null );
+    }
+
+    /**
+     * Return the entities of several ids : the ids are split in chunks (500 by default, see property stock.dao.findByIds.chunkSize) so that the IN lists stay
+     * below the limits of the database.
+     * 
+     * @param ids
+     *            the ids, duplicates and nulls are ignored
+     * @param missingIds
+     *            collection receiving the ids not found, may be null
+     * @return the entities found, in the order of the ids
+     */
+    public List<E> findByIds( Collection<K> ids, Collection<? super K> missingIds )
+    {
+        return findByIds( getEM( ), ids, missingIds );
+    }
+
+    /**
+     * Return the entities of several ids, read on a given entity manager (see {@link #findByIds(Collection, Collection)}).
+     * 
+     * @param em
+     *            the entity manager
+     * @param ids
+     *            the ids, duplicates and nulls are ignored
+     * @param missingIds
+     *            collection receiving the ids not found, may be null
+     * @return the entities found, in the order of the ids
+     */
+    protected List<E> findByIds( EntityManager em, Collection<K> ids, Collection<? super K> missingIds )
+    {
+        long lStart = System.nanoTime( );
+        Set<K> setIds = new LinkedHashSet<K>( ids );
+        setIds.remove( null );
+
+        Map<Object, E> mapEntities = new HashMap<Object, E>( setIds.size( ) * 2 );
+        List<K> listIds = new ArrayList<K>( setIds );
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        for ( int nStart = 0; nStart < listIds.size( ); nStart += _nFindByIdsChunkSize )
+        {
+            List<K> listChunk = listIds.subList( nStart, Math.min( nStart + _nFindByIdsChunkSize, listIds.size( ) ) );
+            CriteriaQuery<E> query = cb.createQuery( getEntityClass( ) );
+            Root<E> root = query.from( getEntityClass( ) );
+            query.select( root ).where( getIdPath( root ).in( listChunk ) );
+            for ( E entity : em.createQuery( query ).getResultList( ) )
+            {
+                mapEntities.put( getIdentifier( entity ), entity );
+            }
+        }
+
+        List<E> listEntities = new ArrayList<E>( mapEntities.size( ) );
+        for ( K id : listIds )
+        {
+            E entity = mapEntities.get( id );
+            if ( entity != null )
+            {
+                listEntities.add( entity );
+            }
+            else if ( missingIds != null )
+            {
+                missingIds.add( id );
+            }
+        }
+        fireQuery( SHAPE_FIND_BY_IDS, lStart, listEntities.size( ) );
+
+        return listEntities;
+    }
+
+    /**
+     * Create entities by batches : the persistence context is flushed and cleared after each batch, so that large imports run in bounded memory.<br>
+     * <b>The whole persistence context is cleared</b> : every entity managed by the caller, including the ones not written by this method, is detached and
+     * its later changes are no longer saved. Pending changes are flushed before. The entities read before the call must be merged again to be modified
+     * after it.<br>
+     * JDBC batching hints are set on the entity manager during the call, then restored ; for Hibernate, the batch size should also be set in the persistence
+     * unit (hibernate.jdbc.batch_size).
+     * 
+     * @param entities
+     *            the entities to create
+     * @return the report of the batches
+     */
+    public BatchReport saveAll( Collection<E> entities )
+    {
+        return writeAll( entities, true );
+    }
+
+    /**
+     * Update entities by batches : the persistence context is flushed and cleared after each batch, so that large imports run in bounded memory.<br>
+     * <b>The whole persistence context is cleared</b>, as by {@link #saveAll(Collection)} : every entity managed by the caller is detached.
+     * 
+     * @param entities
+     *            the entities to update
+     * @return the report of the batches
+     */
+    public BatchReport updateAll( Collection<E> entities )
+    {
+        return writeAll( entities, false );
+    }
+
+    /**
+     * Writes entities by batches, clearing the whole persistence context after each one. The batch properties of the entity manager are restored at the end.
+     * 
+     * @param entities
+     *            the entities
+     * @param bCreate
+     *            true to create, false to update
+     * @return the report of the batches
+     */
+    private BatchReport writeAll( Collection<E> entities, boolean bCreate )
+    {
+        EntityManager em = getEM( );
+        Map<String, Object> mapPreviousProperties = new HashMap<String, Object>( em.getProperties( ) );
+        for ( String strProperty : PROPERTIES_BATCH_SIZE )
+        {
+            em.setProperty( strProperty, _nBatchSize );
+        }
+        em.setProperty( PROPERTY_ECLIPSELINK_BATCH_WRITING, ECLIPSELINK_BATCH_WRITING_JDBC );
+
+        BatchReport report = new BatchReport( _nBatchSize );
+        int nInBatch = 0;
+        long lWriteStart = System.nanoTime( );
+        long lStart = lWriteStart;
+        try
+        {
+            for ( E entity : entities )
+            {
+                if ( bCreate )
+                {
+                    em.persist( entity );
+                }
+                else
+                {
+                    em.merge( entity );
+                }
+                nInBatch++;
+                if ( nInBatch == _nBatchSize )
+                {
+                    flushBatch( em, report, nInBatch, lStart );
+                    nInBatch = 0;
+                    lStart = System.nanoTime( );
+                }
+            }
+            if ( nInBatch > 0 )
+            {
+                flushBatch( em, report, nInBatch, lStart );
+            }
+        }
+        finally
+        {
+            restoreBatchProperties( em, mapPreviousProperties );
+            onWrite( );
+        }
+        fireQuery( bCreate ? SHAPE_SAVE_ALL : SHAPE_UPDATE_ALL, lWriteStart, entities.size( ) );
+
+        if ( LOGGER.isDebugEnabled( ) )
+        {
+            LOGGER.debug( ( bCreate ? "saveAll " : "updateAll " ) + getEntityClassName( ) + " : " + report );
+        }
+
+        return report;
+    }
+
+    /**
+     * Restores the batch properties of an entity manager. A property not set before is reset to the value of the persistence unit, or to the default of the
+     * provider if the persistence unit does not set it either (batching disabled).
+     * 
+     * @param em
+     *            the entity manager
+     * @param mapPreviousProperties
+     *            the properties of the entity manager before the batches
+     */
+    private static void restoreBatchProperties( EntityManager em, Map<String, Object> mapPreviousProperties )
+    {
+        Map<String, Object> mapDefaultProperties = em.getEntityManagerFactory( ).getProperties( );
+        List<String> listProperties = new ArrayList<String>( Arrays.asList( PROPERTIES_BATCH_SIZE ) );
+        listProperties.add( PROPERTY_ECLIPSELINK_BATCH_WRITING );
+        for ( int i = 0; i < listProperties.size( ); i++ )
+        {
+            String strProperty = listProperties.get( i );
+            Object value = mapPreviousProperties.containsKey( strProperty ) ? mapPreviousProperties.get( strProperty ) : mapDefaultProperties
+                    .get( strProperty );
+            em.setProperty( strProperty, ( value != null ) ? value : DEFAULTS_BATCH_PROPERTIES [i] );
+        }
+    }
+
+    /**
+     * Flushes and clears the persistence context at the end of a batch.
+     * 
+     * @param em
+     *            the entity manager
+     * @param report
+     *            the report
+     * @param nInBatch
+     *            the number of entities of the batch
+     * @param lStart
+     *            the start of the batch
+     */
+    private static void flushBatch( EntityManager em, BatchReport report, int nInBatch, long lStart )
+    {
+        em.flush( );
+        em.clear( );
+        report.addBatch( nInBatch, System.nanoTime( ) - lStart );
+    }
+
+    /**
+     * Notifies the {@link QueryInstrumentation} listeners of a read or a write of this DAO other than a paged query : its duration is given as the page
+     * duration, without count.
+     * 
+     * @param strShape
+     *            the shape of the operation (ie findById, saveAll)
+     * @param lStart
+     *            the start of the operation, from {@link System#nanoTime()}
+     * @param nRows
+     *            the number of rows read or written
+     */
+    private void fireQuery( String strShape, long lStart, int nRows )
+    {
+        if ( QueryInstrumentation.isEnabled( ) )
+        {
+            QueryInstrumentation.fireQuery( getEntityClass( ), strShape, -1, System.nanoTime( ) - lStart, nRows, 0 );
+        }
+    }
+
+    /**
+     * Called after each write of the entity through this DAO : evicts the cached counts and the prefetched pages of the entity.
+     */
+    protected void onWrite( )
+    {
+        CountCache.getInstance( ).evict( getEntityClass( ) );
+        PagePrefetcher.getInstance( ).evict( getEntityClass( ) );
+    }
+
+    /**
+     * Enable or disable the count cache for this DAO (disabled by default, see property stock.dao.countCache.enabled).
+     * 
+     * @param bCountCacheEnabled
+     *            true to cache the counts of the paged queries
+     */
+    public void setCountCacheEnabled( boolean bCountCacheEnabled )
+    {
+        this._bCountCacheEnabled = bCountCacheEnabled;
+    }
+
+    /**
+     * Enable or disable the concurrent count for this DAO (disabled by default, see property stock.dao.concurrentCount.enabled). When enabled, the count
+     * of the paged queries runs on its own entity manager, in parallel with the page : it does not see the changes not yet committed by the current
+     * transaction.
+     * 
+     * @param bConcurrentCountEnabled
+     *            true to count concurrently
+     */
+    public void setConcurrentCountEnabled( boolean bConcurrentCountEnabled )
+    {
+        this._bConcurrentCountEnabled = bConcurrentCountEnabled;
+    }
+
+    /**
+     * Sets the strategy counting the results of the paged queries of this DAO (exact count query if not set).
+     * 
+     * @param countStrategy
+     *            the count strategy (ie {@link CappedCountStrategy} or {@link EstimatedCountStrategy})
+     */
+    public void setCountStrategy( ICountStrategy countStrategy )
+    {
+        this._countStrategy = countStrategy;
+    }
+
+    /**
+     * Enable or disable the prefetch of the next page for the paged queries of this DAO having a key (disabled by default, see property
+     * stock.dao.prefetch.enabled). Prefetched pages are read on their own entity manager : they hold detached entities, and do not see the changes not yet
+     * committed by the current transaction. The prefetch only applies to the queries whose pages are all detached or mapped : read in
+     * {@link ReadOnlyMode#DETACH} mode or with a row mapper (ie DTO projections).
+     * 
+     * @param bPrefetchEnabled
+     *            true to prefetch the next page
+     */
+    public void setPrefetchEnabled( boolean bPrefetchEnabled )
+    {
+        this._bPrefetchEnabled = bPrefetchEnabled;
+    }
+
+    /**
+     * Sets the read only mode of findAll for this DAO (OFF by default, see property stock.dao.readOnlyMode : OFF, HINTS or DETACH). In read only mode, the
+     * entities are loaded without dirty checking snapshot and the queries do not flush the persistence context : they must not be modified.
+     * 
+     * @param readOnlyMode
+     *            the read only mode
+     */
+    public void setReadOnlyMode( ReadOnlyMode readOnlyMode )
+    {
+        this._readOnlyMode = readOnlyMode;
+    }
+
+    /**
+     * Sets the maximum number of windows kept in memory by the lazy result lists of this DAO (2 by default, see property stock.dao.lazyResultList.maxWindows).
+     * 
+     * @param nLazyMaxWindows
+     *            the maximum number of windows, positive
+     */
+    public void setLazyMaxWindows( int nLazyMaxWindows )
+    {
+        if ( nLazyMaxWindows <= 0 )
+        {
+            throw new IllegalArgumentException( "The maximum number of windows must be positive : " + nLazyMaxWindows );
+        }
+        this._nLazyMaxWindows = nLazyMaxWindows;
+    }
+
+    /**
+     * Sets the number of rows read at once by the streams of this DAO (500 by default, see property stock.dao.stream.chunkSize).
+     * 
+     * @param nStreamChunkSize
+     *            the chunk size, positive
+     */
+    public void setStreamChunkSize( int nStreamChunkSize )
+    {
+        if ( nStreamChunkSize <= 0 )
+        {
+            throw new IllegalArgumentException( "The chunk size must be positive : " + nStreamChunkSize );
+        }
+        this._nStreamChunkSize = nStreamChunkSize;
+    }
+
+    /**
+     * Sets the number of ids per IN list of findByIds (500 by default, see property stock.dao.findByIds.chunkSize).
+     * 
+     * @param nFindByIdsChunkSize
+     *            the chunk size, positive
+     */
+    public void setFindByIdsChunkSize( int nFindByIdsChunkSize )
+    {
+        if ( nFindByIdsChunkSize <= 0 )
+        {
+            throw new IllegalArgumentException( "The chunk size must be positive : " + nFindByIdsChunkSize );
+        }
+        this._nFindByIdsChunkSize = nFindByIdsChunkSize;
+    }
+
+    /**
+     * Sets the number of entities written per batch by saveAll and updateAll (50 by default, see property stock.dao.batch.size).
+     * 
+     * @param nBatchSize
+     *            the batch size, positive
+     */
+    public void setBatchSize( int nBatchSize )
+    {
+        if ( nBatchSize <= 0 )
+        {
+            throw new IllegalArgumentException( "The batch size must be positive : " + nBatchSize );
+        }
+        this._nBatchSize = nBatchSize;
+    }
+
+    /**
+     * Add a predicate to an existing query
+     * 
+     * @param query
+     *            existing query
+     * @param exp
+     *            restriction
+     */
+    protected void addRestriction( CriteriaQuery<?> query, Expression<Boolean> exp )
+    {
+        CriteriaBuilder builder = getEM( ).getCriteriaBuilder( );
+        Predicate restriction = query.getRestriction( );
+        if ( restriction == null )
+        {
+            query.where( exp );
+        }
+        else
+        {
+            query.where( builder.and( restriction, exp ) );
+        }
+    }
+
+    /**
+     * Update the entities matching a restriction with a single statement, without loading them. The entities already loaded in the persistence context are
+     * not refreshed.
+     * 
+     * @param set
+     *            the new values
+     * @param where
+     *            the restriction
+     * @return the number of entities updated
+     */
+    protected int updateWhere( IUpdateBuilder<E> set, IRestrictionBuilder<E> where )
+    {
+        long lStart = System.nanoTime( );
+        int nUpdated;
+        try
+        {
+            nUpdated = executeUpdate( getEM( ), set, where, null, null );
+        }
+        finally
+        {
+            onWrite( );
+        }
+        fireQuery( SHAPE_UPDATE_WHERE, lStart, nUpdated );
+
+        return nUpdated;
+    }
+
+    /**
+     * Delete the entities matching a restriction with a single statement, without loading them. Cascades and orphan removals are not applied.
+     * 
+     * @param where
+     *            the restriction
+     * @return the number of entities deleted
+     */
+    protected int deleteWhere( IRestrictionBuilder<E> where )
+    {
+        long lStart = System.nanoTime( );
+        int nDeleted;
+        try
+        {
+            nDeleted = executeDelete( getEM( ), where, null, null );
+        }
+        finally
+        {
+            onWrite( );
+        }
+        fireQuery( SHAPE_DELETE_WHERE, lStart, nDeleted );
+
+        return nDeleted;
+    }
+
+    /**
+     * Update the entities matching a restriction by chunks : each chunk is a statement run and committed in its own transaction, so that the locks are held
+     * for a short time. The chunks are read by keyset on the id : each one covers the ids after the last id of the previous chunk, up to the id of the
+     * nChunkSize-th matching entity, so that gaps in the ids do not produce empty chunks.<br>
+     * Each chunk runs on its own entity manager and transaction, independent of the transaction of the caller : the chunks already committed are kept if
+     * the caller rolls back, and they do not see its uncommitted changes. The caller must not hold locks on the entities written (ie by having updated them
+     * in its current transaction) : the chunk would wait for them until the lock timeout. Call this method outside of a transaction, or after having
+     * committed the changes to the same rows.
+     * 
+     * @param set
+     *            the new values
+     * @param where
+     *            the restriction
+     * @param nChunkSize
+     *            the number of entities of each chunk, positive
+     * @return the number of entities updated
+     */
+    protected int updateWhere( final IUpdateBuilder<E> set, final IRestrictionBuilder<E> where, int nChunkSize )
+    {
+        return executeByIdRange( SHAPE_UPDATE_WHERE, where, nChunkSize, new IChunkStatement( )
+        {
+            public int execute( EntityManager em, Object lowId, Object highId )
+            {
+                return executeUpdate( em, set, where, lowId, highId );
+            }
+        } );
+    }
+
+    /**
+     * Delete the entities matching a restriction by chunks : each chunk is a statement run and committed in its own transaction, so that the locks are held
+     * for a short time. The chunks are read by keyset on the id, as by {@link #updateWhere(IUpdateBuilder, IRestrictionBuilder, int)}.<br>
+     * Each chunk runs on its own entity manager and transaction, independent of the transaction of the caller : the chunks already committed are kept if
+     * the caller rolls back, and they do not see its uncommitted changes. The caller must not hold locks on the entities written (ie by having updated them
+     * in its current transaction) : the chunk would wait for them until the lock timeout. Call this method outside of a transaction, or after having
+     * committed the changes to the same rows.
+     * 
+     * @param where
+     *            the restriction
+     * @param nChunkSize
+     *            the number of entities of each chunk, positive
+     * @return the number of entities deleted
+     */
+    protected int deleteWhere( final IRestrictionBuilder<E> where, int nChunkSize )
+    {
+        return executeByIdRange( SHAPE_DELETE_WHERE, where, nChunkSize, new IChunkStatement( )
+        {
+            public int execute( EntityManager em, Object lowId, Object highId )
+            {
+                return executeDelete( em, where, lowId, highId );
+            }
+        } );
+    }
+
+    /**
+     * Runs a bulk update, restricted to an id range if given.
+     * 
+     * @param em
+     *            the entity manager
+     * @param set
+     *            the new values
+     * @param where
+     *            the restriction
+     * @param lowId
+     *            the id after which the range starts (exclusive), null for no lower bound
+     * @param highId
+     *            the highest id (inclusive), null for no upper bound
+     * @return the number of entities updated
+     */
+    private int executeUpdate( EntityManager em, IUpdateBuilder<E> set, IRestrictionBuilder<E> where, Object lowId, Object highId )
+    {
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaUpdate<E> update = cb.createCriteriaUpdate( getEntityClass( ) );
+        Root<E> root = update.from( getEntityClass( ) );
+        set.set( cb, update, root );
+        Predicate restriction = createRestriction( cb, root, where, lowId, highId );
+        if ( restriction != null )
+        {
+            update.where( restriction );
+        }
+
+        return em.createQuery( update ).executeUpdate( );
+    }
+
+    /**
+     * Runs a bulk delete, restricted to an id range if given.
+     * 
+     * @param em
+     *            the entity manager
+     * @param where
+     *            the restriction
+     * @param lowId
+     *            the id after which the range starts (exclusive), null for no lower bound
+     * @param highId
+     *            the highest id (inclusive), null for no upper bound
+     * @return the number of entities deleted
+     */
+    private int executeDelete( EntityManager em, IRestrictionBuilder<E> where, Object lowId, Object highId )
+    {
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaDelete<E> delete = cb.createCriteriaDelete( getEntityClass( ) );
+        Root<E> root = delete.from( getEntityClass( ) );
+        Predicate restriction = createRestriction( cb, root, where, lowId, highId );
+        if ( restriction != null )
+        {
+            delete.where( restriction );
+        }
+
+        return em.createQuery( delete ).executeUpdate( );
+    }
+
+    /**
+     * Builds a restriction, completed by an id range if given.
+     * 
+     * @param cb
+     *            the criteria builder
+     * @param root
+     *            the root
+     * @param where
+     *            the restriction
+     * @param lowId
+     *            the id after which the range starts (exclusive), null for no lower bound
+     * @param highId
+     *            the highest id (inclusive), null for no upper bound
+     * @return the predicate, null for none
+     */
+    @SuppressWarnings( {
+            "unchecked", "rawtypes"
+    } )
+    private Predicate createRestriction( CriteriaBuilder cb, Root<E> root, IRestrictionBuilder<E> where, Object lowId, Object highId )
+    {
+        Predicate restriction = ( where == null ) ? null : where.build( cb, root );
+        Path idPath = getIdPath( root );
+        if ( lowId != null )
+        {
+            Predicate afterLowId = cb.greaterThan( idPath, (Comparable) lowId );
+            restriction = ( restriction == null ) ? afterLowId : cb.and( restriction, afterLowId );
+        }
+        if ( highId != null )
+        {
+            Predicate upToHighId = cb.lessThanOrEqualTo( idPath, (Comparable) highId );
+            restriction = ( restriction == null ) ? upToHighId : cb.and( restriction, upToHighId );
+        }
+
+        return restriction;
+    }
+
+    /**
+     * Runs a statement for each chunk of the entities matching a restriction, read by keyset on the id, each one in its own entity manager and transaction.
+     * 
+     * @param strShape
+     *            the shape notified to the {@link QueryInstrumentation} for each chunk
+     * @param where
+     *            the restriction
+     * @param nChunkSize
+     *            the number of entities of each chunk
+     * @param statement
+     *            the statement
+     * @return the total number of entities written
+     */
+    private int executeByIdRange( String strShape, IRestrictionBuilder<E> where, int nChunkSize, IChunkStatement statement )
+    {
+        if ( nChunkSize <= 0 )
+        {
+            throw new IllegalArgumentException( "The chunk size must be positive : " + nChunkSize );
+        }
+
+        int nTotal = 0;
+        try
+        {
+            Object lastId = null;
+            Object highId = findChunkHighId( where, lastId, nChunkSize );
+            while ( highId != null )
+            {
+                long lStart = System.nanoTime( );
+                int nWritten = executeInTransaction( statement, lastId, highId );
+                fireQuery( strShape, lStart, nWritten );
+                nTotal += nWritten;
+                lastId = highId;
+                highId = findChunkHighId( where, lastId, nChunkSize );
+            }
+        }
+        finally
+        {
+            onWrite( );
+        }
+
+        return nTotal;
+    }
+
+    /**
+     * Returns the highest id of the next chunk of the entities matching a restriction : the id of the nChunkSize-th entity after the last id, in id order, or
+     * of the last entity if there are less.
+     * 
+     * @param where
+     *            the restriction
+     * @param lastId
+     *            the last id of the previous chunk, null for the first chunk
+     * @param nChunkSize
+     *            the number of entities of the chunk
+     * @return the highest id of the chunk, null if no entity remains
+     */
+    @SuppressWarnings( "rawtypes" )
+    private Object findChunkHighId( IRestrictionBuilder<E> where, Object lastId, int nChunkSize )
+    {
+        EntityManager em = getEM( );
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaQuery<Object> idQuery = cb.createQuery( Object.class );
+        Root<E> root = idQuery.from( getEntityClass( ) );
+        Path idPath = getIdPath( root );
+        idQuery.select( idPath );
+        Predicate restriction = createRestriction( cb, root, where, lastId, null );
+        if ( restriction != null )
+        {
+            idQuery.where( restriction );
+        }
+        idQuery.orderBy( cb.asc( idPath ) );
+        List<Object> listIds = em.createQuery( idQuery ).setMaxResults( nChunkSize ).getResultList( );
+
+        return listIds.isEmpty( ) ? null : listIds.get( listIds.size( ) - 1 );
+    }
+
+    /**
+     * Returns the lowest and highest ids of the entities matching a restriction.
+     * 
+     * @param where
+     *            the restriction builder, null for all the entities
+     * @return the lowest and highest ids, null if no entity matches
+     */
+    @SuppressWarnings( {
+            "unchecked", "rawtypes"
+    } )
+    private Object [ ] findIdBounds( IRestrictionBuilder<E> where )
+    {
+        EntityManager em = getEM( );
+        CriteriaBuilder cb = em.getCriteriaBuilder( );
+        CriteriaQuery<Object [ ]> boundsQuery = cb.createQuery( Object [ ].class );
+        Root<E> root = boundsQuery.from( getEntityClass( ) );
+        Path idPath = getIdPath( root );
+        boundsQuery.multiselect( cb.min( idPath ), cb.max( idPath ) );
+        Predicate restriction = ( where == null ) ? null : where.build( cb, root );
+        if ( restriction != null )
+        {
+            boundsQuery.where( restriction );
+        }
+        Object [ ] bounds = em.createQuery( boundsQuery ).getSingleResult( );
+
+        return ( bounds [0] == null ) ? null : bounds;
+    }
+
+    /**
+     * Returns the type of the id of the entity.
+     * 
+     * @return the id type
+     */
+    private Class<?> getIdType( )
+    {
+        return getEM( ).getMetamodel( ).entity( getEntityClass( ) ).getIdType( ).getJavaType( );
+    }
+
+    /**
+     * Runs a statement on an id range in its own entity manager and transaction.
+     * 
+     * @param statement
+     *            the statement
+     * @param lowId
+     *            the id after which the range starts (exclusive), null for the first range
+     * @param highId
+     *            the highest id (inclusive)
+     * @return the number of entities written
+     */
+    private int executeInTransaction( IChunkStatement statement, Object lowId, Object highId )
+    {
+        EntityManager em = getEntityManagerFactory( ).createEntityManager( );
+        EntityTransaction transaction = em.getTransaction( );
+        try
+        {
+            transaction.begin( );
+            int nCount = statement.execute( em, lowId, highId );
+            transaction.commit( );
+
+            return nCount;
+        }
+        finally
+        {
+            if ( transaction.isActive( ) )
+            {
+                transaction.rollback( );
+            }
+            em.close( );
+        }
+    }
+
+    /**
+     * Converts a numeric id to the type of the id attribute.
+     * 
+     * @param lId
+     *            the id
+     * @param idType
+     *            the type of the id attribute
+     * @return the id
+     */
+    static Object toIdType( long lId, Class<?> idType )
+    {
+        if ( idType == Integer.class || idType == int.class )
+        {
+            return (int) lId;
+        }
+        if ( idType == Short.class || idType == short.class )
+        {
+            return (short) lId;
+        }
+        if ( idType == Long.class || idType == long.class )
+        {
+            return lId;
+        }
+        throw new IllegalArgumentException( "Id range chunks need a numeric id, not " + idType );
+    }
+
+    /**
+     * Returns the id of an entity.
+     * 
+     * @param entity
+     *            the entity
+     * @return the id, null if not yet persisted
+     */
+    @SuppressWarnings( "unchecked" )
+    public K getIdentifier( E entity )
+    {
+        return (K) getEntityManagerFactory( ).getPersistenceUnitUtil( ).getIdentifier( entity );
+    }
+
+    /**
+     * Returns the name of the id attribute of the entity.
+     * 
+     * @return the id attribute name
+     */
+    protected String getIdAttributeName( )
+    {
+        EntityType<E> entityType = getEntityManagerFactory( ).getMetamodel( ).entity( getEntityClass( ) );
+
+        return entityType.getId( entityType.getIdType( ).getJavaType( ) ).getName( );
+    }
+
+    /**
+     * Returns the path of the id of a root.
+     * 
+     * @param root
+     *            the root
+     * @return the id path
+     */
+    protected Path<?> getIdPath( Root<?> root )
+    {
+        EntityType<?> entityType = root.getModel( );
+
+        return root.get( entityType.getId( entityType.getIdType( ).getJavaType( ) ).getName( ) );
+    }
+
+    /**
+     * Returns the path of a possibly nested attribute (ie "category.name").
+     * 
+     * @param root
+     *            the root
+     * @param strAttribute
+     *            the attribute
+     * @return the path
+     */
+    protected Path<?> getPath( Root<?> root, String strAttribute )
+    {
+        Path<?> path = root;
+        for ( String strName : strAttribute.split( PATH_SEPARATOR ) )
+        {
+            path = path.get( strName );
+        }
+
+        return path;
+    }
+
+    /**
+     * Build the keyset restriction <code>(k1, k2, ...) > (:last1, :last2, ...)</code>, expanded as
+     * <code>k1 > :last1 OR (k1 = :last1 AND k2 > :last2) OR ...</code> as row values are not supported by JPA.
+     * 
+     * @param cb
+     *            the criteria builder
+     * @param listKeyPaths
+     *            the key paths
+     * @param paginationProperties
+     *            the keyset pagination data
+     * @return the keyset restriction
+     */
+    private Predicate createKeysetPredicate( CriteriaBuilder cb, List<Path<?>> listKeyPaths, KeysetPaginationProperties paginationProperties )
+    {
+        Object [ ] lastKeys = paginationProperties.getLastKeys( );
+        if ( lastKeys.length != listKeyPaths.size( ) )
+        {
+            throw new IllegalArgumentException( "Expected " + listKeyPaths.size( ) + " last keys, got " + lastKeys.length );
+        }
+
+        List<Predicate> listAlternatives = new ArrayList<Predicate>( lastKeys.length );
+        for ( int i = 0; i < lastKeys.length; i++ )
+        {
+            List<Predicate> listConditions = new ArrayList<Predicate>( i + 1 );
+            for ( int j = 0; j < i; j++ )
+            {
+                listConditions.add( cb.equal( listKeyPaths.get( j ), lastKeys [j] ) );
+            }
+            listConditions.add( compareKey( cb, listKeyPaths.get( i ), lastKeys [i], paginationProperties.isAscending( ) ) );
+            listAlternatives.add( cb.and( listConditions.toArray( new Predicate [ listConditions.size( )] ) ) );
+        }
+
+        return cb.or( listAlternatives.toArray( new Predicate [ listAlternatives.size( )] ) );
+    }
+
+    /**
+     * Compare a key path with its last value, in the keyset direction.
+     * 
+     * @param cb
+     *            the criteria builder
+     * @param path
+     *            the key path
+     * @param value
+     *            the last value
+     * @param bAscending
+     *            true if ascending
+     * @return the predicate
+     */
+    @SuppressWarnings( {
+            "unchecked", "rawtypes"
+    } )
+    private static Predicate compareKey( CriteriaBuilder cb, Path path, Object value, boolean bAscending )
+    {
+        Comparable comparableValue = (Comparable) value;
+
+        return bAscending ? cb.greaterThan( path, comparableValue ) : cb.lessThan( path, comparableValue );
+    }
+
+    /**
+     * Statement run on an id range.
+     */
+    private interface IChunkStatement
+    {
+        /**
+         * Runs the statement.
+         * 
+         * @param em
+         *            the entity manager
+         * @param lowId
+         *            the id after which the range starts (exclusive), null for the first range
+         * @param highId
+         *            the highest id (inclusive)
+         * @return the number of entities written
+         */
+        int execute( EntityManager em, Object lowId, Object highId );
+    }
+}
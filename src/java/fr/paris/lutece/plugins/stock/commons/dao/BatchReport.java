@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report of a batched write : number of entities written and duration of each batch.
+ */
+public class BatchReport
+{
+    private final int _nBatchSize;
+
+    private final List<Long> _listBatchDurations = new ArrayList<Long>( );
+
+    private int _nCount;
+
+    /**
+     * Creates a new BatchReport.
+     * 
+     * @param nBatchSize
+     *            the size of the batches
+     */
+    public BatchReport( int nBatchSize )
+    {
+        this._nBatchSize = nBatchSize;
+    }
+
+    /**
+     * Records a batch.
+     * 
+     * @param nCount
+     *            the number of entities of the batch
+     * @param lDuration
+     *            the duration of the batch, in nanoseconds
+     */
+    public void addBatch( int nCount, long lDuration )
+    {
+        _nCount += nCount;
+        _listBatchDurations.add( lDuration );
+    }
+
+    /**
+     * Returns the size of the batches.
+     * 
+     * @return the batch size
+     */
+    public int getBatchSize( )
+    {
+        return _nBatchSize;
+    }
+
+    /**
+     * Returns the number of entities written.
+     * 
+     * @return the number of entities
+     */
+    public int getCount( )
+    {
+        return _nCount;
+    }
+
+    /**
+     * Returns the number of batches.
+     * 
+     * @return the number of batches
+     */
+    public int getBatchCount( )
+    {
+        return _listBatchDurations.size( );
+    }
+
+    /**
+     * Returns the duration of each batch, in nanoseconds.
+     * 
+     * @return the batch durations
+     */
+    public List<Long> getBatchDurations( )
+    {
+        return Collections.unmodifiableList( _listBatchDurations );
+    }
+
+    /**
+     * Returns the total duration of the batches, in milliseconds.
+     * 
+     * @return the total duration
+     */
+    public long getTotalDurationMillis( )
+    {
+        long lTotal = 0;
+        for ( Long lDuration : _listBatchDurations )
+        {
+            lTotal += lDuration;
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis( lTotal );
+    }
+
+    /**
+     * Returns the longest duration of a batch, in milliseconds.
+     * 
+     * @return the maximum duration
+     */
+    public long getMaxBatchDurationMillis( )
+    {
+        long lMax = 0;
+        for ( Long lDuration : _listBatchDurations )
+        {
+            lMax = Math.max( lMax, lDuration );
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis( lMax );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return "BatchReport [count=" + _nCount + ", batches=" + getBatchCount( ) + ", batchSize=" + _nBatchSize + ", totalMs=" + getTotalDurationMillis( )
+                + ", maxBatchMs=" + getMaxBatchDurationMillis( ) + "]";
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.LazyResultList;
+import fr.paris.lutece.plugins.stock.commons.ResultList;
+import fr.paris.lutece.plugins.stock.commons.cache.BoundedCache;
+import fr.paris.lutece.plugins.stock.commons.cache.CacheStatistics;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DAO decorator caching the entities read by id, for reference entities read much more often than written (categories, places, tariffs...). The cache is
+ * bounded, with a frequency aware eviction and an optional time to live (see {@link BoundedCache}). Writes through this DAO invalidate the entries.<br>
+ * Cached entities are read on an entity manager of their own, closed once they are loaded : they are never part of the persistence context of the caller,
+ * are shared between the callers and must be treated as read only, and their lazy associations may not be loaded.<br>
+ * A write invalidates the entry at once and again when the current Spring transaction completes : an entity read by another thread before the write is
+ * committed is not kept in the cache.<br>
+ * The size and time to live of the cache of an entity class can be set with the properties stock.dao.entityCache.&lt;simple class name&gt;.maxSize and
+ * stock.dao.entityCache.&lt;simple class name&gt;.timeToLive (in seconds, 0 for none).
+ * 
+ * @param <K>
+ *            the key type
+ * @param <E>
+ *            the entity type
+ */
+public class CachedStockDAO<K, E> implements IStockDAO<K, E>
+{
+    private static final String PROPERTY_PREFIX = "stock.dao.entityCache.";
+    private static final String PROPERTY_MAX_SIZE = ".maxSize";
+    private static final String PROPERTY_TIME_TO_LIVE = ".timeToLive";
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final int DEFAULT_TIME_TO_LIVE = 0;
+
+    private final AbstractStockDAO<K, E> _dao;
+
+    private final IStockDAO<K, E> _delegate;
+
+    private final BoundedCache<K, E> _cache;
+
+    private final Function<K, E> _loader = new Function<K, E>( )
+    {
+        public E apply( K key )
+        {
+            EntityManager em = _dao.getEntityManagerFactory( ).createEntityManager( );
+            try
+            {
+                return em.find( _dao.getEntityClass( ), key );
+            }
+            finally
+            {
+                em.close( );
+            }
+        }
+    };
+
+    /**
+     * Creates a new CachedStockDAO.
+     * 
+     * @param <D>
+     *            the type of the delegate
+     * @param delegate
+     *            the DAO reading and writing the entities
+     * @param nMaxSize
+     *            the maximum number of cached entities
+     * @param nTimeToLive
+     *            the time to live of the entities in seconds, 0 for none
+     */
+    public <D extends AbstractStockDAO<K, E> & IStockDAO<K, E>> CachedStockDAO( D delegate, int nMaxSize, int nTimeToLive )
+    {
+        this._dao = delegate;
+        this._delegate = delegate;
+        this._cache = new BoundedCache<K, E>( nMaxSize, nTimeToLive * 1000L );
+    }
+
+    /**
+     * Creates a new CachedStockDAO configured by the properties of the entity class.
+     * 
+     * @param <D>
+     *            the type of the delegate
+     * @param delegate
+     *            the DAO reading and writing the entities
+     */
+    public <D extends AbstractStockDAO<K, E> & IStockDAO<K, E>> CachedStockDAO( D delegate )
+    {
+        this( delegate, AppPropertiesService.getPropertyInt( PROPERTY_PREFIX + delegate.getEntityClass( ).getSimpleName( ) + PROPERTY_MAX_SIZE,
+                DEFAULT_MAX_SIZE ), AppPropertiesService.getPropertyInt( PROPERTY_PREFIX + delegate.getEntityClass( ).getSimpleName( )
+                + PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE ) );
+    }
+
+    /**
+     * Returns the entity of an id, from the cache if possible.
+     * 
+     * @param key
+     *            the id
+     * @return the entity (detached), null if not found
+     */
+    public E findById( K key )
+    {
+        return _cache.get( key, _loader );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void create( E entity )
+    {
+        _delegate.create( entity );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void update( E entity )
+    {
+        try
+        {
+            _delegate.update( entity );
+        }
+        finally
+        {
+            invalidate( Collections.singletonList( _dao.getIdentifier( entity ) ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void remove( K key )
+    {
+        try
+        {
+            _delegate.remove( key );
+        }
+        finally
+        {
+            invalidate( Collections.singletonList( key ) );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<E> findAll( )
+    {
+        return _delegate.findAll( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void flush( )
+    {
+        _delegate.flush( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void detach( E entity )
+    {
+        _delegate.detach( entity );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResultList<E> findAll( PaginationProperties paginationProperties )
+    {
+        return _delegate.findAll( paginationProperties );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public LazyResultList<E> findAllLazy( int nWindowSize )
+    {
+        return _delegate.findAllLazy( nWindowSize );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Stream<E> stream( )
+    {
+        return _delegate.stream( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void forEach( Consumer<? super E> consumer )
+    {
+        _delegate.forEach( consumer );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<E> findByIds( Collection<K> ids )
+    {
+        return findByIds( ids, null );
+    }
+
+    /**
+     * Return the entities of several ids, from the cache if possible : only the ids not cached are read by the delegate, and cached.
+     * 
+     * @param ids
+     *            the ids, duplicates and nulls are ignored
+     * @param missingIds
+     *            collection receiving the ids not found, may be null
+     * @return the entities (detached) found, in the order of the ids
+     */
+    public List<E> findByIds( Collection<K> ids, Collection<? super K> missingIds )
+    {
+        Set<K> setIds = new LinkedHashSet<K>( ids );
+        setIds.remove( null );
+
+        Map<K, E> mapEntities = new HashMap<K, E>( setIds.size( ) * 2 );
+        List<K> listMissedIds = new ArrayList<K>( );
+        for ( K id : setIds )
+        {
+            E entity = _cache.getIfPresent( id );
+            if ( entity == null )
+            {
+                listMissedIds.add( id );
+            }
+            else
+            {
+                mapEntities.put( id, entity );
+            }
+        }
+        if ( !listMissedIds.isEmpty( ) )
+        {
+            // Generation read before the load : the entities are not stored if a write is invalidated meanwhile
+            long lGeneration = _cache.getGeneration( );
+            for ( E entity : loadAll( listMissedIds ) )
+            {
+                K id = _dao.getIdentifier( entity );
+                _cache.put( id, entity, lGeneration );
+                mapEntities.put( id, entity );
+            }
+        }
+
+        List<E> listEntities = new ArrayList<E>( mapEntities.size( ) );
+        for ( K id : setIds )
+        {
+            E entity = mapEntities.get( id );
+            if ( entity != null )
+            {
+                listEntities.add( entity );
+            }
+            else if ( missingIds != null )
+            {
+                missingIds.add( id );
+            }
+        }
+
+        return listEntities;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public BatchReport saveAll( Collection<E> entities )
+    {
+        return _delegate.saveAll( entities );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public BatchReport updateAll( Collection<E> entities )
+    {
+        try
+        {
+            return _delegate.updateAll( entities );
+        }
+        finally
+        {
+            List<K> listIds = new ArrayList<K>( entities.size( ) );
+            for ( E entity : entities )
+            {
+                listIds.add( _dao.getIdentifier( entity ) );
+            }
+            invalidate( listIds );
+        }
+    }
+
+    /**
+     * Removes all the cached entities, ie after a bulk update of the table.
+     */
+    public void invalidateAll( )
+    {
+        _cache.invalidateAll( );
+    }
+
+    /**
+     * Reads entities on an entity manager of their own.
+     * 
+     * @param listIds
+     *            the ids
+     * @return the entities found (detached)
+     */
+    private List<E> loadAll( List<K> listIds )
+    {
+        EntityManager em = _dao.getEntityManagerFactory( ).createEntityManager( );
+        try
+        {
+            return _dao.findByIds( em, listIds, null );
+        }
+        finally
+        {
+            em.close( );
+        }
+    }
+
+    /**
+     * Removes the entries of written entities, at once and again when the current transaction completes, so that an entity read by another thread before
+     * the write is committed is not kept.
+     * 
+     * @param listIds
+     *            the ids of the entities written
+     */
+    private void invalidate( final List<K> listIds )
+    {
+        for ( K id : listIds )
+        {
+            _cache.invalidate( id );
+        }
+        if ( TransactionSynchronizationManager.isSynchronizationActive( ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization( )
+            {
+                public void suspend( )
+                {
+                    // Nothing to do
+                }
+
+                public void resume( )
+                {
+                    // Nothing to do
+                }
+
+                public void flush( )
+                {
+                    // Nothing to do
+                }
+
+                public void beforeCommit( boolean bReadOnly )
+                {
+                    // Nothing to do
+                }
+
+                public void beforeCompletion( )
+                {
+                    // Nothing to do
+                }
+
+                public void afterCommit( )
+                {
+                    // Nothing to do
+                }
+
+                public void afterCompletion( int nStatus )
+                {
+                    for ( K id : listIds )
+                    {
+                        _cache.invalidate( id );
+                    }
+                }
+            } );
+        }
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     * 
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics( )
+    {
+        return _cache.getStatistics( );
+    }
+}
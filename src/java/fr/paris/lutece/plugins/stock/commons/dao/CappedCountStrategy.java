@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import javax.persistence.Query;
+
+/**
+ * Count capped to a maximum : at most cap + 1 light rows are read, so the database stops as soon as the cap is exceeded. Beyond the cap, the count is the
+ * cap itself, flagged as capped (to display "1000+").
+ */
+public class CappedCountStrategy implements ICountStrategy
+{
+    private final int _nCap;
+
+    private final ICountStrategy _fallback = new ExactCountStrategy( );
+
+    /**
+     * Creates a new CappedCountStrategy.
+     * 
+     * @param nCap
+     *            the maximum number of results counted
+     */
+    public CappedCountStrategy( int nCap )
+    {
+        this._nCap = nCap;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public TotalCount count( CountContext context )
+    {
+        Query rowQuery = context.createRowQuery( );
+        if ( rowQuery == null )
+        {
+            return _fallback.count( context );
+        }
+
+        rowQuery.setFirstResult( 0 );
+        rowQuery.setMaxResults( _nCap + 1 );
+        int nRows = rowQuery.getResultList( ).size( );
+
+        return ( nRows > _nCap ) ? TotalCount.capped( _nCap ) : TotalCount.exact( nRows );
+    }
+
+    /**
+     * Returns the cap.
+     * 
+     * @return the cap
+     */
+    public int getCap( )
+    {
+        return _nCap;
+    }
+}
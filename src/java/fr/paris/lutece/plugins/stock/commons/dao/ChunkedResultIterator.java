@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * Forward only iterator over the results of a criteria query, read by chunks ordered on the id. Each chunk is read after the last id of the previous one
+ * (keyset), with the driver fetch size set to the chunk size. The chunks are read on an entity manager dedicated to the iteration, whose persistence
+ * context is cleared when the next chunk is read (the eager associations of the entities included) : the memory used stays constant whatever the number of
+ * results, and the persistence context of the caller is never touched.<br>
+ * The criteria query must select its root entity. It is not modified : each chunk is read by a copy sharing its roots, ordered on the id, whose restriction
+ * is completed by the keyset condition.<br>
+ * The entity manager is closed when the last result is read ; {@link #close()} must be called if the iteration may stop before.
+ * 
+ * @param <E>
+ *            the entity type
+ */
+public class ChunkedResultIterator<E> implements Iterator<E>, AutoCloseable
+{
+    /** Hints setting the JDBC fetch size */
+    private static final String [ ] HINTS_FETCH_SIZE = {
+            "org.hibernate.fetchSize", "eclipselink.jdbc.fetch-size"
+    };
+
+    private final EntityManager _em;
+
+    private final CriteriaQuery<E> _criteriaQuery;
+
+    private final Path<?> _idPath;
+
+    private final Predicate _restriction;
+
+    private final int _nChunkSize;
+
+    private final PersistenceUnitUtil _persistenceUnitUtil;
+
+    private List<E> _listChunk = Collections.emptyList( );
+
+    private int _nIndex;
+
+    private Object _lastId;
+
+    private boolean _bLastChunk;
+
+    private int _nRowsRead;
+
+    private Class<?> _entityClass;
+
+    private String _strShape;
+
+    /**
+     * Creates a new ChunkedResultIterator.
+     * 
+     * @param emf
+     *            the entity manager factory, creating the entity manager of the iteration
+     * @param criteriaQuery
+     *            the criteria query, selecting its root entity
+     * @param idPath
+     *            the path of the id of the root entity
+     * @param nChunkSize
+     *            the number of rows read at once
+     */
+    public ChunkedResultIterator( EntityManagerFactory emf, CriteriaQuery<E> criteriaQuery, Path<?> idPath, int nChunkSize )
+    {
+        this._criteriaQuery = criteriaQuery;
+        this._idPath = idPath;
+        this._restriction = criteriaQuery.getRestriction( );
+        this._nChunkSize = nChunkSize;
+        this._persistenceUnitUtil = emf.getPersistenceUnitUtil( );
+        this._em = emf.createEntityManager( );
+    }
+
+    /**
+     * Name this iteration for the {@link QueryInstrumentation} : the listeners are notified of the read of each chunk.
+     * 
+     * @param entityClass
+     *            the entity class of the DAO
+     * @param strShape
+     *            the shape of the query
+     */
+    public void setQueryShape( Class<?> entityClass, String strShape )
+    {
+        this._entityClass = entityClass;
+        this._strShape = strShape;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasNext( )
+    {
+        if ( _nIndex < _listChunk.size( ) )
+        {
+            return true;
+        }
+        if ( _bLastChunk )
+        {
+            close( );
+
+            return false;
+        }
+        readNextChunk( );
+
+        return _nIndex < _listChunk.size( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public E next( )
+    {
+        if ( !hasNext( ) )
+        {
+            throw new NoSuchElementException( );
+        }
+
+        return _listChunk.get( _nIndex++ );
+    }
+
+    /**
+     * Not supported.
+     */
+    public void remove( )
+    {
+        throw new UnsupportedOperationException( );
+    }
+
+    /**
+     * Closes the entity manager of the iteration. Does nothing if it is already closed.
+     */
+    public void close( )
+    {
+        _listChunk = Collections.emptyList( );
+        _bLastChunk = true;
+        if ( _em.isOpen( ) )
+        {
+            _em.close( );
+        }
+    }
+
+    /**
+     * Clears the persistence context and reads the next chunk.
+     */
+    private void readNextChunk( )
+    {
+        _em.clear( );
+
+        long lStart = System.nanoTime( );
+        TypedQuery<E> query = _em.createQuery( createChunkQuery( ) );
+        query.setMaxResults( _nChunkSize );
+        for ( String strHint : HINTS_FETCH_SIZE )
+        {
+            query.setHint( strHint, _nChunkSize );
+        }
+
+        _listChunk = query.getResultList( );
+        if ( _entityClass != null && QueryInstrumentation.isEnabled( ) )
+        {
+            QueryInstrumentation.fireQuery( _entityClass, _strShape, -1, System.nanoTime( ) - lStart, _listChunk.size( ), _nRowsRead );
+        }
+        _nRowsRead += _listChunk.size( );
+        _nIndex = 0;
+        _bLastChunk = _listChunk.size( ) < _nChunkSize;
+        if ( !_listChunk.isEmpty( ) )
+        {
+            _lastId = _persistenceUnitUtil.getIdentifier( _listChunk.get( _listChunk.size( ) - 1 ) );
+        }
+    }
+
+    /**
+     * Returns a copy of the criteria query reading the next chunk : same roots and selection, ordered on the id, restricted to the ids after the last one
+     * read.
+     * 
+     * @return the chunk query
+     */
+    private CriteriaQuery<E> createChunkQuery( )
+    {
+        CriteriaBuilder cb = _em.getCriteriaBuilder( );
+        CriteriaQuery<E> chunkQuery = cb.createQuery( _criteriaQuery.getResultType( ) );
+        for ( Root<?> root : _criteriaQuery.getRoots( ) )
+        {
+            chunkQuery.getRoots( ).add( root );
+        }
+        chunkQuery.select( _criteriaQuery.getSelection( ) );
+        chunkQuery.distinct( _criteriaQuery.isDistinct( ) );
+
+        Predicate restriction = _restriction;
+        if ( _lastId != null )
+        {
+            Predicate afterLastId = greaterThan( cb, _idPath, _lastId );
+            restriction = ( restriction == null ) ? afterLastId : cb.and( restriction, afterLastId );
+        }
+        if ( restriction != null )
+        {
+            chunkQuery.where( restriction );
+        }
+        chunkQuery.orderBy( cb.asc( _idPath ) );
+
+        return chunkQuery;
+    }
+
+    /**
+     * Returns the predicate id > last id.
+     * 
+     * @param cb
+     *            the criteria builder
+     * @param path
+     *            the id path
+     * @param value
+     *            the last id
+     * @return the predicate
+     */
+    @SuppressWarnings( {
+            "unchecked", "rawtypes"
+    } )
+    private static Predicate greaterThan( CriteriaBuilder cb, Path path, Object value )
+    {
+        return cb.greaterThan( path, (Comparable) value );
+    }
+}
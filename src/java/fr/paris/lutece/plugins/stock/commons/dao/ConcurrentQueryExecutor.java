@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor running the queries of the DAO in background threads (ie the count of a paged query, concurrently with its page). When all the threads are
+ * busy and the queue is full, tasks are rejected : callers then run the query themselves.
+ */
+public final class ConcurrentQueryExecutor
+{
+    private static final String PROPERTY_THREADS = "stock.dao.concurrentQuery.threads";
+    private static final String PROPERTY_QUEUE_SIZE = "stock.dao.concurrentQuery.queueSize";
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_QUEUE_SIZE = 50;
+    private static final String THREAD_NAME_PREFIX = "stock-dao-query-";
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor( );
+
+    /**
+     * Instantiates a new concurrent query executor.
+     */
+    private ConcurrentQueryExecutor( )
+    {
+
+    }
+
+    /**
+     * Submits a query task.
+     * 
+     * @param <T>
+     *            the result type
+     * @param task
+     *            the task
+     * @return the future result
+     * @throws RejectedExecutionException
+     *             if the executor is saturated
+     */
+    public static <T> Future<T> submit( Callable<T> task )
+    {
+        return EXECUTOR.submit( task );
+    }
+
+    /**
+     * Creates the executor, with daemon threads so that it does not prevent the shutdown of the webapp.
+     * 
+     * @return the executor
+     */
+    private static ThreadPoolExecutor createExecutor( )
+    {
+        int nThreads = AppPropertiesService.getPropertyInt( PROPERTY_THREADS, DEFAULT_THREADS );
+        int nQueueSize = AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE );
+        final AtomicInteger threadNumber = new AtomicInteger( );
+        ThreadFactory threadFactory = new ThreadFactory( )
+        {
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet( ) );
+                thread.setDaemon( true );
+
+                return thread;
+            }
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor( nThreads, nThreads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( nQueueSize ),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy( ) );
+        executor.allowCoreThreadTimeOut( true );
+
+        return executor;
+    }
+}
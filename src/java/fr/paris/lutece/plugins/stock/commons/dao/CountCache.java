@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the total counts of the paged queries, keyed by {@link QueryKey}. Entries expire after a time to live and are evicted when their entity class is
+ * written, either through {@link AbstractStockDAO} or through the {@link CountCacheEntityListener}.<br>
+ * Each entity class has a generation incremented on every write : a count computed before a write is not stored after it.
+ */
+public final class CountCache
+{
+    private static final String PROPERTY_TIME_TO_LIVE = "stock.dao.countCache.timeToLive";
+    private static final String PROPERTY_MAX_SIZE = "stock.dao.countCache.maxSize";
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+    private static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final CountCache INSTANCE = new CountCache( TimeUnit.SECONDS.toNanos( AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE,
+            DEFAULT_TIME_TO_LIVE ) ), AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE ) );
+
+    private final ConcurrentMap<QueryKey, Entry> _mapEntries = new ConcurrentHashMap<QueryKey, Entry>( );
+
+    private final ConcurrentMap<Class<?>, AtomicLong> _mapGenerations = new ConcurrentHashMap<Class<?>, AtomicLong>( );
+
+    private final long _lTimeToLive;
+
+    private final int _nMaxSize;
+
+    /**
+     * Creates a new CountCache.
+     * 
+     * @param lTimeToLive
+     *            time to live of the entries, in nanoseconds
+     * @param nMaxSize
+     *            maximum number of entries
+     */
+    private CountCache( long lTimeToLive, int nMaxSize )
+    {
+        this._lTimeToLive = lTimeToLive;
+        this._nMaxSize = nMaxSize;
+    }
+
+    /**
+     * Returns the count cache.
+     * 
+     * @return the count cache
+     */
+    public static CountCache getInstance( )
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached count of a query.
+     * 
+     * @param key
+     *            the query key
+     * @return the count, null if not cached or expired
+     */
+    public TotalCount get( QueryKey key )
+    {
+        Entry entry = _mapEntries.get( key );
+        if ( entry == null )
+        {
+            return null;
+        }
+        if ( entry._lExpiration - System.nanoTime( ) <= 0 || entry._lGeneration != getGeneration( key.getEntityClass( ) ) )
+        {
+            _mapEntries.remove( key, entry );
+
+            return null;
+        }
+
+        return entry._count;
+    }
+
+    /**
+     * Returns the current generation of an entity class, to be read before computing a count.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @return the generation
+     */
+    public long getGeneration( Class<?> entityClass )
+    {
+        AtomicLong generation = _mapGenerations.get( entityClass );
+
+        return ( generation == null ) ? 0 : generation.get( );
+    }
+
+    /**
+     * Stores the count of a query, unless its entity class has been written since the generation was read.
+     * 
+     * @param key
+     *            the query key
+     * @param count
+     *            the count
+     * @param lGeneration
+     *            the generation of the entity class read before computing the count
+     */
+    public void put( QueryKey key, TotalCount count, long lGeneration )
+    {
+        if ( lGeneration != getGeneration( key.getEntityClass( ) ) )
+        {
+            return;
+        }
+        if ( _mapEntries.size( ) >= _nMaxSize )
+        {
+            purge( );
+        }
+        _mapEntries.put( key, new Entry( count, System.nanoTime( ) + _lTimeToLive, lGeneration ) );
+    }
+
+    /**
+     * Evicts the counts of an entity class and of its super classes.
+     * 
+     * @param entityClass
+     *            the written entity class
+     */
+    public void evict( Class<?> entityClass )
+    {
+        for ( Class<?> clazz = entityClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass( ) )
+        {
+            AtomicLong generation = _mapGenerations.get( clazz );
+            if ( generation == null )
+            {
+                AtomicLong newGeneration = new AtomicLong( );
+                generation = _mapGenerations.putIfAbsent( clazz, newGeneration );
+                if ( generation == null )
+                {
+                    generation = newGeneration;
+                }
+            }
+            generation.incrementAndGet( );
+
+            for ( Iterator<QueryKey> it = _mapEntries.keySet( ).iterator( ); it.hasNext( ); )
+            {
+                if ( it.next( ).getEntityClass( ) == clazz )
+                {
+                    it.remove( );
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the counts.
+     */
+    public void clear( )
+    {
+        _mapEntries.clear( );
+    }
+
+    /**
+     * Removes the expired entries, and all of them if the cache is still full.
+     */
+    private void purge( )
+    {
+        long lNow = System.nanoTime( );
+        for ( Iterator<Map.Entry<QueryKey, Entry>> it = _mapEntries.entrySet( ).iterator( ); it.hasNext( ); )
+        {
+            if ( it.next( ).getValue( )._lExpiration - lNow <= 0 )
+            {
+                it.remove( );
+            }
+        }
+        if ( _mapEntries.size( ) >= _nMaxSize )
+        {
+            _mapEntries.clear( );
+        }
+    }
+
+    /**
+     * Cached count.
+     */
+    private static final class Entry
+    {
+        private final TotalCount _count;
+        private final long _lExpiration;
+        private final long _lGeneration;
+
+        /**
+         * Creates a new Entry.
+         * 
+         * @param count
+         *            the count
+         * @param lExpiration
+         *            the expiration time
+         * @param lGeneration
+         *            the generation of the entity class
+         */
+        Entry( TotalCount count, long lExpiration, long lGeneration )
+        {
+            this._count = count;
+            this._lExpiration = lExpiration;
+            this._lGeneration = lGeneration;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+/**
+ * Query to count, given to the {@link ICountStrategy}.
+ */
+public final class CountContext
+{
+    private final EntityManager _em;
+
+    private final Class<?> _entityClass;
+
+    private final boolean _bRestricted;
+
+    private final IQueryFactory _countQueryFactory;
+
+    private final IQueryFactory _rowQueryFactory;
+
+    /**
+     * Creates a new CountContext.
+     * 
+     * @param em
+     *            the entity manager on which the queries are run
+     * @param entityClass
+     *            the entity class counted
+     * @param bRestricted
+     *            false if the query counts the whole table of the entity class (see {@link #isWholeTable(CriteriaQuery, Class)}), true otherwise
+     * @param countQueryFactory
+     *            factory of the count query, returning a Long
+     * @param rowQueryFactory
+     *            factory of a query returning one light row (ie the id) per result, may be null
+     */
+    public CountContext( EntityManager em, Class<?> entityClass, boolean bRestricted, IQueryFactory countQueryFactory, IQueryFactory rowQueryFactory )
+    {
+        this._em = em;
+        this._entityClass = entityClass;
+        this._bRestricted = bRestricted;
+        this._countQueryFactory = countQueryFactory;
+        this._rowQueryFactory = rowQueryFactory;
+    }
+
+    /**
+     * Returns true if a criteria query counts the whole table of an entity class : a single root of this class, without join, fetch, restriction nor
+     * grouping. Inner joins may filter rows, so a query with joins is not a whole table count.
+     * 
+     * @param criteriaQuery
+     *            the criteria query
+     * @param entityClass
+     *            the entity class
+     * @return true if the query counts the whole table
+     */
+    public static boolean isWholeTable( CriteriaQuery<?> criteriaQuery, Class<?> entityClass )
+    {
+        if ( criteriaQuery.getRestriction( ) != null || criteriaQuery.getGroupRestriction( ) != null || !criteriaQuery.getGroupList( ).isEmpty( )
+                || criteriaQuery.getRoots( ).size( ) != 1 )
+        {
+            return false;
+        }
+        Root<?> root = criteriaQuery.getRoots( ).iterator( ).next( );
+
+        return root.getJavaType( ) == entityClass && root.getJoins( ).isEmpty( ) && root.getFetches( ).isEmpty( );
+    }
+
+    /**
+     * Returns the same context on another entity manager.
+     * 
+     * @param em
+     *            the entity manager
+     * @return the context
+     */
+    public CountContext withEntityManager( EntityManager em )
+    {
+        return new CountContext( em, _entityClass, _bRestricted, _countQueryFactory, _rowQueryFactory );
+    }
+
+    /**
+     * Returns the same context, whose queries use the given flush mode (ie {@link FlushModeType#COMMIT} so that counting does not flush the persistence
+     * context).
+     * 
+     * @param flushMode
+     *            the flush mode of the queries
+     * @return the context
+     */
+    public CountContext withFlushMode( FlushModeType flushMode )
+    {
+        return new CountContext( _em, _entityClass, _bRestricted, withFlushMode( _countQueryFactory, flushMode ), withFlushMode( _rowQueryFactory, flushMode ) );
+    }
+
+    /**
+     * Returns a factory setting the flush mode of the queries of another factory.
+     * 
+     * @param queryFactory
+     *            the query factory, may be null
+     * @param flushMode
+     *            the flush mode
+     * @return the factory, null if no factory is given
+     */
+    private static IQueryFactory withFlushMode( final IQueryFactory queryFactory, final FlushModeType flushMode )
+    {
+        if ( queryFactory == null )
+        {
+            return null;
+        }
+
+        return new IQueryFactory( )
+        {
+            public Query createQuery( EntityManager em )
+            {
+                return queryFactory.createQuery( em ).setFlushMode( flushMode );
+            }
+        };
+    }
+
+    /**
+     * Returns the same context, whose queries have the given hint (ie the read only hints of the provider).
+     * 
+     * @param strName
+     *            the name of the hint
+     * @param value
+     *            the value of the hint
+     * @return the context
+     */
+    public CountContext withHint( String strName, Object value )
+    {
+        return new CountContext( _em, _entityClass, _bRestricted, withHint( _countQueryFactory, strName, value ), withHint( _rowQueryFactory, strName, value ) );
+    }
+
+    /**
+     * Returns a factory setting a hint on the queries of another factory.
+     * 
+     * @param queryFactory
+     *            the query factory, may be null
+     * @param strName
+     *            the name of the hint
+     * @param value
+     *            the value of the hint
+     * @return the factory, null if no factory is given
+     */
+    private static IQueryFactory withHint( final IQueryFactory queryFactory, final String strName, final Object value )
+    {
+        if ( queryFactory == null )
+        {
+            return null;
+        }
+
+        return new IQueryFactory( )
+        {
+            public Query createQuery( EntityManager em )
+            {
+                return queryFactory.createQuery( em ).setHint( strName, value );
+            }
+        };
+    }
+
+    /**
+     * Returns the entity manager.
+     * 
+     * @return the entity manager
+     */
+    public EntityManager getEntityManager( )
+    {
+        return _em;
+    }
+
+    /**
+     * Returns the entity class counted.
+     * 
+     * @return the entity class
+     */
+    public Class<?> getEntityClass( )
+    {
+        return _entityClass;
+    }
+
+    /**
+     * Returns true if the query does not count the whole table of the entity class (restriction, joins, other root...).
+     * 
+     * @return true if restricted, false if the whole table is counted
+     */
+    public boolean isRestricted( )
+    {
+        return _bRestricted;
+    }
+
+    /**
+     * Creates the count query, returning a Long.
+     * 
+     * @return the count query
+     */
+    public Query createCountQuery( )
+    {
+        return _countQueryFactory.createQuery( _em );
+    }
+
+    /**
+     * Creates a query returning one light row per result.
+     * 
+     * @return the row query, null if not available
+     */
+    public Query createRowQuery( )
+    {
+        return ( _rowQueryFactory == null ) ? null : _rowQueryFactory.createQuery( _em );
+    }
+
+    /**
+     * Returns the factory of the count query.
+     * 
+     * @return the count query factory
+     */
+    public IQueryFactory getCountQueryFactory( )
+    {
+        return _countQueryFactory;
+    }
+}
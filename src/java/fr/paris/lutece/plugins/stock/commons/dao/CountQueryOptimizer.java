@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import javax.persistence.criteria.AbstractQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+
+/**
+ * Builds the FROM clause of the count queries from the criteria query counted, keeping only what changes the number of results :
+ * <ul>
+ * <li>the order is never copied;</li>
+ * <li>when the criteria query has no restriction, new roots are created with only the joins filtering the rows (inner joins, and left joins holding an inner
+ * one); left joins and fetches are dropped, inner fetches becoming plain joins;</li>
+ * <li>when it has a restriction, the roots are shared with it, as the restriction may use any of their joins : <b>nothing is optimized</b>, the joins of
+ * the roots are all kept in the count query. A fetch would be rendered in the count query, which Hibernate rejects (the owner of a fetched association must
+ * be selected), and the JPA API can not turn it into a join the restriction still refers to : a restricted query with a fetch is rejected at once by an
+ * {@link IllegalArgumentException}. Restricted queries counted by this class must use joins, not fetches;</li>
+ * <li>DISTINCT is only required when a to-many join or fetch remains (or when several roots are restricted together).</li>
+ * </ul>
+ */
+public final class CountQueryOptimizer
+{
+
+    /**
+     * Instantiates a new count query optimizer.
+     */
+    private CountQueryOptimizer( )
+    {
+
+    }
+
+    /**
+     * Copies the FROM and WHERE clauses of a criteria query to a count query.
+     * 
+     * @param countQuery
+     *            the count query, without roots
+     * @param criteriaQuery
+     *            the criteria query counted
+     * @return the first root of the count query, null if the criteria query has no root
+     * @throws IllegalArgumentException
+     *             if the criteria query has a restriction and a fetch
+     */
+    public static Root<?> copyFrom( AbstractQuery<?> countQuery, AbstractQuery<?> criteriaQuery )
+    {
+        countQuery.getRoots( ).clear( );
+        Root<?> firstRoot = null;
+        if ( criteriaQuery.getRestriction( ) != null )
+        {
+            for ( Root<?> root : criteriaQuery.getRoots( ) )
+            {
+                if ( hasFetch( root ) )
+                {
+                    throw new IllegalArgumentException( "A query with a restriction can not be counted with fetches, use joins instead : fetch on "
+                            + root.getJavaType( ).getName( ) );
+                }
+                countQuery.getRoots( ).add( root );
+                if ( firstRoot == null )
+                {
+                    firstRoot = root;
+                }
+            }
+            countQuery.where( criteriaQuery.getRestriction( ) );
+        }
+        else
+        {
+            for ( Root<?> root : criteriaQuery.getRoots( ) )
+            {
+                Root<?> newRoot = countQuery.from( root.getModel( ) );
+                copyFilteringJoins( root, newRoot );
+                if ( firstRoot == null )
+                {
+                    firstRoot = newRoot;
+                }
+            }
+        }
+
+        return firstRoot;
+    }
+
+    /**
+     * Checks whether the results of a count query, built by {@link #copyFrom(AbstractQuery, AbstractQuery)}, must be distinct.
+     * 
+     * @param countQuery
+     *            the count query
+     * @return true if a to-many join or fetch may multiply the rows of the first root
+     */
+    public static boolean isDistinctRequired( AbstractQuery<?> countQuery )
+    {
+        if ( countQuery.getRoots( ).size( ) > 1 && countQuery.getRestriction( ) != null )
+        {
+            return true;
+        }
+        for ( Root<?> root : countQuery.getRoots( ) )
+        {
+            if ( hasToManyJoin( root ) || hasToManyFetch( root ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Recreates the joins of a source filtering its rows on a target.
+     * 
+     * @param source
+     *            the source root or join
+     * @param target
+     *            the new root or join
+     */
+    private static void copyFilteringJoins( From<?, ?> source, From<?, ?> target )
+    {
+        for ( Join<?, ?> join : source.getJoins( ) )
+        {
+            if ( isFiltering( join ) )
+            {
+                copyFilteringJoins( join, target.join( join.getAttribute( ).getName( ), join.getJoinType( ) ) );
+            }
+        }
+        for ( Fetch<?, ?> fetch : source.getFetches( ) )
+        {
+            if ( isFiltering( fetch ) )
+            {
+                copyFilteringFetches( fetch, target.join( fetch.getAttribute( ).getName( ), fetch.getJoinType( ) ) );
+            }
+        }
+    }
+
+    /**
+     * Recreates the fetches of a source filtering its rows as plain joins on a target.
+     * 
+     * @param source
+     *            the source fetch
+     * @param target
+     *            the new join
+     */
+    private static void copyFilteringFetches( FetchParent<?, ?> source, From<?, ?> target )
+    {
+        for ( Fetch<?, ?> fetch : source.getFetches( ) )
+        {
+            if ( isFiltering( fetch ) )
+            {
+                copyFilteringFetches( fetch, target.join( fetch.getAttribute( ).getName( ), fetch.getJoinType( ) ) );
+            }
+        }
+    }
+
+    /**
+     * Checks whether a join filters the rows : an inner (or right) join, or a left join holding such a join.
+     * 
+     * @param join
+     *            the join
+     * @return true if the join filters the rows
+     */
+    private static boolean isFiltering( Join<?, ?> join )
+    {
+        if ( join.getJoinType( ) != JoinType.LEFT )
+        {
+            return true;
+        }
+        for ( Join<?, ?> child : join.getJoins( ) )
+        {
+            if ( isFiltering( child ) )
+            {
+                return true;
+            }
+        }
+        for ( Fetch<?, ?> child : join.getFetches( ) )
+        {
+            if ( isFiltering( child ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether a fetch filters the rows : an inner (or right) fetch, or a left fetch holding such a fetch.
+     * 
+     * @param fetch
+     *            the fetch
+     * @return true if the fetch filters the rows
+     */
+    private static boolean isFiltering( Fetch<?, ?> fetch )
+    {
+        if ( fetch.getJoinType( ) != JoinType.LEFT )
+        {
+            return true;
+        }
+        for ( Fetch<?, ?> child : fetch.getFetches( ) )
+        {
+            if ( isFiltering( child ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether a root or join holds a fetch, directly or through its joins.
+     * 
+     * @param from
+     *            the root or join
+     * @return true if a fetch is found
+     */
+    private static boolean hasFetch( From<?, ?> from )
+    {
+        if ( !from.getFetches( ).isEmpty( ) )
+        {
+            return true;
+        }
+        for ( Join<?, ?> join : from.getJoins( ) )
+        {
+            if ( hasFetch( join ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether a root or join holds a to-many join.
+     * 
+     * @param from
+     *            the root or join
+     * @return true if a to-many join is found
+     */
+    private static boolean hasToManyJoin( From<?, ?> from )
+    {
+        for ( Join<?, ?> join : from.getJoins( ) )
+        {
+            if ( join.getAttribute( ).isCollection( ) || hasToManyJoin( join ) || hasToManyFetch( join ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether a root, join or fetch holds a to-many fetch.
+     * 
+     * @param parent
+     *            the fetch parent
+     * @return true if a to-many fetch is found
+     */
+    private static boolean hasToManyFetch( FetchParent<?, ?> parent )
+    {
+        for ( Fetch<?, ?> fetch : parent.getFetches( ) )
+        {
+            if ( fetch.getAttribute( ).isCollection( ) || hasToManyFetch( fetch ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
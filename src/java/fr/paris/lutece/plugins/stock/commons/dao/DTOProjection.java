@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import javax.persistence.Tuple;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Projection of an entity on a DTO bean : the DTO properties having the name and a compatible type of a basic attribute of the entity are selected, and the
+ * tuples read are copied to new DTO instances. Associations are not projected.<br>
+ * Projections are computed once per DTO class and entity type. A DTO property named as a basic attribute but of an incompatible type is not projected : it
+ * is logged as a warning when the projection is computed, and stays null in the DTO read.
+ * 
+ * @param <D>
+ *            the DTO type
+ */
+public final class DTOProjection<D> implements Function<Object, D>
+{
+    private static final Logger LOGGER = Logger.getLogger( DTOProjection.class );
+
+    private static final ConcurrentMap<List<Object>, DTOProjection<?>> PROJECTIONS = new ConcurrentHashMap<List<Object>, DTOProjection<?>>( );
+
+    private final Class<D> _dtoClass;
+
+    private final List<String> _listAttributes;
+
+    private final Method [ ] _setters;
+
+    /**
+     * Creates a new DTOProjection.
+     * 
+     * @param dtoClass
+     *            the DTO class
+     * @param listAttributes
+     *            the projected attributes
+     * @param setters
+     *            the setters of the DTO, in the order of the attributes
+     */
+    private DTOProjection( Class<D> dtoClass, List<String> listAttributes, Method [ ] setters )
+    {
+        this._dtoClass = dtoClass;
+        this._listAttributes = Collections.unmodifiableList( listAttributes );
+        this._setters = setters;
+    }
+
+    /**
+     * Returns the projection of an entity on a DTO class.
+     * 
+     * @param <D>
+     *            the DTO type
+     * @param dtoClass
+     *            the DTO class, having a public constructor without argument
+     * @param entityType
+     *            the entity type
+     * @return the projection
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <D> DTOProjection<D> of( Class<D> dtoClass, ManagedType<?> entityType )
+    {
+        List<Object> key = new ArrayList<Object>( 2 );
+        key.add( dtoClass );
+        key.add( entityType.getJavaType( ) );
+        DTOProjection<?> projection = PROJECTIONS.get( key );
+        if ( projection == null )
+        {
+            DTOProjection<?> newProjection = create( dtoClass, entityType );
+            projection = PROJECTIONS.putIfAbsent( key, newProjection );
+            if ( projection == null )
+            {
+                projection = newProjection;
+            }
+        }
+
+        return (DTOProjection<D>) projection;
+    }
+
+    /**
+     * Computes the projection of an entity on a DTO class.
+     * 
+     * @param <D>
+     *            the DTO type
+     * @param dtoClass
+     *            the DTO class
+     * @param entityType
+     *            the entity type
+     * @return the projection
+     */
+    private static <D> DTOProjection<D> create( Class<D> dtoClass, ManagedType<?> entityType )
+    {
+        List<String> listAttributes = new ArrayList<String>( );
+        List<Method> listSetters = new ArrayList<Method>( );
+        for ( PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors( dtoClass ) )
+        {
+            Method setter = descriptor.getWriteMethod( );
+            if ( setter == null )
+            {
+                continue;
+            }
+            for ( SingularAttribute<?, ?> attribute : entityType.getSingularAttributes( ) )
+            {
+                if ( attribute.getPersistentAttributeType( ) != PersistentAttributeType.BASIC || !attribute.getName( ).equals( descriptor.getName( ) ) )
+                {
+                    continue;
+                }
+                if ( ClassUtils.isAssignable( attribute.getJavaType( ), descriptor.getPropertyType( ), true ) )
+                {
+                    listAttributes.add( attribute.getName( ) );
+                    listSetters.add( setter );
+                }
+                else
+                {
+                    LOGGER.warn( "Propriété " + descriptor.getName( ) + " de " + dtoClass.getName( ) + " non projetée : le type "
+                            + descriptor.getPropertyType( ).getName( ) + " n'est pas compatible avec l'attribut de type " + attribute.getJavaType( ).getName( )
+                            + " de " + entityType.getJavaType( ).getName( ) );
+                }
+            }
+        }
+        if ( listAttributes.isEmpty( ) )
+        {
+            throw new IllegalArgumentException( "No property of " + dtoClass.getName( ) + " matches a basic attribute of " + entityType.getJavaType( ) );
+        }
+
+        return new DTOProjection<D>( dtoClass, listAttributes, listSetters.toArray( new Method [ listSetters.size( )] ) );
+    }
+
+    /**
+     * Returns the projected attributes, in the order of the tuple to read.
+     * 
+     * @return the attribute names
+     */
+    public List<String> getAttributes( )
+    {
+        return _listAttributes;
+    }
+
+    /**
+     * Copies a tuple to a new DTO.
+     * 
+     * @param row
+     *            the tuple, with the values of the attributes in order
+     * @return the DTO
+     */
+    public D apply( Object row )
+    {
+        Tuple tuple = (Tuple) row;
+        try
+        {
+            D dto = _dtoClass.getDeclaredConstructor( ).newInstance( );
+            for ( int i = 0; i < _setters.length; i++ )
+            {
+                Object value = tuple.get( i );
+                if ( value != null || !_setters [i].getParameterTypes( ) [0].isPrimitive( ) )
+                {
+                    _setters [i].invoke( dto, value );
+                }
+            }
+
+            return dto;
+        }
+        catch( ReflectiveOperationException e )
+        {
+            throw new TechnicalException( "Problème lors de la projection sur un " + _dtoClass, e );
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+/**
+ * Count estimated by a {@link IRowCountEstimator}, when the whole table of the entity class is counted : a single root of this class, without join nor
+ * restriction (see {@link CountContext#isWholeTable(javax.persistence.criteria.CriteriaQuery, Class)}). Other queries, or tables the estimator does not know,
+ * are counted by the fallback strategy.
+ */
+public class EstimatedCountStrategy implements ICountStrategy
+{
+    private final IRowCountEstimator _estimator;
+
+    private final ICountStrategy _fallback;
+
+    /**
+     * Creates a new EstimatedCountStrategy.
+     * 
+     * @param estimator
+     *            the estimator
+     * @param fallback
+     *            the strategy used when no estimate is available
+     */
+    public EstimatedCountStrategy( IRowCountEstimator estimator, ICountStrategy fallback )
+    {
+        this._estimator = estimator;
+        this._fallback = fallback;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public TotalCount count( CountContext context )
+    {
+        if ( !context.isRestricted( ) )
+        {
+            long lEstimate = _estimator.estimate( context.getEntityManager( ), context.getEntityClass( ) );
+            if ( lEstimate >= 0 )
+            {
+                return TotalCount.estimated( lEstimate );
+            }
+        }
+
+        return _fallback.count( context );
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+/**
+ * Listener of the queries run by the DAO, registered with {@link QueryInstrumentation} : the paged queries, and the other reads and writes of
+ * AbstractStockDAO, named by their operation (findById, findByIds, stream, scanPartitioned, saveAll, updateAll, updateWhere, deleteWhere). Called with
+ * primitive values only, in the thread running the query : implementations must be thread safe and fast.
+ */
+public interface IQueryListener
+{
+
+    /**
+     * Called after a query has been run.
+     * 
+     * @param entityClass
+     *            the entity class of the DAO
+     * @param strShape
+     *            the shape of the query, null if the query has no key
+     * @param lCountNanos
+     *            duration of the count, in nanoseconds, -1 if not counted (no count or cached count)
+     * @param lPageNanos
+     *            duration of the read of the page, or of the operation, in nanoseconds
+     * @param nRows
+     *            number of rows of the page, or rows read or written by the operation
+     * @param nFirstResult
+     *            first result of the page (rows already read for a stream chunk), 0 for the other operations
+     */
+    void onQuery( Class<?> entityClass, String strShape, long lCountNanos, long lPageNanos, int nRows, int nFirstResult );
+}
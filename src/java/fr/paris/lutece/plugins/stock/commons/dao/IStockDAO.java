@@ -1,59 +1,128 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons.dao;
-
-import fr.paris.lutece.plugins.stock.commons.ResultList;
-import fr.paris.lutece.util.jpa.IGenericDAO;
-
-/**
- * Interface for DAO.
- * 
- * @param <K>
- *            the key type
- * @param <E>
- *            the element type
- * @author abataille
- */
-public interface IStockDAO<K, E> extends IGenericDAO<K, E>
-{
-
-    /**
-     * Return a list of products
-     * 
-     * @param paginationProperties
-     *            the pagination properties (may be null)
-     * @return list of product
-     */
-    ResultList<E> findAll( PaginationProperties paginationProperties );
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.LazyResultList;
+import fr.paris.lutece.plugins.stock.commons.ResultList;
+import fr.paris.lutece.util.jpa.IGenericDAO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Interface for DAO.
+ * 
+ * @param <K>
+ *            the key type
+ * @param <E>
+ *            the element type
+ * @author abataille
+ */
+public interface IStockDAO<K, E> extends IGenericDAO<K, E>
+{
+
+    /**
+     * Return a list of products
+     * 
+     * @param paginationProperties
+     *            the pagination properties (may be null)
+     * @return list of product
+     */
+    ResultList<E> findAll( PaginationProperties paginationProperties );
+
+    /**
+     * Return all entities as a list read by windows on demand : its size is known up front, and only a few windows are kept in memory while it is iterated.
+     * 
+     * @param nWindowSize
+     *            the number of entities per window
+     * @return the lazy result list, ordered by id
+     */
+    LazyResultList<E> findAllLazy( int nWindowSize );
+
+    /**
+     * Return all entities as a stream read by chunks : the entities already read are detached, so that large tables are read in constant memory. The stream
+     * must be consumed within the transaction.
+     * 
+     * @return stream of entities, ordered by id
+     */
+    Stream<E> stream( );
+
+    /**
+     * Process all entities, read by chunks : the entities already processed are detached, so that large tables are read in constant memory.
+     * 
+     * @param consumer
+     *            the consumer of the entities, ordered by id
+     */
+    void forEach( Consumer<? super E> consumer );
+
+    /**
+     * Return the entities of several ids, read with a few IN queries instead of one query per id.
+     * 
+     * @param ids
+     *            the ids, duplicates are ignored
+     * @return the entities found, in the order of the ids
+     */
+    List<E> findByIds( Collection<K> ids );
+
+    /**
+     * Return the entities of several ids, read with a few IN queries instead of one query per id.
+     * 
+     * @param ids
+     *            the ids, duplicates are ignored
+     * @param missingIds
+     *            collection receiving the ids not found
+     * @return the entities found, in the order of the ids
+     */
+    List<E> findByIds( Collection<K> ids, Collection<? super K> missingIds );
+
+    /**
+     * Create entities by batches : the persistence context is flushed and cleared after each batch, so that large imports run in bounded memory.
+     * 
+     * @param entities
+     *            the entities to create
+     * @return the report of the batches
+     */
+    BatchReport saveAll( Collection<E> entities );
+
+    /**
+     * Update entities by batches : the persistence context is flushed and cleared after each batch, so that large imports run in bounded memory.
+     * 
+     * @param entities
+     *            the entities to update
+     * @return the report of the batches
+     */
+    BatchReport updateAll( Collection<E> entities );
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.Arrays;
+
+/**
+ * Pagination properties for keyset (seek) pagination. Instead of an offset, the properties carry the sort keys of the last row of the previous page : the
+ * next page is read with a restriction on these keys, so the database does not have to scan the previous rows whatever the depth of the page.
+ * 
+ * @see AbstractStockDAO#createPagedQuery(javax.persistence.criteria.CriteriaQuery, javax.persistence.criteria.Root, KeysetPaginationProperties, String...)
+ */
+public class KeysetPaginationProperties implements PaginationProperties
+{
+
+    /**
+     * Direction of the keyset.
+     */
+    public enum Direction
+    {
+        /** Ascending keys. */
+        ASCENDING,
+        /** Descending keys. */
+        DESCENDING
+    }
+
+    private static final Object [ ] NO_KEYS = new Object [ 0];
+
+    private final int _pageSize;
+
+    private final Direction _direction;
+
+    private final Object [ ] _lastKeys;
+
+    private final boolean _countRequired;
+
+    /**
+     * Creates properties for the first page, in ascending order.
+     * 
+     * @param pageSize
+     *            the page size
+     */
+    public KeysetPaginationProperties( int pageSize )
+    {
+        this( pageSize, Direction.ASCENDING );
+    }
+
+    /**
+     * Creates properties for the first page.
+     * 
+     * @param pageSize
+     *            the page size
+     * @param direction
+     *            the direction of the keys
+     */
+    public KeysetPaginationProperties( int pageSize, Direction direction )
+    {
+        this( pageSize, direction, NO_KEYS );
+    }
+
+    /**
+     * Creates properties for the page following the given keys.
+     * 
+     * @param pageSize
+     *            the page size
+     * @param direction
+     *            the direction of the keys
+     * @param lastKeys
+     *            the sort keys of the last row already read, in the order of the key attributes (none for the first page)
+     */
+    public KeysetPaginationProperties( int pageSize, Direction direction, Object... lastKeys )
+    {
+        this( pageSize, direction, true, lastKeys );
+    }
+
+    /**
+     * Creates properties.
+     * 
+     * @param pageSize
+     *            the page size
+     * @param direction
+     *            the direction of the keys
+     * @param countRequired
+     *            true if the total number of results must be counted
+     * @param lastKeys
+     *            the sort keys of the last row already read
+     */
+    private KeysetPaginationProperties( int pageSize, Direction direction, boolean countRequired, Object [ ] lastKeys )
+    {
+        super( );
+        this._pageSize = pageSize;
+        this._direction = ( direction == null ) ? Direction.ASCENDING : direction;
+        this._countRequired = countRequired;
+        this._lastKeys = ( lastKeys == null ) ? NO_KEYS : lastKeys.clone( );
+    }
+
+    /**
+     * Returns the properties of the page following the row having the given keys, with the same size and direction.
+     * 
+     * @param lastKeys
+     *            the sort keys of the last row of the current page
+     * @return the properties of the next page
+     */
+    public KeysetPaginationProperties next( Object... lastKeys )
+    {
+        return new KeysetPaginationProperties( _pageSize, _direction, _countRequired, lastKeys );
+    }
+
+    /**
+     * Returns the same properties, without count : only the presence of a next page is known (ie for infinite scroll).
+     * 
+     * @return the properties without count
+     */
+    public KeysetPaginationProperties withoutCount( )
+    {
+        return new KeysetPaginationProperties( _pageSize, _direction, false, _lastKeys );
+    }
+
+    /**
+     * Always 0 : the position is given by the last keys, not by an offset.
+     * 
+     * @return 0
+     */
+    public int getFirstResult( )
+    {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getPageSize( )
+    {
+        return this._pageSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isCountRequired( )
+    {
+        return this._countRequired;
+    }
+
+    /**
+     * Returns the direction of the keys.
+     * 
+     * @return the direction
+     */
+    public Direction getDirection( )
+    {
+        return this._direction;
+    }
+
+    /**
+     * Returns true if the keys are read in ascending order.
+     * 
+     * @return true if ascending
+     */
+    public boolean isAscending( )
+    {
+        return this._direction == Direction.ASCENDING;
+    }
+
+    /**
+     * Returns the sort keys of the last row already read.
+     * 
+     * @return the last keys (empty for the first page)
+     */
+    public Object [ ] getLastKeys( )
+    {
+        return this._lastKeys.clone( );
+    }
+
+    /**
+     * Returns true if these properties target the first page.
+     * 
+     * @return true if no key has been read yet
+     */
+    public boolean isFirstPage( )
+    {
+        return this._lastKeys.length == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return "KeysetPaginationProperties [pageSize=" + _pageSize + ", direction=" + _direction + ", countRequired=" + _countRequired + ", lastKeys=" + Arrays.toString( _lastKeys )
+                + "]";
+    }
+}
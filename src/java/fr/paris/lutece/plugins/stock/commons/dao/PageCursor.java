@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.dao.KeysetPaginationProperties.Direction;
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Opaque cursor of a keyset pagination, for stateless APIs : a compact URL safe token carrying the direction and the sort keys of the last row read, signed
+ * so that clients can not forge it. Supported key types are String, Long, Integer, Short, Boolean, Double, Float, Character, BigDecimal, Date, Timestamp
+ * (with its nanoseconds), LocalDate, LocalDateTime, UUID, enums and null (see {@link #isSupported(Object)}).<br>
+ * The signature covers the scope of the cursor, naming the listing which issued it (see {@link #getScope(Class, String...)}) : a cursor is rejected when
+ * decoded for another listing.<br>
+ * The signing secret is read from the property stock.dao.cursor.secret, which must be shared by the nodes of a cluster. Without it, a random secret is
+ * generated at startup : the tokens are then only valid on the node which issued them, until it restarts.
+ */
+public final class PageCursor
+{
+    private static final String PROPERTY_SECRET = "stock.dao.cursor.secret";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int SECRET_SIZE = 32;
+    private static final int SIGNATURE_SIZE = 12;
+    private static final byte VERSION = 2;
+    private static final String SCOPE_SEPARATOR = ",";
+    private static final byte TYPE_NULL = 'N';
+    private static final byte TYPE_STRING = 'T';
+    private static final byte TYPE_LONG = 'J';
+    private static final byte TYPE_INTEGER = 'I';
+    private static final byte TYPE_SHORT = 'S';
+    private static final byte TYPE_BOOLEAN = 'Z';
+    private static final byte TYPE_DOUBLE = 'D';
+    private static final byte TYPE_FLOAT = 'F';
+    private static final byte TYPE_CHARACTER = 'C';
+    private static final byte TYPE_DECIMAL = 'B';
+    private static final byte TYPE_DATE = 'd';
+    private static final byte TYPE_TIMESTAMP = 't';
+    private static final byte TYPE_LOCAL_DATE = 'L';
+    private static final byte TYPE_LOCAL_DATE_TIME = 'l';
+    private static final byte TYPE_UUID = 'U';
+    private static final byte TYPE_ENUM = 'E';
+    private static final Logger LOGGER = Logger.getLogger( PageCursor.class );
+
+    private static final SecretKeySpec SECRET = createSecret( );
+
+    /**
+     * Instantiates a new page cursor.
+     */
+    private PageCursor( )
+    {
+
+    }
+
+    /**
+     * Returns the scope of the cursors of a listing : the entity class and the key attributes of its keyset pagination.
+     * 
+     * @param entityClass
+     *            the entity class listed
+     * @param keyAttributes
+     *            the key attributes of the keyset pagination
+     * @return the scope
+     */
+    public static String getScope( Class<?> entityClass, String... keyAttributes )
+    {
+        return entityClass.getName( ) + SCOPE_SEPARATOR + String.join( SCOPE_SEPARATOR, keyAttributes );
+    }
+
+    /**
+     * Checks whether a key can be carried by a cursor.
+     * 
+     * @param key
+     *            the key
+     * @return true if the type of the key is supported
+     */
+    public static boolean isSupported( Object key )
+    {
+        return key == null || key instanceof String || key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Boolean
+                || key instanceof Double || key instanceof Float || key instanceof Character || key instanceof BigDecimal || key instanceof Date
+                || key instanceof LocalDate || key instanceof LocalDateTime || key instanceof UUID || key instanceof Enum;
+    }
+
+    /**
+     * Encodes a cursor.
+     * 
+     * @param strScope
+     *            the scope of the cursor, signed with it
+     * @param direction
+     *            the direction of the keys
+     * @param lastKeys
+     *            the sort keys of the last row read
+     * @return the token
+     * @throws IllegalArgumentException
+     *             if the type of a key is not supported
+     */
+    public static String encode( String strScope, Direction direction, Object... lastKeys )
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( );
+        try
+        {
+            DataOutputStream out = new DataOutputStream( buffer );
+            out.writeByte( VERSION );
+            out.writeByte( direction.ordinal( ) );
+            out.writeByte( lastKeys.length );
+            for ( Object key : lastKeys )
+            {
+                writeKey( out, key );
+            }
+            out.flush( );
+        }
+        catch( IOException e )
+        {
+            throw new TechnicalException( "Problème lors de l'encodage du curseur", e );
+        }
+
+        byte [ ] payload = buffer.toByteArray( );
+        byte [ ] token = Arrays.copyOf( payload, payload.length + SIGNATURE_SIZE );
+        System.arraycopy( sign( strScope, payload ), 0, token, payload.length, SIGNATURE_SIZE );
+
+        return Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( token );
+    }
+
+    /**
+     * Decodes a cursor into the pagination properties of the page following it.
+     * 
+     * @param strToken
+     *            the token
+     * @param strScope
+     *            the scope of the listing, as given to {@link #encode(String, Direction, Object...)}
+     * @param nPageSize
+     *            the page size
+     * @return the keyset pagination properties
+     * @throws IllegalArgumentException
+     *             if the token is malformed, has been tampered with or has been issued by another listing
+     */
+    public static KeysetPaginationProperties decode( String strToken, String strScope, int nPageSize )
+    {
+        byte [ ] token;
+        try
+        {
+            token = Base64.getUrlDecoder( ).decode( strToken );
+        }
+        catch( IllegalArgumentException e )
+        {
+            throw new IllegalArgumentException( "Curseur invalide", e );
+        }
+        if ( token.length <= SIGNATURE_SIZE )
+        {
+            throw new IllegalArgumentException( "Curseur invalide" );
+        }
+        byte [ ] payload = Arrays.copyOf( token, token.length - SIGNATURE_SIZE );
+        byte [ ] signature = Arrays.copyOfRange( token, payload.length, token.length );
+        if ( !MessageDigest.isEqual( signature, Arrays.copyOf( sign( strScope, payload ), SIGNATURE_SIZE ) ) )
+        {
+            throw new IllegalArgumentException( "Curseur invalide : signature incorrecte" );
+        }
+
+        try
+        {
+            DataInputStream in = new DataInputStream( new ByteArrayInputStream( payload ) );
+            if ( in.readByte( ) != VERSION )
+            {
+                throw new IllegalArgumentException( "Curseur invalide : version inconnue" );
+            }
+            int nDirection = in.readUnsignedByte( );
+            if ( nDirection >= Direction.values( ).length )
+            {
+                throw new IllegalArgumentException( "Curseur invalide : direction inconnue" );
+            }
+            Direction direction = Direction.values( ) [nDirection];
+            Object [ ] lastKeys = new Object [ in.readUnsignedByte( )];
+            for ( int i = 0; i < lastKeys.length; i++ )
+            {
+                lastKeys [i] = readKey( in );
+            }
+
+            return new KeysetPaginationProperties( nPageSize, direction, lastKeys );
+        }
+        catch( IOException e )
+        {
+            throw new IllegalArgumentException( "Curseur invalide", e );
+        }
+    }
+
+    /**
+     * Writes a typed key.
+     * 
+     * @param out
+     *            the output
+     * @param key
+     *            the key
+     * @throws IOException
+     *             on write error
+     */
+    private static void writeKey( DataOutputStream out, Object key ) throws IOException
+    {
+        if ( key == null )
+        {
+            out.writeByte( TYPE_NULL );
+        }
+        else if ( key instanceof String )
+        {
+            out.writeByte( TYPE_STRING );
+            out.writeUTF( (String) key );
+        }
+        else if ( key instanceof Long )
+        {
+            out.writeByte( TYPE_LONG );
+            out.writeLong( (Long) key );
+        }
+        else if ( key instanceof Integer )
+        {
+            out.writeByte( TYPE_INTEGER );
+            out.writeInt( (Integer) key );
+        }
+        else if ( key instanceof Short )
+        {
+            out.writeByte( TYPE_SHORT );
+            out.writeShort( (Short) key );
+        }
+        else if ( key instanceof Boolean )
+        {
+            out.writeByte( TYPE_BOOLEAN );
+            out.writeBoolean( (Boolean) key );
+        }
+        else if ( key instanceof Double )
+        {
+            out.writeByte( TYPE_DOUBLE );
+            out.writeDouble( (Double) key );
+        }
+        else if ( key instanceof Float )
+        {
+            out.writeByte( TYPE_FLOAT );
+            out.writeFloat( (Float) key );
+        }
+        else if ( key instanceof Character )
+        {
+            out.writeByte( TYPE_CHARACTER );
+            out.writeChar( (Character) key );
+        }
+        else if ( key instanceof BigDecimal )
+        {
+            out.writeByte( TYPE_DECIMAL );
+            out.writeUTF( key.toString( ) );
+        }
+        else if ( key instanceof Timestamp )
+        {
+            out.writeByte( TYPE_TIMESTAMP );
+            out.writeLong( ( (Timestamp) key ).getTime( ) );
+            out.writeInt( ( (Timestamp) key ).getNanos( ) );
+        }
+        else if ( key instanceof Date )
+        {
+            out.writeByte( TYPE_DATE );
+            out.writeLong( ( (Date) key ).getTime( ) );
+        }
+        else if ( key instanceof LocalDate )
+        {
+            out.writeByte( TYPE_LOCAL_DATE );
+            out.writeLong( ( (LocalDate) key ).toEpochDay( ) );
+        }
+        else if ( key instanceof LocalDateTime )
+        {
+            out.writeByte( TYPE_LOCAL_DATE_TIME );
+            out.writeLong( ( (LocalDateTime) key ).toLocalDate( ).toEpochDay( ) );
+            out.writeLong( ( (LocalDateTime) key ).toLocalTime( ).toNanoOfDay( ) );
+        }
+        else if ( key instanceof UUID )
+        {
+            out.writeByte( TYPE_UUID );
+            out.writeLong( ( (UUID) key ).getMostSignificantBits( ) );
+            out.writeLong( ( (UUID) key ).getLeastSignificantBits( ) );
+        }
+        else if ( key instanceof Enum )
+        {
+            out.writeByte( TYPE_ENUM );
+            out.writeUTF( ( (Enum<?>) key ).getDeclaringClass( ).getName( ) );
+            out.writeUTF( ( (Enum<?>) key ).name( ) );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Type de clé non supporté dans un curseur : " + key.getClass( ).getName( ) );
+        }
+    }
+
+    /**
+     * Reads a typed key.
+     * 
+     * @param in
+     *            the input
+     * @return the key
+     * @throws IOException
+     *             on read error
+     */
+    private static Object readKey( DataInputStream in ) throws IOException
+    {
+        byte type = in.readByte( );
+        switch( type )
+        {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readUTF( );
+            case TYPE_LONG:
+                return in.readLong( );
+            case TYPE_INTEGER:
+                return in.readInt( );
+            case TYPE_SHORT:
+                return in.readShort( );
+            case TYPE_BOOLEAN:
+                return in.readBoolean( );
+            case TYPE_DOUBLE:
+                return in.readDouble( );
+            case TYPE_FLOAT:
+                return in.readFloat( );
+            case TYPE_CHARACTER:
+                return in.readChar( );
+            case TYPE_DECIMAL:
+                return new BigDecimal( in.readUTF( ) );
+            case TYPE_DATE:
+                return new Date( in.readLong( ) );
+            case TYPE_TIMESTAMP:
+                Timestamp timestamp = new Timestamp( in.readLong( ) );
+                timestamp.setNanos( in.readInt( ) );
+
+                return timestamp;
+            case TYPE_LOCAL_DATE:
+                return LocalDate.ofEpochDay( in.readLong( ) );
+            case TYPE_LOCAL_DATE_TIME:
+                return LocalDateTime.of( LocalDate.ofEpochDay( in.readLong( ) ), LocalTime.ofNanoOfDay( in.readLong( ) ) );
+            case TYPE_UUID:
+                return new UUID( in.readLong( ), in.readLong( ) );
+            case TYPE_ENUM:
+                return readEnum( in.readUTF( ), in.readUTF( ) );
+            default:
+                throw new IllegalArgumentException( "Curseur invalide : type de clé inconnu" );
+        }
+    }
+
+    /**
+     * Reads an enum constant.
+     * 
+     * @param strClassName
+     *            the name of the enum class
+     * @param strName
+     *            the name of the constant
+     * @return the constant
+     */
+    @SuppressWarnings( {
+            "unchecked", "rawtypes"
+    } )
+    private static Object readEnum( String strClassName, String strName )
+    {
+        Class<?> enumClass;
+        try
+        {
+            enumClass = Class.forName( strClassName, false, Thread.currentThread( ).getContextClassLoader( ) );
+        }
+        catch( ClassNotFoundException e )
+        {
+            throw new IllegalArgumentException( "Curseur invalide : énumération inconnue", e );
+        }
+        if ( !enumClass.isEnum( ) )
+        {
+            throw new IllegalArgumentException( "Curseur invalide : énumération inconnue" );
+        }
+
+        return Enum.valueOf( (Class) enumClass, strName );
+    }
+
+    /**
+     * Signs a payload for a scope.
+     * 
+     * @param strScope
+     *            the scope of the cursor
+     * @param payload
+     *            the payload
+     * @return the HMAC of the scope and the payload
+     */
+    private static byte [ ] sign( String strScope, byte [ ] payload )
+    {
+        try
+        {
+            Mac mac = Mac.getInstance( MAC_ALGORITHM );
+            mac.init( SECRET );
+            mac.update( strScope.getBytes( StandardCharsets.UTF_8 ) );
+            mac.update( (byte) 0 );
+
+            return mac.doFinal( payload );
+        }
+        catch( GeneralSecurityException e )
+        {
+            throw new TechnicalException( "Problème lors de la signature du curseur", e );
+        }
+    }
+
+    /**
+     * Creates the signing secret, from the properties or random.
+     * 
+     * @return the secret
+     */
+    private static SecretKeySpec createSecret( )
+    {
+        String strSecret = AppPropertiesService.getProperty( PROPERTY_SECRET );
+        if ( strSecret != null && !strSecret.isEmpty( ) )
+        {
+            return new SecretKeySpec( strSecret.getBytes( StandardCharsets.UTF_8 ), MAC_ALGORITHM );
+        }
+
+        LOGGER.warn( "Propriété " + PROPERTY_SECRET + " non renseignée : les curseurs de pagination ne sont valides que sur ce noeud, jusqu'à son redémarrage" );
+        byte [ ] secret = new byte [ SECRET_SIZE];
+        new SecureRandom( ).nextBytes( secret );
+
+        return new SecretKeySpec( secret, MAC_ALGORITHM );
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.Query;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Speculative prefetch of the next page of the paged queries : after a page is served, the next one is read in background on its own entity manager and kept
+ * a short time, so that the request of the next page is served from memory. A prefetched page is served once.<br>
+ * The number of concurrent prefetches and the number of pages kept are bounded, and the pages of an entity class are evicted when it is written. Prefetched
+ * entities are detached.
+ */
+public final class PagePrefetcher
+{
+    private static final String PROPERTY_TIME_TO_LIVE = "stock.dao.prefetch.timeToLive";
+    private static final String PROPERTY_MAX_SIZE = "stock.dao.prefetch.maxSize";
+    private static final String PROPERTY_MAX_CONCURRENT = "stock.dao.prefetch.maxConcurrent";
+    private static final int DEFAULT_TIME_TO_LIVE = 30;
+    private static final int DEFAULT_MAX_SIZE = 200;
+    private static final int DEFAULT_MAX_CONCURRENT = 2;
+    private static final Logger LOGGER = Logger.getLogger( PagePrefetcher.class );
+
+    private static final PagePrefetcher INSTANCE = new PagePrefetcher( TimeUnit.SECONDS.toNanos( AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE,
+            DEFAULT_TIME_TO_LIVE ) ), AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE ), AppPropertiesService.getPropertyInt(
+            PROPERTY_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT ) );
+
+    private final ConcurrentMap<PageKey, Entry> _mapPages = new ConcurrentHashMap<PageKey, Entry>( );
+
+    private final ConcurrentMap<Class<?>, AtomicLong> _mapGenerations = new ConcurrentHashMap<Class<?>, AtomicLong>( );
+
+    private final long _lTimeToLive;
+
+    private final int _nMaxSize;
+
+    private final Semaphore _semaphore;
+
+    private final AtomicLong _lPrefetchCount = new AtomicLong( );
+    private final AtomicLong _lSkippedCount = new AtomicLong( );
+    private final AtomicLong _lFailureCount = new AtomicLong( );
+    private final AtomicLong _lHitCount = new AtomicLong( );
+    private final AtomicLong _lMissCount = new AtomicLong( );
+
+    /**
+     * Creates a new PagePrefetcher.
+     * 
+     * @param lTimeToLive
+     *            time to live of the pages, in nanoseconds
+     * @param nMaxSize
+     *            maximum number of pages kept
+     * @param nMaxConcurrent
+     *            maximum number of concurrent prefetches
+     */
+    private PagePrefetcher( long lTimeToLive, int nMaxSize, int nMaxConcurrent )
+    {
+        this._lTimeToLive = lTimeToLive;
+        this._nMaxSize = nMaxSize;
+        this._semaphore = new Semaphore( nMaxConcurrent );
+    }
+
+    /**
+     * Returns the prefetcher.
+     * 
+     * @return the prefetcher
+     */
+    public static PagePrefetcher getInstance( )
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a prefetched page and removes it.
+     * 
+     * @param key
+     *            the key of the query
+     * @param nFirstResult
+     *            the first result of the page
+     * @param nPageSize
+     *            the page size
+     * @return the rows of the page, null if not prefetched
+     */
+    public List<?> take( QueryKey key, int nFirstResult, int nPageSize )
+    {
+        Entry entry = _mapPages.remove( new PageKey( key, nFirstResult, nPageSize ) );
+        if ( entry == null || entry._lExpiration - System.nanoTime( ) <= 0 || entry._lGeneration != getGeneration( key.getEntityClass( ) ) )
+        {
+            _lMissCount.incrementAndGet( );
+
+            return null;
+        }
+        _lHitCount.incrementAndGet( );
+
+        return entry._listRows;
+    }
+
+    /**
+     * Starts the prefetch of a page, unless the maximum of concurrent prefetches is reached.
+     * 
+     * @param key
+     *            the key of the query
+     * @param nFirstResult
+     *            the first result of the page
+     * @param nPageSize
+     *            the page size
+     * @param entityManagerFactory
+     *            the factory of the entity manager of the prefetch
+     * @param pageQueryFactory
+     *            the factory of the query, without pagination
+     */
+    public void prefetch( QueryKey key, int nFirstResult, int nPageSize, EntityManagerFactory entityManagerFactory, IQueryFactory pageQueryFactory )
+    {
+        final PageKey pageKey = new PageKey( key, nFirstResult, nPageSize );
+        if ( _mapPages.containsKey( pageKey ) || !_semaphore.tryAcquire( ) )
+        {
+            _lSkippedCount.incrementAndGet( );
+
+            return;
+        }
+
+        final long lGeneration = getGeneration( key.getEntityClass( ) );
+        final EntityManagerFactory emf = entityManagerFactory;
+        final IQueryFactory queryFactory = pageQueryFactory;
+        try
+        {
+            ConcurrentQueryExecutor.submit( new Callable<Void>( )
+            {
+                public Void call( )
+                {
+                    try
+                    {
+                        store( pageKey, read( emf, queryFactory, pageKey ), lGeneration );
+                    }
+                    catch( RuntimeException e )
+                    {
+                        _lFailureCount.incrementAndGet( );
+                        LOGGER.warn( "Echec du préchargement de la page " + pageKey, e );
+                    }
+                    finally
+                    {
+                        _semaphore.release( );
+                    }
+
+                    return null;
+                }
+            } );
+            _lPrefetchCount.incrementAndGet( );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _semaphore.release( );
+            _lSkippedCount.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Evicts the pages of an entity class and of its super classes.
+     * 
+     * @param entityClass
+     *            the written entity class
+     */
+    public void evict( Class<?> entityClass )
+    {
+        for ( Class<?> clazz = entityClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass( ) )
+        {
+            AtomicLong generation = _mapGenerations.get( clazz );
+            if ( generation == null )
+            {
+                AtomicLong newGeneration = new AtomicLong( );
+                generation = _mapGenerations.putIfAbsent( clazz, newGeneration );
+                if ( generation == null )
+                {
+                    generation = newGeneration;
+                }
+            }
+            generation.incrementAndGet( );
+
+            for ( Iterator<PageKey> it = _mapPages.keySet( ).iterator( ); it.hasNext( ); )
+            {
+                if ( it.next( )._key.getEntityClass( ) == clazz )
+                {
+                    it.remove( );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of prefetches started.
+     * 
+     * @return the prefetch count
+     */
+    public long getPrefetchCount( )
+    {
+        return _lPrefetchCount.get( );
+    }
+
+    /**
+     * Returns the number of prefetches skipped because too many were running.
+     * 
+     * @return the skipped count
+     */
+    public long getSkippedCount( )
+    {
+        return _lSkippedCount.get( );
+    }
+
+    /**
+     * Returns the number of failed prefetches.
+     * 
+     * @return the failure count
+     */
+    public long getFailureCount( )
+    {
+        return _lFailureCount.get( );
+    }
+
+    /**
+     * Returns the number of pages served from the prefetched pages.
+     * 
+     * @return the hit count
+     */
+    public long getHitCount( )
+    {
+        return _lHitCount.get( );
+    }
+
+    /**
+     * Returns the number of pages requested while not prefetched.
+     * 
+     * @return the miss count
+     */
+    public long getMissCount( )
+    {
+        return _lMissCount.get( );
+    }
+
+    /**
+     * Returns the ratio of the prefetched pages which have been served.
+     * 
+     * @return the prefetch hit ratio, between 0 and 1
+     */
+    public double getHitRatio( )
+    {
+        long lPrefetchCount = _lPrefetchCount.get( );
+
+        return ( lPrefetchCount == 0 ) ? 0 : Math.min( 1, (double) _lHitCount.get( ) / lPrefetchCount );
+    }
+
+    /**
+     * Reads a page on a new entity manager.
+     * 
+     * @param emf
+     *            the entity manager factory
+     * @param queryFactory
+     *            the query factory
+     * @param pageKey
+     *            the page
+     * @return the rows of the page
+     */
+    private static List<?> read( EntityManagerFactory emf, IQueryFactory queryFactory, PageKey pageKey )
+    {
+        EntityManager em = emf.createEntityManager( );
+        try
+        {
+            em.setFlushMode( FlushModeType.COMMIT );
+            Query query = queryFactory.createQuery( em );
+            query.setFirstResult( pageKey._nFirstResult );
+            query.setMaxResults( pageKey._nPageSize );
+
+            return query.getResultList( );
+        }
+        finally
+        {
+            em.close( );
+        }
+    }
+
+    /**
+     * Stores a prefetched page, unless its entity class has been written since the prefetch started.
+     * 
+     * @param pageKey
+     *            the page
+     * @param listRows
+     *            the rows
+     * @param lGeneration
+     *            the generation of the entity class when the prefetch started
+     */
+    private void store( PageKey pageKey, List<?> listRows, long lGeneration )
+    {
+        if ( lGeneration != getGeneration( pageKey._key.getEntityClass( ) ) )
+        {
+            return;
+        }
+        if ( _mapPages.size( ) >= _nMaxSize )
+        {
+            long lNow = System.nanoTime( );
+            for ( Iterator<Map.Entry<PageKey, Entry>> it = _mapPages.entrySet( ).iterator( ); it.hasNext( ); )
+            {
+                if ( it.next( ).getValue( )._lExpiration - lNow <= 0 )
+                {
+                    it.remove( );
+                }
+            }
+            if ( _mapPages.size( ) >= _nMaxSize )
+            {
+                return;
+            }
+        }
+        _mapPages.put( pageKey, new Entry( listRows, System.nanoTime( ) + _lTimeToLive, lGeneration ) );
+    }
+
+    /**
+     * Returns the current generation of an entity class.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @return the generation
+     */
+    private long getGeneration( Class<?> entityClass )
+    {
+        AtomicLong generation = _mapGenerations.get( entityClass );
+
+        return ( generation == null ) ? 0 : generation.get( );
+    }
+
+    /**
+     * Key of a page : query key and pagination.
+     */
+    private static final class PageKey
+    {
+        private final QueryKey _key;
+        private final int _nFirstResult;
+        private final int _nPageSize;
+
+        /**
+         * Creates a new PageKey.
+         * 
+         * @param key
+         *            the query key
+         * @param nFirstResult
+         *            the first result
+         * @param nPageSize
+         *            the page size
+         */
+        PageKey( QueryKey key, int nFirstResult, int nPageSize )
+        {
+            this._key = key;
+            this._nFirstResult = nFirstResult;
+            this._nPageSize = nPageSize;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode( )
+        {
+            return ( 31 * ( ( 31 * _key.hashCode( ) ) + _nFirstResult ) ) + _nPageSize;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof PageKey ) )
+            {
+                return false;
+            }
+            PageKey other = (PageKey) obj;
+
+            return _nFirstResult == other._nFirstResult && _nPageSize == other._nPageSize && _key.equals( other._key );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString( )
+        {
+            return _key + "[" + _nFirstResult + "+" + _nPageSize + "]";
+        }
+    }
+
+    /**
+     * Prefetched page.
+     */
+    private static final class Entry
+    {
+        private final List<?> _listRows;
+        private final long _lExpiration;
+        private final long _lGeneration;
+
+        /**
+         * Creates a new Entry.
+         * 
+         * @param listRows
+         *            the rows
+         * @param lExpiration
+         *            the expiration time
+         * @param lGeneration
+         *            the generation of the entity class
+         */
+        Entry( List<?> listRows, long lExpiration, long lGeneration )
+        {
+            this._listRows = listRows;
+            this._lExpiration = lExpiration;
+            this._lGeneration = lGeneration;
+        }
+    }
+}
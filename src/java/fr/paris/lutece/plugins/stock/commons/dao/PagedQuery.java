@@ -1,439 +1,980 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons.dao;
-
-import fr.paris.lutece.plugins.stock.commons.ResultList;
-
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Map;
-import java.util.Set;
-
-import javax.persistence.FlushModeType;
-import javax.persistence.LockModeType;
-import javax.persistence.Parameter;
-import javax.persistence.Query;
-import javax.persistence.TemporalType;
-
-/**
- * Adaptater for paginated query.
- * 
- * @author abataille
- */
-public class PagedQuery implements Query
-{
-
-    /** The _query. */
-    private Query _query;
-
-    /** The _count query. */
-    private Query _countQuery;
-
-    /** The _pagination properties. */
-    private PaginationProperties _paginationProperties;
-
-    /**
-     * Creates a new PaginatedQuery.java object.
-     * 
-     * @param query
-     *            query for getting results
-     * @param countQuery
-     *            query for counting total result
-     * @param paginationProperties
-     *            the pagination properties
-     */
-    public PagedQuery( Query query, Query countQuery, PaginationProperties paginationProperties )
-    {
-        super( );
-        this._query = query;
-        this._countQuery = countQuery;
-        this._paginationProperties = paginationProperties;
-
-        if ( this._paginationProperties != null )
-        {
-            this._query.setMaxResults( this._paginationProperties.getPageSize( ) );
-            this._query.setFirstResult( this._paginationProperties.getFirstResult( ) );
-        }
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getResultList()
-     */
-    public ResultList getResultList( )
-    {
-        ResultList resultList = new ResultList( );
-        Long nbTotalResults = -1L;
-        if ( this._countQuery != null )
-        {
-            nbTotalResults = (Long) this._countQuery.getSingleResult( );
-        }
-        resultList.addAll( _query.getResultList( ) );
-        resultList.setTotalResult( nbTotalResults.intValue( ) );
-        return resultList;
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getSingleResult()
-     */
-    public Object getSingleResult( )
-    {
-        return _query.getSingleResult( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#executeUpdate()
-     */
-    public int executeUpdate( )
-    {
-        return _query.executeUpdate( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setMaxResults(int)
-     */
-    public Query setMaxResults( int maxResult )
-    {
-        return _query.setMaxResults( maxResult );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getMaxResults()
-     */
-    public int getMaxResults( )
-    {
-        return _query.getMaxResults( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setFirstResult(int)
-     */
-    public Query setFirstResult( int startPosition )
-    {
-        return _query.setFirstResult( startPosition );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getFirstResult()
-     */
-    public int getFirstResult( )
-    {
-        return _query.getFirstResult( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setHint(java.lang.String, java.lang.Object)
-     */
-    public Query setHint( String hintName, Object value )
-    {
-        return _query.setHint( hintName, value );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getHints()
-     */
-    public Map<String, Object> getHints( )
-    {
-        return _query.getHints( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.lang.Object)
-     */
-    public <T> Query setParameter( Parameter<T> param, T value )
-    {
-        return _query.setParameter( param, value );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.util.Calendar, javax.persistence.TemporalType)
-     */
-    public Query setParameter( Parameter<Calendar> param, Calendar value, TemporalType temporalType )
-    {
-        return _query.setParameter( param, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.util.Date, javax.persistence.TemporalType)
-     */
-    public Query setParameter( Parameter<Date> param, Date value, TemporalType temporalType )
-    {
-        return _query.setParameter( param, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(java.lang.String, java.lang.Object)
-     */
-    public Query setParameter( String name, Object value )
-    {
-        return _query.setParameter( name, value );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(java.lang.String, java.util.Calendar, javax.persistence.TemporalType)
-     */
-    public Query setParameter( String name, Calendar value, TemporalType temporalType )
-    {
-        return _query.setParameter( name, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(java.lang.String, java.util.Date, javax.persistence.TemporalType)
-     */
-    public Query setParameter( String name, Date value, TemporalType temporalType )
-    {
-        return _query.setParameter( name, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(int, java.lang.Object)
-     */
-    public Query setParameter( int position, Object value )
-    {
-        return _query.setParameter( position, value );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(int, java.util.Calendar, javax.persistence.TemporalType)
-     */
-    public Query setParameter( int position, Calendar value, TemporalType temporalType )
-    {
-        return _query.setParameter( position, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setParameter(int, java.util.Date, javax.persistence.TemporalType)
-     */
-    public Query setParameter( int position, Date value, TemporalType temporalType )
-    {
-        return _query.setParameter( position, value, temporalType );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameters()
-     */
-    public Set<Parameter<?>> getParameters( )
-    {
-        return _query.getParameters( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameter(java.lang.String)
-     */
-    public Parameter<?> getParameter( String name )
-    {
-        return _query.getParameter( name );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameter(java.lang.String, java.lang.Class)
-     */
-    public <T> Parameter<T> getParameter( String name, Class<T> type )
-    {
-        return _query.getParameter( name, type );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameter(int)
-     */
-    public Parameter<?> getParameter( int position )
-    {
-        return _query.getParameter( position );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameter(int, java.lang.Class)
-     */
-    public <T> Parameter<T> getParameter( int position, Class<T> type )
-    {
-        return _query.getParameter( position, type );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#isBound(javax.persistence.Parameter)
-     */
-    public boolean isBound( Parameter<?> param )
-    {
-        return _query.isBound( param );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameterValue(javax.persistence.Parameter)
-     */
-    public <T> T getParameterValue( Parameter<T> param )
-    {
-        return _query.getParameterValue( param );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameterValue(java.lang.String)
-     */
-    public Object getParameterValue( String name )
-    {
-        return _query.getParameterValue( name );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getParameterValue(int)
-     */
-    public Object getParameterValue( int position )
-    {
-        return _query.getParameterValue( position );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setFlushMode(javax.persistence.FlushModeType)
-     */
-    public Query setFlushMode( FlushModeType flushMode )
-    {
-        return _query.setFlushMode( flushMode );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getFlushMode()
-     */
-    public FlushModeType getFlushMode( )
-    {
-        return _query.getFlushMode( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#setLockMode(javax.persistence.LockModeType)
-     */
-    public Query setLockMode( LockModeType lockMode )
-    {
-        return _query.setLockMode( lockMode );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#getLockMode()
-     */
-    public LockModeType getLockMode( )
-    {
-        return _query.getLockMode( );
-    }
-
-    /*
-     * (non-Javadoc)
-     * 
-     * @see javax.persistence.Query#unwrap(java.lang.Class)
-     */
-    public <T> T unwrap( Class<T> cls )
-    {
-        return _query.unwrap( cls );
-    }
-
-    /**
-     * Gets the query.
-     * 
-     * @return the query
-     */
-    public Query getQuery( )
-    {
-        return _query;
-    }
-
-    /**
-     * Sets the query.
-     * 
-     * @param query
-     *            the query to set
-     */
-    public void setQuery( Query query )
-    {
-        this._query = query;
-    }
-
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.ResultList;
+import fr.paris.lutece.plugins.stock.commons.ResultList.TotalResultType;
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import java.lang.reflect.InvocationTargetException;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Adaptater for paginated query.
+ * 
+ * @author abataille
+ */
+public class PagedQuery implements Query
+{
+
+    private static final Logger LOGGER = Logger.getLogger( PagedQuery.class );
+
+    /** Read only hints of the providers, ignored by the others. */
+    private static final String [ ] HINTS_READ_ONLY = {
+            "org.hibernate.readOnly", "eclipselink.read-only"
+    };
+
+    /**
+     * Read only mode of the page.
+     */
+    public enum ReadOnlyMode
+    {
+        /** Managed entities, as usual. */
+        OFF,
+        /** Entities loaded without dirty checking snapshot, with the read only hints of the provider. They must not be modified. */
+        HINTS,
+        /** Read only hints, and entities detached from the persistence context once read. */
+        DETACH
+    }
+
+    /** The _query. */
+    private Query _query;
+
+    /** The _count query. */
+    private Query _countQuery;
+
+    /** The _pagination properties. */
+    private PaginationProperties _paginationProperties;
+
+    /** The cache of the count, null if the count is not cached. */
+    private CountCache _countCache;
+
+    /** The key of the count in the cache. */
+    private QueryKey _countKey;
+
+    /** The factory of the entity manager of the concurrent count, null if the count is not concurrent. */
+    private EntityManagerFactory _entityManagerFactory;
+
+    /** The factory of the concurrent count query. */
+    private IQueryFactory _countQueryFactory;
+
+    /** The count strategy, null to run the count query. */
+    private ICountStrategy _countStrategy;
+
+    /** The query to count with the strategy. */
+    private CountContext _countContext;
+
+    /** The mapper of the rows read, null to return them as is. */
+    private Function<Object, ?> _rowMapper;
+
+    /** The prefetcher of the next page, null if the next page is not prefetched. */
+    private PagePrefetcher _prefetcher;
+
+    /** The key of the query in the prefetcher. */
+    private QueryKey _prefetchKey;
+
+    /** The factory of the entity manager of the prefetch. */
+    private EntityManagerFactory _prefetchEntityManagerFactory;
+
+    /** The factory of the query prefetching the next page. */
+    private IQueryFactory _pageQueryFactory;
+
+    /** The entity class of the DAO, null if the query is not instrumented. */
+    private Class<?> _entityClass;
+
+    /** The shape of the query, given to the listeners. */
+    private String _strShape;
+
+    /** The read only mode. */
+    private ReadOnlyMode _readOnlyMode = ReadOnlyMode.OFF;
+
+    /** The entity manager of the query, to detach the entities read. */
+    private EntityManager _em;
+
+    /** The key attributes of the keyset pagination, null if no cursor is returned. */
+    private String [ ] _cursorKeys;
+
+    /** The scope of the cursor, signed with it. */
+    private String _strCursorScope;
+
+    /** The last row of the page, before mapping. */
+    private Object _lastRow;
+
+    /** The duration of the count, -1 if not counted. */
+    private volatile long _lCountNanos = -1;
+
+    /** The duration of the read of the page. */
+    private long _lPageNanos;
+
+    /**
+     * Creates a new PaginatedQuery.java object.
+     * 
+     * @param query
+     *            query for getting results
+     * @param countQuery
+     *            query for counting total result
+     * @param paginationProperties
+     *            the pagination properties
+     */
+    public PagedQuery( Query query, Query countQuery, PaginationProperties paginationProperties )
+    {
+        super( );
+        this._query = query;
+        this._countQuery = countQuery;
+        this._paginationProperties = paginationProperties;
+
+        if ( this._paginationProperties != null )
+        {
+            this._query.setMaxResults( getFetchSize( ) );
+            this._query.setFirstResult( this._paginationProperties.getFirstResult( ) );
+        }
+    }
+
+    /**
+     * Returns the number of rows read for a page : one more than the page size when the results are not counted, to know whether there is a next page.
+     * 
+     * @return the number of rows read
+     */
+    private int getFetchSize( )
+    {
+        return _paginationProperties.isCountRequired( ) ? _paginationProperties.getPageSize( ) : ( _paginationProperties.getPageSize( ) + 1 );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getResultList()
+     */
+    public ResultList getResultList( )
+    {
+        ResultList resultList = new ResultList( );
+        if ( _paginationProperties != null && !_paginationProperties.isCountRequired( ) )
+        {
+            List<?> listRows = readPage( );
+            int nPageSize = _paginationProperties.getPageSize( );
+            resultList.addAll( ( listRows.size( ) > nPageSize ) ? listRows.subList( 0, nPageSize ) : listRows );
+            resultList.setHasMore( listRows.size( ) > nPageSize );
+            resultList.setTotalResult( -1 );
+            resultList.setTotalResultType( TotalResultType.UNKNOWN );
+            setNextCursor( resultList );
+            fireQuery( resultList.size( ) );
+
+            return resultList;
+        }
+        if ( this._countQuery == null && this._countStrategy == null )
+        {
+            resultList.addAll( readPage( ) );
+            resultList.setTotalResult( -1 );
+            resultList.setTotalResultType( TotalResultType.UNKNOWN );
+            setNextCursor( resultList );
+            fireQuery( resultList.size( ) );
+
+            return resultList;
+        }
+
+        TotalCount totalCount = ( _countCache == null ) ? null : _countCache.get( _countKey );
+        if ( totalCount == null )
+        {
+            long lGeneration = ( _countCache == null ) ? 0 : _countCache.getGeneration( _countKey.getEntityClass( ) );
+            Future<TotalCount> futureCount = submitCount( );
+            try
+            {
+                resultList.addAll( readPage( ) );
+            }
+            catch( RuntimeException e )
+            {
+                if ( futureCount != null )
+                {
+                    futureCount.cancel( true );
+                }
+                throw e;
+            }
+            totalCount = ( futureCount == null ) ? count( null ) : waitForCount( futureCount );
+            if ( _countCache != null )
+            {
+                _countCache.put( _countKey, totalCount, lGeneration );
+            }
+        }
+        else
+        {
+            resultList.addAll( readPage( ) );
+        }
+        resultList.setTotalResult( (int) Math.min( totalCount.getValue( ), Integer.MAX_VALUE ) );
+        resultList.setTotalResultType( totalCount.getType( ) );
+        setNextCursor( resultList );
+        fireQuery( resultList.size( ) );
+
+        return resultList;
+    }
+
+    /**
+     * Read the page in read only mode : the read only hints of the provider are set, so that the entities are loaded without the snapshot used to detect
+     * their changes, and the page and count queries do not flush the persistence context before being run. The entities may also be detached once read.
+     * 
+     * @param readOnlyMode
+     *            the read only mode
+     * @param em
+     *            the entity manager of the query, to detach the entities (required by {@link ReadOnlyMode#DETACH})
+     */
+    public void setReadOnly( ReadOnlyMode readOnlyMode, EntityManager em )
+    {
+        this._readOnlyMode = readOnlyMode;
+        this._em = em;
+        if ( readOnlyMode != ReadOnlyMode.OFF )
+        {
+            for ( String strHint : HINTS_READ_ONLY )
+            {
+                _query.setHint( strHint, Boolean.TRUE );
+            }
+            _query.setFlushMode( FlushModeType.COMMIT );
+            if ( _countQuery != null )
+            {
+                _countQuery.setFlushMode( FlushModeType.COMMIT );
+            }
+        }
+    }
+
+    /**
+     * Detaches the entities read, in {@link ReadOnlyMode#DETACH} mode. The rows are left as is if they are not entities (ie projections).
+     * 
+     * @param listRows
+     *            the rows read
+     */
+    private void detach( List<?> listRows )
+    {
+        if ( _readOnlyMode != ReadOnlyMode.DETACH || _em == null || listRows.isEmpty( ) )
+        {
+            return;
+        }
+        try
+        {
+            _em.contains( listRows.get( 0 ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            // Not an entity
+            return;
+        }
+        for ( Object row : listRows )
+        {
+            _em.detach( row );
+        }
+    }
+
+    /**
+     * Return the cursor of the next page in the result list (see {@link ResultList#getNextCursor()}), for a keyset pagination : the cursor carries the values
+     * of the key attributes of the last row of a full page. It is decoded with the scope {@link PageCursor#getScope(Class, String...)} of the same entity
+     * class and key attributes. No cursor is returned when a key of the last row is null (the keyset restriction can not compare it) or of a type not
+     * supported by {@link PageCursor}.
+     * 
+     * @param entityClass
+     *            the entity class listed
+     * @param keyAttributes
+     *            the key attributes of the keyset pagination, may be nested (ie "category.name")
+     */
+    public void setCursorKeys( Class<?> entityClass, String... keyAttributes )
+    {
+        this._cursorKeys = keyAttributes;
+        this._strCursorScope = PageCursor.getScope( entityClass, keyAttributes );
+    }
+
+    /**
+     * Sets the cursor of the next page, if the page is full, cursor keys are set and the keys of the last row can be carried by a cursor.
+     * 
+     * @param resultList
+     *            the result list
+     */
+    private void setNextCursor( ResultList resultList )
+    {
+        if ( _cursorKeys == null || _lastRow == null || !( _paginationProperties instanceof KeysetPaginationProperties ) )
+        {
+            return;
+        }
+        Object [ ] lastKeys = new Object [ _cursorKeys.length];
+        try
+        {
+            for ( int i = 0; i < _cursorKeys.length; i++ )
+            {
+                lastKeys [i] = PropertyUtils.getNestedProperty( _lastRow, _cursorKeys [i] );
+            }
+        }
+        catch( IllegalAccessException | InvocationTargetException | NoSuchMethodException e )
+        {
+            throw new TechnicalException( "Problème lors de la lecture des clés du curseur", e );
+        }
+        for ( int i = 0; i < lastKeys.length; i++ )
+        {
+            if ( lastKeys [i] == null || !PageCursor.isSupported( lastKeys [i] ) )
+            {
+                if ( LOGGER.isDebugEnabled( ) )
+                {
+                    LOGGER.debug( "Pas de curseur pour la page suivante : clé " + _cursorKeys [i] + " nulle ou de type non supporté" );
+                }
+
+                return;
+            }
+        }
+        resultList.setNextCursor( PageCursor.encode( _strCursorScope, ( (KeysetPaginationProperties) _paginationProperties ).getDirection( ), lastKeys ) );
+    }
+
+    /**
+     * Map the rows read by the query (ie tuples to DTO) before returning them.
+     * 
+     * @param rowMapper
+     *            the row mapper
+     */
+    public void setRowMapper( Function<Object, ?> rowMapper )
+    {
+        this._rowMapper = rowMapper;
+    }
+
+    /**
+     * Reads the page.
+     * 
+     * @return the rows of the page, mapped if a row mapper is set
+     */
+    private List<?> readPage( )
+    {
+        long lStart = System.nanoTime( );
+        List<?> listRows = null;
+        // Prefetched entities are detached : only when every page returns detached entities or mapped rows
+        boolean bPrefetch = _prefetcher != null && _paginationProperties != null && !( _paginationProperties instanceof KeysetPaginationProperties )
+                && ( _readOnlyMode == ReadOnlyMode.DETACH || _rowMapper != null );
+        if ( bPrefetch )
+        {
+            listRows = _prefetcher.take( _prefetchKey, _paginationProperties.getFirstResult( ), getFetchSize( ) );
+        }
+        if ( listRows == null )
+        {
+            listRows = _query.getResultList( );
+            detach( listRows );
+        }
+        if ( bPrefetch && listRows.size( ) >= getFetchSize( ) )
+        {
+            // Full page : there may be a next one
+            _prefetcher.prefetch( _prefetchKey, _paginationProperties.getFirstResult( ) + _paginationProperties.getPageSize( ), getFetchSize( ),
+                    _prefetchEntityManagerFactory, _pageQueryFactory );
+        }
+        _lPageNanos = System.nanoTime( ) - lStart;
+        if ( _cursorKeys != null )
+        {
+            int nPageSize = _paginationProperties.getPageSize( );
+            _lastRow = ( listRows.size( ) < nPageSize || nPageSize <= 0 ) ? null : listRows.get( nPageSize - 1 );
+        }
+        if ( _rowMapper == null )
+        {
+            return listRows;
+        }
+
+        List<Object> listMappedRows = new ArrayList<Object>( listRows.size( ) );
+        for ( Object row : listRows )
+        {
+            listMappedRows.add( _rowMapper.apply( row ) );
+        }
+
+        return listMappedRows;
+    }
+
+    /**
+     * Prefetch the next page of this query : after a full page is read, the next one is read in background on its own entity manager, and served from the
+     * prefetcher if requested shortly after. Prefetched entities are detached, and do not see the changes not yet committed by the current transaction. So
+     * that all the pages of the query return the same kind of rows, the prefetch is only applied in {@link ReadOnlyMode#DETACH} mode or with a row mapper
+     * (see {@link #setRowMapper(Function)}) : otherwise the first page would return managed entities and the next ones detached entities. Not applied to
+     * keyset pagination.
+     * 
+     * @param prefetcher
+     *            the prefetcher
+     * @param prefetchKey
+     *            the key of the query (shape and parameters, without the pagination)
+     * @param entityManagerFactory
+     *            the factory of the entity manager of the prefetch
+     * @param pageQueryFactory
+     *            the factory of the query, without pagination
+     */
+    public void setPrefetch( PagePrefetcher prefetcher, QueryKey prefetchKey, EntityManagerFactory entityManagerFactory, IQueryFactory pageQueryFactory )
+    {
+        this._prefetcher = prefetcher;
+        this._prefetchKey = prefetchKey;
+        this._prefetchEntityManagerFactory = entityManagerFactory;
+        this._pageQueryFactory = pageQueryFactory;
+    }
+
+    /**
+     * Cache the count of this query : the count query is only run if the count is not in the cache.
+     * 
+     * @param countCache
+     *            the count cache
+     * @param countKey
+     *            the key of the query (shape and parameters, without the pagination)
+     */
+    public void setCountCache( CountCache countCache, QueryKey countKey )
+    {
+        this._countCache = countCache;
+        this._countKey = countKey;
+    }
+
+    /**
+     * Run the count concurrently with the page : the count query is created by the factory on its own entity manager, in a background thread.
+     * 
+     * @param entityManagerFactory
+     *            the factory of the entity manager of the count
+     * @param countQueryFactory
+     *            the factory of the count query (not used when a count strategy is set)
+     */
+    public void setConcurrentCount( EntityManagerFactory entityManagerFactory, IQueryFactory countQueryFactory )
+    {
+        this._entityManagerFactory = entityManagerFactory;
+        this._countQueryFactory = countQueryFactory;
+    }
+
+    /**
+     * Count the results with a strategy instead of the count query.
+     * 
+     * @param countStrategy
+     *            the count strategy
+     * @param countContext
+     *            the query to count, on the entity manager of this query
+     */
+    public void setCountStrategy( ICountStrategy countStrategy, CountContext countContext )
+    {
+        this._countStrategy = countStrategy;
+        this._countContext = countContext;
+    }
+
+    /**
+     * Counts the results.
+     * 
+     * @param em
+     *            the entity manager of the count, whose queries get the read only hints, null for the entity manager of this query
+     * @return the total number of results
+     */
+    private TotalCount count( EntityManager em )
+    {
+        long lStart = System.nanoTime( );
+        TotalCount totalCount;
+        if ( _countStrategy != null )
+        {
+            CountContext countContext = _countContext;
+            if ( em != null )
+            {
+                countContext = countContext.withEntityManager( em );
+                for ( String strHint : HINTS_READ_ONLY )
+                {
+                    countContext = countContext.withHint( strHint, Boolean.TRUE );
+                }
+            }
+            if ( _readOnlyMode != ReadOnlyMode.OFF )
+            {
+                countContext = countContext.withFlushMode( FlushModeType.COMMIT );
+            }
+            totalCount = _countStrategy.count( countContext );
+        }
+        else
+        {
+            Query countQuery = _countQuery;
+            if ( em != null )
+            {
+                countQuery = _countQueryFactory.createQuery( em );
+                for ( String strHint : HINTS_READ_ONLY )
+                {
+                    countQuery.setHint( strHint, Boolean.TRUE );
+                }
+            }
+            totalCount = TotalCount.exact( (Long) countQuery.getSingleResult( ) );
+        }
+        _lCountNanos = System.nanoTime( ) - lStart;
+
+        return totalCount;
+    }
+
+    /**
+     * Name this query for the {@link QueryInstrumentation} : the listeners are notified of its reads.
+     * 
+     * @param entityClass
+     *            the entity class of the DAO
+     * @param strShape
+     *            the shape of the query, null if unknown
+     */
+    public void setQueryShape( Class<?> entityClass, String strShape )
+    {
+        this._entityClass = entityClass;
+        this._strShape = strShape;
+    }
+
+    /**
+     * Notifies the listeners of the read of this query, if it is named.
+     * 
+     * @param nRows
+     *            the number of rows read
+     */
+    private void fireQuery( int nRows )
+    {
+        if ( _entityClass != null && QueryInstrumentation.isEnabled( ) )
+        {
+            QueryInstrumentation.fireQuery( _entityClass, _strShape, _lCountNanos, _lPageNanos, nRows, ( _paginationProperties == null ) ? 0
+                    : _paginationProperties.getFirstResult( ) );
+        }
+    }
+
+    /**
+     * Submits the count to the background executor, if the count is concurrent.
+     * 
+     * @return the future count, null if the count must be run by the caller
+     */
+    private Future<TotalCount> submitCount( )
+    {
+        if ( _entityManagerFactory == null )
+        {
+            return null;
+        }
+        try
+        {
+            return ConcurrentQueryExecutor.submit( new Callable<TotalCount>( )
+            {
+                public TotalCount call( )
+                {
+                    return countOnOwnEntityManager( );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            // Executor saturated : count after the page, as usual
+            return null;
+        }
+    }
+
+    /**
+     * Runs the count on a new read only entity manager : it never flushes, and its queries have the read only hints of the provider.
+     * 
+     * @return the total number of results
+     */
+    private TotalCount countOnOwnEntityManager( )
+    {
+        EntityManager em = _entityManagerFactory.createEntityManager( );
+        try
+        {
+            em.setFlushMode( FlushModeType.COMMIT );
+
+            return count( em );
+        }
+        finally
+        {
+            em.close( );
+        }
+    }
+
+    /**
+     * Waits for the concurrent count.
+     * 
+     * @param futureCount
+     *            the future count
+     * @return the total number of results
+     */
+    private static TotalCount waitForCount( Future<TotalCount> futureCount )
+    {
+        try
+        {
+            return futureCount.get( );
+        }
+        catch( ExecutionException e )
+        {
+            if ( e.getCause( ) instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause( );
+            }
+            throw new TechnicalException( "Erreur lors du comptage des résultats", e.getCause( ) );
+        }
+        catch( InterruptedException e )
+        {
+            futureCount.cancel( true );
+            Thread.currentThread( ).interrupt( );
+            throw new TechnicalException( "Comptage des résultats interrompu", e );
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getSingleResult()
+     */
+    public Object getSingleResult( )
+    {
+        return _query.getSingleResult( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#executeUpdate()
+     */
+    public int executeUpdate( )
+    {
+        return _query.executeUpdate( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setMaxResults(int)
+     */
+    public Query setMaxResults( int maxResult )
+    {
+        return _query.setMaxResults( maxResult );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getMaxResults()
+     */
+    public int getMaxResults( )
+    {
+        return _query.getMaxResults( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setFirstResult(int)
+     */
+    public Query setFirstResult( int startPosition )
+    {
+        return _query.setFirstResult( startPosition );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getFirstResult()
+     */
+    public int getFirstResult( )
+    {
+        return _query.getFirstResult( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setHint(java.lang.String, java.lang.Object)
+     */
+    public Query setHint( String hintName, Object value )
+    {
+        return _query.setHint( hintName, value );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getHints()
+     */
+    public Map<String, Object> getHints( )
+    {
+        return _query.getHints( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.lang.Object)
+     */
+    public <T> Query setParameter( Parameter<T> param, T value )
+    {
+        return _query.setParameter( param, value );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.util.Calendar, javax.persistence.TemporalType)
+     */
+    public Query setParameter( Parameter<Calendar> param, Calendar value, TemporalType temporalType )
+    {
+        return _query.setParameter( param, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(javax.persistence.Parameter, java.util.Date, javax.persistence.TemporalType)
+     */
+    public Query setParameter( Parameter<Date> param, Date value, TemporalType temporalType )
+    {
+        return _query.setParameter( param, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(java.lang.String, java.lang.Object)
+     */
+    public Query setParameter( String name, Object value )
+    {
+        return _query.setParameter( name, value );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(java.lang.String, java.util.Calendar, javax.persistence.TemporalType)
+     */
+    public Query setParameter( String name, Calendar value, TemporalType temporalType )
+    {
+        return _query.setParameter( name, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(java.lang.String, java.util.Date, javax.persistence.TemporalType)
+     */
+    public Query setParameter( String name, Date value, TemporalType temporalType )
+    {
+        return _query.setParameter( name, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(int, java.lang.Object)
+     */
+    public Query setParameter( int position, Object value )
+    {
+        return _query.setParameter( position, value );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(int, java.util.Calendar, javax.persistence.TemporalType)
+     */
+    public Query setParameter( int position, Calendar value, TemporalType temporalType )
+    {
+        return _query.setParameter( position, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setParameter(int, java.util.Date, javax.persistence.TemporalType)
+     */
+    public Query setParameter( int position, Date value, TemporalType temporalType )
+    {
+        return _query.setParameter( position, value, temporalType );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameters()
+     */
+    public Set<Parameter<?>> getParameters( )
+    {
+        return _query.getParameters( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameter(java.lang.String)
+     */
+    public Parameter<?> getParameter( String name )
+    {
+        return _query.getParameter( name );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameter(java.lang.String, java.lang.Class)
+     */
+    public <T> Parameter<T> getParameter( String name, Class<T> type )
+    {
+        return _query.getParameter( name, type );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameter(int)
+     */
+    public Parameter<?> getParameter( int position )
+    {
+        return _query.getParameter( position );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameter(int, java.lang.Class)
+     */
+    public <T> Parameter<T> getParameter( int position, Class<T> type )
+    {
+        return _query.getParameter( position, type );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#isBound(javax.persistence.Parameter)
+     */
+    public boolean isBound( Parameter<?> param )
+    {
+        return _query.isBound( param );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameterValue(javax.persistence.Parameter)
+     */
+    public <T> T getParameterValue( Parameter<T> param )
+    {
+        return _query.getParameterValue( param );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameterValue(java.lang.String)
+     */
+    public Object getParameterValue( String name )
+    {
+        return _query.getParameterValue( name );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getParameterValue(int)
+     */
+    public Object getParameterValue( int position )
+    {
+        return _query.getParameterValue( position );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setFlushMode(javax.persistence.FlushModeType)
+     */
+    public Query setFlushMode( FlushModeType flushMode )
+    {
+        return _query.setFlushMode( flushMode );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getFlushMode()
+     */
+    public FlushModeType getFlushMode( )
+    {
+        return _query.getFlushMode( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#setLockMode(javax.persistence.LockModeType)
+     */
+    public Query setLockMode( LockModeType lockMode )
+    {
+        return _query.setLockMode( lockMode );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#getLockMode()
+     */
+    public LockModeType getLockMode( )
+    {
+        return _query.getLockMode( );
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see javax.persistence.Query#unwrap(java.lang.Class)
+     */
+    public <T> T unwrap( Class<T> cls )
+    {
+        return _query.unwrap( cls );
+    }
+
+    /**
+     * Gets the query.
+     * 
+     * @return the query
+     */
+    public Query getQuery( )
+    {
+        return _query;
+    }
+
+    /**
+     * Sets the query.
+     * 
+     * @param query
+     *            the query to set
+     */
+    public void setQuery( Query query )
+    {
+        this._query = query;
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+
+/**
+ * Scan of a table split in id ranges, read in parallel : each range is read by a worker thread, on its own entity manager and transaction. The entities read
+ * are delivered to the consumer in the calling thread, detached, range by range (in id order if requested). At most twice as many ranges as workers are read
+ * ahead, so that the memory stays bounded when the consumer is slower than the database. The {@link QueryInstrumentation} listeners are notified of the
+ * read of each range, in its worker thread.
+ * 
+ * @param <E>
+ *            the entity type
+ */
+class PartitionedScan<E>
+{
+    private static final String THREAD_NAME_PREFIX = "stock-dao-scan-";
+    private static final int READ_AHEAD_FACTOR = 2;
+    private static final String SHAPE = "scanPartitioned";
+
+    private final EntityManagerFactory _entityManagerFactory;
+    private final Class<E> _entityClass;
+    private final IRestrictionBuilder<E> _where;
+    private final PartitionedScanProperties _properties;
+
+    /**
+     * Creates a new PartitionedScan.
+     * 
+     * @param entityManagerFactory
+     *            the factory of the entity managers of the workers
+     * @param entityClass
+     *            the entity class
+     * @param where
+     *            the restriction builder, may be null
+     * @param properties
+     *            the scan properties
+     */
+    PartitionedScan( EntityManagerFactory entityManagerFactory, Class<E> entityClass, IRestrictionBuilder<E> where, PartitionedScanProperties properties )
+    {
+        this._entityManagerFactory = entityManagerFactory;
+        this._entityClass = entityClass;
+        this._where = where;
+        this._properties = properties;
+    }
+
+    /**
+     * Runs the scan.
+     * 
+     * @param lMinId
+     *            the lowest id of the table
+     * @param lMaxId
+     *            the highest id of the table
+     * @param idType
+     *            the type of the id
+     * @param consumer
+     *            the consumer of the entities
+     * @return the number of entities delivered
+     */
+    long run( long lMinId, long lMaxId, Class<?> idType, Consumer<? super E> consumer )
+    {
+        int nParallelism = Math.max( 1, _properties.getParallelism( ) );
+        long lRangeSize = Math.max( 1, _properties.getRangeSize( ) );
+        int nWindow = nParallelism * READ_AHEAD_FACTOR;
+        ExecutorService executor = createExecutor( nParallelism );
+        CompletionService<List<E>> completionService = new ExecutorCompletionService<List<E>>( executor );
+        Deque<Future<List<E>>> pending = new ArrayDeque<Future<List<E>>>( nWindow );
+
+        long lCount = 0;
+        long lNextLowId = lMinId;
+        boolean bAllSubmitted = false;
+        try
+        {
+            while ( !bAllSubmitted || !pending.isEmpty( ) )
+            {
+                while ( !bAllSubmitted && pending.size( ) < nWindow )
+                {
+                    long lHighId = ( lMaxId - lNextLowId < lRangeSize ) ? lMaxId : ( lNextLowId + lRangeSize - 1 );
+                    Callable<List<E>> task = createRangeTask( AbstractStockDAO.toIdType( lNextLowId, idType ), AbstractStockDAO.toIdType( lHighId, idType ) );
+                    pending.addLast( _properties.isOrdered( ) ? executor.submit( task ) : completionService.submit( task ) );
+                    bAllSubmitted = lHighId == lMaxId;
+                    lNextLowId = lHighId + 1;
+                }
+
+                Future<List<E>> future;
+                if ( _properties.isOrdered( ) )
+                {
+                    future = pending.removeFirst( );
+                }
+                else
+                {
+                    future = completionService.take( );
+                    pending.remove( future );
+                }
+                for ( E entity : future.get( ) )
+                {
+                    consumer.accept( entity );
+                    lCount++;
+                }
+            }
+        }
+        catch( ExecutionException e )
+        {
+            throw new TechnicalException( "Problème lors du parcours partitionné de " + _entityClass.getName( ), e.getCause( ) );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new TechnicalException( "Parcours partitionné de " + _entityClass.getName( ) + " interrompu", e );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+
+        return lCount;
+    }
+
+    /**
+     * Creates the task reading a range, on its own entity manager and transaction.
+     * 
+     * @param lowId
+     *            the lowest id (inclusive)
+     * @param highId
+     *            the highest id (inclusive)
+     * @return the task, returning the detached entities of the range in id order
+     */
+    private Callable<List<E>> createRangeTask( final Object lowId, final Object highId )
+    {
+        return new Callable<List<E>>( )
+        {
+            @SuppressWarnings( {
+                    "unchecked", "rawtypes"
+            } )
+            public List<E> call( )
+            {
+                EntityManager em = _entityManagerFactory.createEntityManager( );
+                EntityTransaction transaction = em.getTransaction( );
+                try
+                {
+                    transaction.begin( );
+                    em.setFlushMode( FlushModeType.COMMIT );
+                    CriteriaBuilder cb = em.getCriteriaBuilder( );
+                    CriteriaQuery<E> query = cb.createQuery( _entityClass );
+                    Root<E> root = query.from( _entityClass );
+                    EntityType<E> entityType = root.getModel( );
+                    Path idPath = root.get( entityType.getId( entityType.getIdType( ).getJavaType( ) ).getName( ) );
+                    Predicate restriction = cb.between( idPath, (Comparable) lowId, (Comparable) highId );
+                    Predicate where = ( _where == null ) ? null : _where.build( cb, root );
+                    query.select( root ).where( ( where == null ) ? restriction : cb.and( restriction, where ) ).orderBy( cb.asc( idPath ) );
+                    long lStart = System.nanoTime( );
+                    List<E> listEntities = em.createQuery( query ).getResultList( );
+                    if ( QueryInstrumentation.isEnabled( ) )
+                    {
+                        QueryInstrumentation.fireQuery( _entityClass, SHAPE, -1, System.nanoTime( ) - lStart, listEntities.size( ), 0 );
+                    }
+                    transaction.commit( );
+
+                    return listEntities;
+                }
+                finally
+                {
+                    if ( transaction.isActive( ) )
+                    {
+                        transaction.rollback( );
+                    }
+                    em.close( );
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates the executor of the workers of this scan, with daemon threads.
+     * 
+     * @param nParallelism
+     *            the number of workers
+     * @return the executor
+     */
+    private static ExecutorService createExecutor( int nParallelism )
+    {
+        final AtomicInteger threadNumber = new AtomicInteger( );
+
+        return Executors.newFixedThreadPool( nParallelism, new ThreadFactory( )
+        {
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet( ) );
+                thread.setDaemon( true );
+
+                return thread;
+            }
+        } );
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Properties of a partitioned scan (see {@link AbstractStockDAO#scanPartitioned(IRestrictionBuilder, PartitionedScanProperties, java.util.function.Consumer)}) :
+ * size of the id ranges, number of ranges read in parallel and order of delivery. Defaults are read from the properties stock.dao.partitionedScan.*.
+ */
+public class PartitionedScanProperties
+{
+    private static final String PROPERTY_RANGE_SIZE = "stock.dao.partitionedScan.rangeSize";
+    private static final String PROPERTY_PARALLELISM = "stock.dao.partitionedScan.parallelism";
+    private static final String PROPERTY_ORDERED = "stock.dao.partitionedScan.ordered";
+    private static final int DEFAULT_RANGE_SIZE = 5000;
+
+    private int _nRangeSize = AppPropertiesService.getPropertyInt( PROPERTY_RANGE_SIZE, DEFAULT_RANGE_SIZE );
+
+    private int _nParallelism = AppPropertiesService.getPropertyInt( PROPERTY_PARALLELISM, Runtime.getRuntime( ).availableProcessors( ) );
+
+    private boolean _bOrdered = AppPropertiesService.getPropertyBoolean( PROPERTY_ORDERED, false );
+
+    /**
+     * Returns the number of ids of a range (5000 by default). The rows of a range are held in memory until delivered.
+     * 
+     * @return the range size
+     */
+    public int getRangeSize( )
+    {
+        return _nRangeSize;
+    }
+
+    /**
+     * Sets the number of ids of a range.
+     * 
+     * @param nRangeSize
+     *            the range size
+     */
+    public void setRangeSize( int nRangeSize )
+    {
+        this._nRangeSize = nRangeSize;
+    }
+
+    /**
+     * Returns the number of ranges read in parallel, each one on its own connection (number of processors by default).
+     * 
+     * @return the parallelism
+     */
+    public int getParallelism( )
+    {
+        return _nParallelism;
+    }
+
+    /**
+     * Sets the number of ranges read in parallel. Must not exceed the size of the connection pool.
+     * 
+     * @param nParallelism
+     *            the parallelism
+     */
+    public void setParallelism( int nParallelism )
+    {
+        this._nParallelism = nParallelism;
+    }
+
+    /**
+     * Returns true if the entities are delivered in id order, false if the ranges are delivered as soon as they are read (false by default).
+     * 
+     * @return true if ordered
+     */
+    public boolean isOrdered( )
+    {
+        return _bOrdered;
+    }
+
+    /**
+     * Sets whether the entities are delivered in id order.
+     * 
+     * @param bOrdered
+     *            true to deliver in id order
+     */
+    public void setOrdered( boolean bOrdered )
+    {
+        this._bOrdered = bOrdered;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Registry of the {@link IQueryListener} notified of the queries of the DAO : the paged queries, and the other reads and writes of AbstractStockDAO (findById,
+ * findByIds, the chunks of the streams, the ranges of the partitioned scans, saveAll, updateAll, updateWhere and deleteWhere).
+ */
+public final class QueryInstrumentation
+{
+    private static final Logger LOGGER = Logger.getLogger( QueryInstrumentation.class );
+    private static final IQueryListener [ ] NO_LISTENER = new IQueryListener [ 0];
+
+    private static volatile IQueryListener [ ] _listeners = NO_LISTENER;
+
+    /**
+     * Instantiates a new query instrumentation.
+     */
+    private QueryInstrumentation( )
+    {
+
+    }
+
+    /**
+     * Registers a listener.
+     * 
+     * @param listener
+     *            the listener
+     */
+    public static synchronized void addListener( IQueryListener listener )
+    {
+        IQueryListener [ ] listeners = new IQueryListener [ _listeners.length + 1];
+        System.arraycopy( _listeners, 0, listeners, 0, _listeners.length );
+        listeners [_listeners.length] = listener;
+        _listeners = listeners;
+    }
+
+    /**
+     * Unregisters a listener.
+     * 
+     * @param listener
+     *            the listener
+     */
+    public static synchronized void removeListener( IQueryListener listener )
+    {
+        for ( int i = 0; i < _listeners.length; i++ )
+        {
+            if ( _listeners [i] == listener )
+            {
+                IQueryListener [ ] listeners = new IQueryListener [ _listeners.length - 1];
+                System.arraycopy( _listeners, 0, listeners, 0, i );
+                System.arraycopy( _listeners, i + 1, listeners, i, listeners.length - i );
+                _listeners = listeners;
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if a listener is registered.
+     * 
+     * @return true if the queries must be timed
+     */
+    public static boolean isEnabled( )
+    {
+        return _listeners.length > 0;
+    }
+
+    /**
+     * Notifies the listeners of a query. A failing listener is logged and does not prevent the others from being notified.
+     * 
+     * @param entityClass
+     *            the entity class of the DAO
+     * @param strShape
+     *            the shape of the query, may be null
+     * @param lCountNanos
+     *            duration of the count, -1 if not counted
+     * @param lPageNanos
+     *            duration of the read of the page, or of the operation
+     * @param nRows
+     *            number of rows of the page, or rows read or written by the operation
+     * @param nFirstResult
+     *            first result of the page, 0 for the operations which are not paged
+     */
+    public static void fireQuery( Class<?> entityClass, String strShape, long lCountNanos, long lPageNanos, int nRows, int nFirstResult )
+    {
+        for ( IQueryListener listener : _listeners )
+        {
+            try
+            {
+                listener.onQuery( entityClass, strShape, lCountNanos, lPageNanos, nRows, nFirstResult );
+            }
+            catch( RuntimeException e )
+            {
+                LOGGER.error( "Erreur du listener de requêtes " + listener.getClass( ).getName( ), e );
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.Arrays;
+
+/**
+ * Key of a query : the entity class it reads, the shape of the query (a name identifying its structure, ie "findByFilter") and the values of its parameters.
+ * Two queries having the same key return the same results, so the key can be used to cache them.
+ */
+public final class QueryKey
+{
+    private final Class<?> _entityClass;
+
+    private final String _strShape;
+
+    private final Object [ ] _parameters;
+
+    private final int _nHashCode;
+
+    /**
+     * Creates a new QueryKey.
+     * 
+     * @param entityClass
+     *            the entity class read by the query
+     * @param strShape
+     *            the shape of the query
+     * @param parameters
+     *            the values of the parameters of the query
+     */
+    private QueryKey( Class<?> entityClass, String strShape, Object [ ] parameters )
+    {
+        this._entityClass = entityClass;
+        this._strShape = strShape;
+        this._parameters = parameters;
+        this._nHashCode = ( 31 * ( 31 * entityClass.hashCode( ) + strShape.hashCode( ) ) ) + Arrays.deepHashCode( parameters );
+    }
+
+    /**
+     * Returns the key of a query.
+     * 
+     * @param entityClass
+     *            the entity class read by the query
+     * @param strShape
+     *            the shape of the query
+     * @param parameters
+     *            the values of the parameters of the query (their order is part of the key)
+     * @return the key
+     */
+    public static QueryKey of( Class<?> entityClass, String strShape, Object... parameters )
+    {
+        if ( entityClass == null || strShape == null )
+        {
+            throw new IllegalArgumentException( "The entity class and the shape of a query key are mandatory" );
+        }
+
+        return new QueryKey( entityClass, strShape, ( parameters == null ) ? new Object [ 0] : parameters.clone( ) );
+    }
+
+    /**
+     * Returns the entity class read by the query.
+     * 
+     * @return the entity class
+     */
+    public Class<?> getEntityClass( )
+    {
+        return _entityClass;
+    }
+
+    /**
+     * Returns the shape of the query.
+     * 
+     * @return the shape
+     */
+    public String getShape( )
+    {
+        return _strShape;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode( )
+    {
+        return _nHashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof QueryKey ) )
+        {
+            return false;
+        }
+        QueryKey other = (QueryKey) obj;
+
+        return _nHashCode == other._nHashCode && _entityClass.equals( other._entityClass ) && _strShape.equals( other._strShape )
+                && Arrays.deepEquals( _parameters, other._parameters );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return _entityClass.getSimpleName( ) + "." + _strShape + Arrays.deepToString( _parameters );
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaQuery;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Cache of the compiled queries of the searches, by shape : a search of a given shape (same structure, only the values of its parameters change) builds its
+ * criteria queries and has them translated by the provider once. They are then registered as named queries of the entity manager factory and created by name
+ * on the next calls, falling back to the reuse of the criteria queries when the provider does not support it.<br>
+ * The number of shapes is bounded, as named queries can not be unregistered : the shapes exceeding the bound are compiled on each call.
+ */
+public final class QueryShapeCache
+{
+    private static final String PROPERTY_MAX_SIZE = "stock.dao.queryShapeCache.maxSize";
+    private static final int DEFAULT_MAX_SIZE = 500;
+    private static final String SUFFIX_COUNT = ".count";
+    private static final String SUFFIX_ROW = ".row";
+    private static final Logger LOGGER = Logger.getLogger( QueryShapeCache.class );
+
+    private static final QueryShapeCache INSTANCE = new QueryShapeCache( AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE ) );
+
+    private final ConcurrentMap<String, CompiledShape> _mapShapes = new ConcurrentHashMap<String, CompiledShape>( );
+
+    private final int _nMaxSize;
+
+    private final AtomicLong _lHitCount = new AtomicLong( );
+    private final AtomicLong _lMissCount = new AtomicLong( );
+    private final AtomicLong _lCompileTime = new AtomicLong( );
+
+    /**
+     * Creates a new QueryShapeCache.
+     * 
+     * @param nMaxSize
+     *            maximum number of shapes
+     */
+    private QueryShapeCache( int nMaxSize )
+    {
+        this._nMaxSize = nMaxSize;
+    }
+
+    /**
+     * Returns the cache.
+     * 
+     * @return the cache
+     */
+    public static QueryShapeCache getInstance( )
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled shape of a search.
+     * 
+     * @param strShapeName
+     *            the name of the shape, unique in the persistence unit
+     * @param compiler
+     *            the compiler of the shape, called if it is not cached
+     * @return the compiled shape
+     */
+    public CompiledShape get( String strShapeName, IShapeCompiler compiler )
+    {
+        CompiledShape shape = _mapShapes.get( strShapeName );
+        if ( shape != null )
+        {
+            _lHitCount.incrementAndGet( );
+
+            return shape;
+        }
+        _lMissCount.incrementAndGet( );
+
+        long lStart = System.nanoTime( );
+        shape = compiler.compile( );
+        if ( _mapShapes.size( ) < _nMaxSize )
+        {
+            CompiledShape registered = shape.register( strShapeName );
+            CompiledShape previous = _mapShapes.putIfAbsent( strShapeName, registered );
+            shape = ( previous == null ) ? registered : previous;
+        }
+        _lCompileTime.addAndGet( System.nanoTime( ) - lStart );
+
+        return shape;
+    }
+
+    /**
+     * Returns the number of cached shapes.
+     * 
+     * @return the size
+     */
+    public int getSize( )
+    {
+        return _mapShapes.size( );
+    }
+
+    /**
+     * Returns the number of searches whose shape was cached.
+     * 
+     * @return the hit count
+     */
+    public long getHitCount( )
+    {
+        return _lHitCount.get( );
+    }
+
+    /**
+     * Returns the number of searches whose shape was compiled.
+     * 
+     * @return the miss count
+     */
+    public long getMissCount( )
+    {
+        return _lMissCount.get( );
+    }
+
+    /**
+     * Returns the ratio of the searches whose shape was cached.
+     * 
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio( )
+    {
+        long lHitCount = _lHitCount.get( );
+        long lTotal = lHitCount + _lMissCount.get( );
+
+        return ( lTotal == 0 ) ? 0 : (double) lHitCount / lTotal;
+    }
+
+    /**
+     * Returns the total time spent compiling shapes (building the criteria queries, translating and registering them).
+     * 
+     * @return the compile time, in nanoseconds
+     */
+    public long getCompileTime( )
+    {
+        return _lCompileTime.get( );
+    }
+
+    /**
+     * Compiler of a shape, called on a cache miss.
+     */
+    public interface IShapeCompiler
+    {
+
+        /**
+         * Builds and translates the queries of the shape.
+         * 
+         * @return the compiled shape
+         */
+        CompiledShape compile( );
+    }
+
+    /**
+     * Compiled queries of a search shape : the page query, its count query and its row query. Each one is created on any entity manager by a factory, by name
+     * once registered.
+     */
+    public static final class CompiledShape
+    {
+        private final EntityManagerFactory _entityManagerFactory;
+        private final Query _pageQuery;
+        private final Query _countQuery;
+        private final Query _rowQuery;
+        private final IQueryFactory _pageQueryFactory;
+        private final IQueryFactory _countQueryFactory;
+        private final IQueryFactory _rowQueryFactory;
+        private final boolean _bRestricted;
+
+        /**
+         * Creates a new CompiledShape, from its criteria queries translated once.
+         * 
+         * @param em
+         *            the entity manager which translated the queries
+         * @param entityClass
+         *            the entity class of the DAO
+         * @param pageQuery
+         *            the criteria page query
+         * @param countQuery
+         *            the criteria count query
+         * @param rowQuery
+         *            the criteria row query, may be null
+         */
+        public CompiledShape( EntityManager em, Class<?> entityClass, CriteriaQuery<?> pageQuery, CriteriaQuery<Long> countQuery, CriteriaQuery<?> rowQuery )
+        {
+            this( em.getEntityManagerFactory( ), em.createQuery( pageQuery ), em.createQuery( countQuery ), ( rowQuery == null ) ? null : em
+                    .createQuery( rowQuery ), createFactory( pageQuery ), createFactory( countQuery ), createFactory( rowQuery ),
+                    !CountContext.isWholeTable( pageQuery, entityClass ) );
+        }
+
+        /**
+         * Creates a new CompiledShape.
+         * 
+         * @param entityManagerFactory
+         *            the entity manager factory
+         * @param pageQuery
+         *            the translated page query
+         * @param countQuery
+         *            the translated count query
+         * @param rowQuery
+         *            the translated row query, may be null
+         * @param pageQueryFactory
+         *            the factory of the page query
+         * @param countQueryFactory
+         *            the factory of the count query
+         * @param rowQueryFactory
+         *            the factory of the row query, may be null
+         * @param bRestricted
+         *            false if the queries count the whole table of the entity class
+         */
+        private CompiledShape( EntityManagerFactory entityManagerFactory, Query pageQuery, Query countQuery, Query rowQuery, IQueryFactory pageQueryFactory,
+                IQueryFactory countQueryFactory, IQueryFactory rowQueryFactory, boolean bRestricted )
+        {
+            this._entityManagerFactory = entityManagerFactory;
+            this._pageQuery = pageQuery;
+            this._countQuery = countQuery;
+            this._rowQuery = rowQuery;
+            this._pageQueryFactory = pageQueryFactory;
+            this._countQueryFactory = countQueryFactory;
+            this._rowQueryFactory = rowQueryFactory;
+            this._bRestricted = bRestricted;
+        }
+
+        /**
+         * Registers the translated queries as named queries, so that they are created by name.
+         * 
+         * @param strShapeName
+         *            the name of the shape
+         * @return the shape creating its queries by name, or this shape if the provider can not register them
+         */
+        private CompiledShape register( String strShapeName )
+        {
+            try
+            {
+                _entityManagerFactory.addNamedQuery( strShapeName, _pageQuery );
+                _entityManagerFactory.addNamedQuery( strShapeName + SUFFIX_COUNT, _countQuery );
+                if ( _rowQuery != null )
+                {
+                    _entityManagerFactory.addNamedQuery( strShapeName + SUFFIX_ROW, _rowQuery );
+                }
+            }
+            catch( PersistenceException | IllegalStateException | UnsupportedOperationException e )
+            {
+                LOGGER.debug( "Requête " + strShapeName + " non enregistrée, réutilisation de la requête criteria", e );
+
+                return this;
+            }
+
+            return new CompiledShape( _entityManagerFactory, null, null, null, createFactory( strShapeName ), createFactory( strShapeName + SUFFIX_COUNT ),
+                    ( _rowQuery == null ) ? null : createFactory( strShapeName + SUFFIX_ROW ), _bRestricted );
+        }
+
+        /**
+         * Returns the factory of the page query.
+         * 
+         * @return the page query factory
+         */
+        public IQueryFactory getPageQueryFactory( )
+        {
+            return _pageQueryFactory;
+        }
+
+        /**
+         * Returns the factory of the count query.
+         * 
+         * @return the count query factory
+         */
+        public IQueryFactory getCountQueryFactory( )
+        {
+            return _countQueryFactory;
+        }
+
+        /**
+         * Returns the factory of the row query.
+         * 
+         * @return the row query factory, null if none
+         */
+        public IQueryFactory getRowQueryFactory( )
+        {
+            return _rowQueryFactory;
+        }
+
+        /**
+         * Returns false if the queries count the whole table of the entity class (see {@link CountContext#isWholeTable(CriteriaQuery, Class)}).
+         * 
+         * @return true if restricted
+         */
+        public boolean isRestricted( )
+        {
+            return _bRestricted;
+        }
+
+        /**
+         * Returns a factory creating a criteria query.
+         * 
+         * @param criteriaQuery
+         *            the criteria query, may be null
+         * @return the factory, null if no query
+         */
+        private static IQueryFactory createFactory( final CriteriaQuery<?> criteriaQuery )
+        {
+            if ( criteriaQuery == null )
+            {
+                return null;
+            }
+
+            return new IQueryFactory( )
+            {
+                public Query createQuery( EntityManager em )
+                {
+                    return em.createQuery( criteriaQuery );
+                }
+            };
+        }
+
+        /**
+         * Returns a factory creating a named query.
+         * 
+         * @param strName
+         *            the name of the query
+         * @return the factory
+         */
+        private static IQueryFactory createFactory( final String strName )
+        {
+            return new IQueryFactory( )
+            {
+                public Query createQuery( EntityManager em )
+                {
+                    return em.createNamedQuery( strName );
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Listener collecting the statistics of the queries, by entity class and shape : latency histograms of the count and of the page, rows returned and
+ * first result offsets. The histograms have power of two buckets in microseconds, so recording a query allocates nothing once its shape is known.
+ */
+public class QueryStatisticsListener implements IQueryListener
+{
+    private static final String NO_SHAPE = "";
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, ShapeStatistics>> _mapStatistics = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, ShapeStatistics>>( );
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onQuery( Class<?> entityClass, String strShape, long lCountNanos, long lPageNanos, int nRows, int nFirstResult )
+    {
+        getOrCreate( entityClass, ( strShape == null ) ? NO_SHAPE : strShape ).record( lCountNanos, lPageNanos, nRows, nFirstResult );
+    }
+
+    /**
+     * Returns the statistics of a shape.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @param strShape
+     *            the shape, null for the queries without key
+     * @return the statistics, null if no query of this shape has been run
+     */
+    public ShapeStatistics getStatistics( Class<?> entityClass, String strShape )
+    {
+        Map<String, ShapeStatistics> mapShapes = _mapStatistics.get( entityClass );
+
+        return ( mapShapes == null ) ? null : mapShapes.get( ( strShape == null ) ? NO_SHAPE : strShape );
+    }
+
+    /**
+     * Returns the statistics of all the shapes of an entity class.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @return the statistics by shape (the empty shape for the queries without key)
+     */
+    public Map<String, ShapeStatistics> getStatistics( Class<?> entityClass )
+    {
+        Map<String, ShapeStatistics> mapShapes = _mapStatistics.get( entityClass );
+
+        return ( mapShapes == null ) ? new ConcurrentHashMap<String, ShapeStatistics>( ) : mapShapes;
+    }
+
+    /**
+     * Clears the statistics.
+     */
+    public void reset( )
+    {
+        _mapStatistics.clear( );
+    }
+
+    /**
+     * Returns the statistics of a shape, created if needed.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @param strShape
+     *            the shape
+     * @return the statistics
+     */
+    private ShapeStatistics getOrCreate( Class<?> entityClass, String strShape )
+    {
+        ConcurrentMap<String, ShapeStatistics> mapShapes = _mapStatistics.get( entityClass );
+        if ( mapShapes == null )
+        {
+            ConcurrentMap<String, ShapeStatistics> newShapes = new ConcurrentHashMap<String, ShapeStatistics>( );
+            mapShapes = _mapStatistics.putIfAbsent( entityClass, newShapes );
+            if ( mapShapes == null )
+            {
+                mapShapes = newShapes;
+            }
+        }
+        ShapeStatistics statistics = mapShapes.get( strShape );
+        if ( statistics == null )
+        {
+            ShapeStatistics newStatistics = new ShapeStatistics( );
+            statistics = mapShapes.putIfAbsent( strShape, newStatistics );
+            if ( statistics == null )
+            {
+                statistics = newStatistics;
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Statistics of the queries of a shape.
+     */
+    public static final class ShapeStatistics
+    {
+        private final LatencyHistogram _countHistogram = new LatencyHistogram( );
+        private final LatencyHistogram _pageHistogram = new LatencyHistogram( );
+        private final AtomicLong _lQueryCount = new AtomicLong( );
+        private final AtomicLong _lRowCount = new AtomicLong( );
+        private final AtomicLong _lMaxFirstResult = new AtomicLong( );
+
+        /**
+         * Records a query.
+         * 
+         * @param lCountNanos
+         *            duration of the count, -1 if not counted
+         * @param lPageNanos
+         *            duration of the page
+         * @param nRows
+         *            rows of the page
+         * @param nFirstResult
+         *            first result of the page
+         */
+        void record( long lCountNanos, long lPageNanos, int nRows, int nFirstResult )
+        {
+            _lQueryCount.incrementAndGet( );
+            if ( lCountNanos >= 0 )
+            {
+                _countHistogram.record( lCountNanos );
+            }
+            _pageHistogram.record( lPageNanos );
+            _lRowCount.addAndGet( nRows );
+            long lMax = _lMaxFirstResult.get( );
+            while ( nFirstResult > lMax && !_lMaxFirstResult.compareAndSet( lMax, nFirstResult ) )
+            {
+                lMax = _lMaxFirstResult.get( );
+            }
+        }
+
+        /**
+         * Returns the latency histogram of the counts.
+         * 
+         * @return the count histogram
+         */
+        public LatencyHistogram getCountHistogram( )
+        {
+            return _countHistogram;
+        }
+
+        /**
+         * Returns the latency histogram of the pages.
+         * 
+         * @return the page histogram
+         */
+        public LatencyHistogram getPageHistogram( )
+        {
+            return _pageHistogram;
+        }
+
+        /**
+         * Returns the number of queries.
+         * 
+         * @return the query count
+         */
+        public long getQueryCount( )
+        {
+            return _lQueryCount.get( );
+        }
+
+        /**
+         * Returns the total number of rows returned.
+         * 
+         * @return the row count
+         */
+        public long getRowCount( )
+        {
+            return _lRowCount.get( );
+        }
+
+        /**
+         * Returns the highest first result requested.
+         * 
+         * @return the max first result
+         */
+        public long getMaxFirstResult( )
+        {
+            return _lMaxFirstResult.get( );
+        }
+    }
+
+    /**
+     * Latency histogram with power of two buckets : the bucket i holds the durations from 2^(i-1) (inclusive) to 2^i (exclusive) microseconds.
+     */
+    public static final class LatencyHistogram
+    {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray _buckets = new AtomicLongArray( BUCKETS );
+        private final AtomicLong _lCount = new AtomicLong( );
+        private final AtomicLong _lTotalNanos = new AtomicLong( );
+
+        /**
+         * Records a duration.
+         * 
+         * @param lNanos
+         *            the duration, in nanoseconds
+         */
+        void record( long lNanos )
+        {
+            long lMicros = lNanos / 1000;
+            _buckets.incrementAndGet( BUCKETS - Long.numberOfLeadingZeros( lMicros ) );
+            _lCount.incrementAndGet( );
+            _lTotalNanos.addAndGet( lNanos );
+        }
+
+        /**
+         * Returns the number of durations recorded.
+         * 
+         * @return the count
+         */
+        public long getCount( )
+        {
+            return _lCount.get( );
+        }
+
+        /**
+         * Returns the mean duration.
+         * 
+         * @return the mean, in nanoseconds
+         */
+        public long getMeanNanos( )
+        {
+            long lCount = _lCount.get( );
+
+            return ( lCount == 0 ) ? 0 : _lTotalNanos.get( ) / lCount;
+        }
+
+        /**
+         * Returns an upper bound of a percentile of the durations : the upper limit of the bucket holding it.
+         * 
+         * @param dPercentile
+         *            the percentile, between 0 and 100
+         * @return the upper bound, in microseconds
+         */
+        public long getPercentileMicros( double dPercentile )
+        {
+            long [ ] counts = getBuckets( );
+            long lTotal = 0;
+            for ( long lBucketCount : counts )
+            {
+                lTotal += lBucketCount;
+            }
+            long lRank = (long) Math.ceil( lTotal * dPercentile / 100 );
+            long lSeen = 0;
+            for ( int i = 0; i < counts.length; i++ )
+            {
+                lSeen += counts [i];
+                if ( lSeen >= lRank && lSeen > 0 )
+                {
+                    return ( i == 0 ) ? 1 : ( 1L << Math.min( i, 62 ) );
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * Returns a snapshot of the buckets.
+         * 
+         * @return the count of each bucket
+         */
+        public long [ ] getBuckets( )
+        {
+            long [ ] counts = new long [ BUCKETS];
+            for ( int i = 0; i < BUCKETS; i++ )
+            {
+                counts [i] = _buckets.get( i );
+            }
+
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Listener logging the queries whose count and page took longer than a threshold (see property stock.dao.slowQueryLog.threshold, in milliseconds).
+ */
+public class SlowQueryLogListener implements IQueryListener
+{
+    private static final String PROPERTY_THRESHOLD = "stock.dao.slowQueryLog.threshold";
+    private static final int DEFAULT_THRESHOLD = 1000;
+    private static final Logger LOGGER = Logger.getLogger( SlowQueryLogListener.class );
+
+    private final long _lThresholdNanos;
+
+    /**
+     * Creates a new SlowQueryLogListener with the threshold of the properties.
+     */
+    public SlowQueryLogListener( )
+    {
+        this( AppPropertiesService.getPropertyInt( PROPERTY_THRESHOLD, DEFAULT_THRESHOLD ) );
+    }
+
+    /**
+     * Creates a new SlowQueryLogListener.
+     * 
+     * @param lThresholdMillis
+     *            the threshold, in milliseconds
+     */
+    public SlowQueryLogListener( long lThresholdMillis )
+    {
+        this._lThresholdNanos = TimeUnit.MILLISECONDS.toNanos( lThresholdMillis );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onQuery( Class<?> entityClass, String strShape, long lCountNanos, long lPageNanos, int nRows, int nFirstResult )
+    {
+        long lTotalNanos = Math.max( lCountNanos, 0 ) + lPageNanos;
+        if ( lTotalNanos >= _lThresholdNanos )
+        {
+            LOGGER.warn( "Requête lente sur " + entityClass.getName( ) + " (forme " + strShape + ") : " + TimeUnit.NANOSECONDS.toMillis( lTotalNanos )
+                    + " ms, dont comptage " + ( ( lCountNanos < 0 ) ? "-" : String.valueOf( TimeUnit.NANOSECONDS.toMillis( lCountNanos ) ) ) + " ms, "
+                    + nRows + " lignes à partir de " + nFirstResult );
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Estimator reading the statistics of the planner of the database with a native query, taking the table name as first parameter. The table name is read from
+ * the {@link Table} annotation of the entity, or is its simple name.
+ */
+public class TableStatisticsRowCountEstimator implements IRowCountEstimator
+{
+    /** Estimate of PostgreSQL, updated by ANALYZE and autovacuum */
+    public static final String SQL_POSTGRESQL = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = LOWER(?1) AND relkind = 'r'";
+
+    /** Estimate of MySQL/MariaDB (InnoDB) */
+    public static final String SQL_MYSQL = "SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?1";
+
+    private final String _strSql;
+
+    /**
+     * Creates a new TableStatisticsRowCountEstimator.
+     * 
+     * @param strSql
+     *            the native query returning the estimate, with the table name as first parameter (ie {@link #SQL_POSTGRESQL})
+     */
+    public TableStatisticsRowCountEstimator( String strSql )
+    {
+        this._strSql = strSql;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long estimate( EntityManager em, Class<?> entityClass )
+    {
+        List<?> listResults = em.createNativeQuery( _strSql ).setParameter( 1, getTableName( entityClass ) ).getResultList( );
+        if ( listResults.isEmpty( ) || !( listResults.get( 0 ) instanceof Number ) )
+        {
+            return -1;
+        }
+
+        return ( (Number) listResults.get( 0 ) ).longValue( );
+    }
+
+    /**
+     * Returns the table name of an entity.
+     * 
+     * @param entityClass
+     *            the entity class
+     * @return the table name
+     */
+    protected String getTableName( Class<?> entityClass )
+    {
+        Table table = entityClass.getAnnotation( Table.class );
+
+        return ( table == null || StringUtils.isEmpty( table.name( ) ) ) ? entityClass.getSimpleName( ) : table.name( );
+    }
+}
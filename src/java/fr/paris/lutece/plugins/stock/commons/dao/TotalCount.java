@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import fr.paris.lutece.plugins.stock.commons.ResultList.TotalResultType;
+
+/**
+ * Total number of results of a query, with its accuracy.
+ */
+public final class TotalCount
+{
+    private final long _lValue;
+
+    private final TotalResultType _type;
+
+    /**
+     * Creates a new TotalCount.
+     * 
+     * @param lValue
+     *            the number of results
+     * @param type
+     *            the accuracy of the number
+     */
+    public TotalCount( long lValue, TotalResultType type )
+    {
+        this._lValue = lValue;
+        this._type = type;
+    }
+
+    /**
+     * Returns an exact count.
+     * 
+     * @param lValue
+     *            the number of results
+     * @return the count
+     */
+    public static TotalCount exact( long lValue )
+    {
+        return new TotalCount( lValue, TotalResultType.EXACT );
+    }
+
+    /**
+     * Returns a capped count : there are at least this number of results.
+     * 
+     * @param lValue
+     *            the cap
+     * @return the count
+     */
+    public static TotalCount capped( long lValue )
+    {
+        return new TotalCount( lValue, TotalResultType.CAPPED );
+    }
+
+    /**
+     * Returns an estimated count.
+     * 
+     * @param lValue
+     *            the estimated number of results
+     * @return the count
+     */
+    public static TotalCount estimated( long lValue )
+    {
+        return new TotalCount( lValue, TotalResultType.ESTIMATED );
+    }
+
+    /**
+     * Returns the number of results.
+     * 
+     * @return the number of results
+     */
+    public long getValue( )
+    {
+        return _lValue;
+    }
+
+    /**
+     * Returns the accuracy of the number.
+     * 
+     * @return the accuracy
+     */
+    public TotalResultType getType( )
+    {
+        return _type;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return _lValue + " (" + _type + ")";
+    }
+}
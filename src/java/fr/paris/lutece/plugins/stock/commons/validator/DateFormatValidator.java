@@ -1,86 +1,86 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons.validator;
-
-import fr.paris.lutece.plugins.stock.commons.validator.annotation.DateFormat;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-
-import javax.validation.ConstraintValidator;
-import javax.validation.ConstraintValidatorContext;
-
-import org.apache.commons.lang3.StringUtils;
-
-/**
- * Check if a string match to the specified pattern
- * 
- * @author abataille
- */
-public class DateFormatValidator implements ConstraintValidator<DateFormat, String>
-{
-    private String format;
-    private SimpleDateFormat sdf;
-
-    /**
-     * {@inheritDoc}
-     */
-    public void initialize( DateFormat constraintAnnotation )
-    {
-        format = constraintAnnotation.format( );
-        sdf = new SimpleDateFormat( format );
-        sdf.setLenient( false );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public boolean isValid( String value, ConstraintValidatorContext context )
-    {
-        boolean valid = true;
-        if ( StringUtils.isNotEmpty( value ) )
-        {
-            try
-            {
-                sdf.parse( value );
-            }
-            catch( ParseException e )
-            {
-                valid = false;
-            }
-        }
-        return valid;
-    }
-
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.validator;
+
+import fr.paris.lutece.plugins.stock.commons.validator.annotation.DateFormat;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Check if a string match to the specified pattern
+ * 
+ * @author abataille
+ */
+public class DateFormatValidator implements ConstraintValidator<DateFormat, String>
+{
+    private String format;
+    private SimpleDateFormat sdf;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void initialize( DateFormat constraintAnnotation )
+    {
+        format = constraintAnnotation.format( );
+        sdf = new SimpleDateFormat( format );
+        sdf.setLenient( false );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isValid( String value, ConstraintValidatorContext context )
+    {
+        boolean valid = true;
+        if ( StringUtils.isNotEmpty( value ) )
+        {
+            try
+            {
+                sdf.parse( value );
+            }
+            catch( ParseException e )
+            {
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+}
@@ -1,90 +1,90 @@
-/*
- * Copyright (c) 2002-2021, City of Paris
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions
- * are met:
- *
- *  1. Redistributions of source code must retain the above copyright notice
- *     and the following disclaimer.
- *
- *  2. Redistributions in binary form must reproduce the above copyright notice
- *     and the following disclaimer in the documentation and/or other materials
- *     provided with the distribution.
- *
- *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
- *     contributors may be used to endorse or promote products derived from
- *     this software without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
- * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
- * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
- * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
- * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
- * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
- * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
- * POSSIBILITY OF SUCH DAMAGE.
- *
- * License 1.0
- */
-package fr.paris.lutece.plugins.stock.commons.validator;
-
-import fr.paris.lutece.plugins.stock.commons.validator.annotation.ListEmail;
-import fr.paris.lutece.portal.service.util.AppPropertiesService;
-
-import java.util.regex.Matcher;
-
-import javax.validation.ConstraintValidator;
-import javax.validation.ConstraintValidatorContext;
-
-import org.apache.commons.lang3.StringUtils;
-
-/**
- * Check if a string match to an email list
- * 
- * @author nmoitry
- */
-public class ListEmailValidator implements ConstraintValidator<ListEmail, String>
-{
-    private static final String ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~-]";
-    private static final String DOMAIN = "(" + ATOM + "+(\\." + ATOM + "+)*";
-    private static final String IP_DOMAIN = "\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\]";
-    private static final String PROPERTY_MAIL_SEPARATOR = "mail.list.separator";
-
-    private java.util.regex.Pattern pattern = java.util.regex.Pattern.compile( "^" + ATOM + "+(\\." + ATOM + "+)*@" + DOMAIN + "|" + IP_DOMAIN + ")$",
-            java.util.regex.Pattern.CASE_INSENSITIVE );
-
-    /**
-     * {@inheritDoc}
-     */
-    public void initialize( ListEmail constraintAnnotation )
-    {
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public boolean isValid( String value, ConstraintValidatorContext context )
-    {
-        boolean valid = true;
-        if ( StringUtils.isNotEmpty( value ) )
-        {
-            String [ ] listEmail = value.split( AppPropertiesService.getProperty( PROPERTY_MAIL_SEPARATOR ) );
-
-            for ( String email : listEmail )
-            {
-                Matcher m = pattern.matcher( email.trim( ) );
-                if ( !m.matches( ) )
-                {
-                    valid = false;
-                }
-            }
-        }
-        return valid;
-    }
-
-}
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.validator;
+
+import fr.paris.lutece.plugins.stock.commons.validator.annotation.ListEmail;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.regex.Matcher;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Check if a string match to an email list
+ * 
+ * @author nmoitry
+ */
+public class ListEmailValidator implements ConstraintValidator<ListEmail, String>
+{
+    private static final String ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~-]";
+    private static final String DOMAIN = "(" + ATOM + "+(\\." + ATOM + "+)*";
+    private static final String IP_DOMAIN = "\\[[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\]";
+    private static final String PROPERTY_MAIL_SEPARATOR = "mail.list.separator";
+
+    private java.util.regex.Pattern pattern = java.util.regex.Pattern.compile( "^" + ATOM + "+(\\." + ATOM + "+)*@" + DOMAIN + "|" + IP_DOMAIN + ")$",
+            java.util.regex.Pattern.CASE_INSENSITIVE );
+
+    /**
+     * {@inheritDoc}
+     */
+    public void initialize( ListEmail constraintAnnotation )
+    {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isValid( String value, ConstraintValidatorContext context )
+    {
+        boolean valid = true;
+        if ( StringUtils.isNotEmpty( value ) )
+        {
+            String [ ] listEmail = value.split( AppPropertiesService.getProperty( PROPERTY_MAIL_SEPARATOR ) );
+
+            for ( String email : listEmail )
+            {
+                Matcher m = pattern.matcher( email.trim( ) );
+                if ( !m.matches( ) )
+                {
+                    valid = false;
+                }
+            }
+        }
+        return valid;
+    }
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.dozer;
+
+import fr.paris.lutece.plugins.stock.commons.AbstractDTO;
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+import fr.paris.lutece.plugins.stock.utils.mapper.StockMappers;
+import fr.paris.lutece.portal.service.init.StartUpService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.dozer.Mapper;
+import org.dozer.MappingException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Service de démarrage préchauffant les mappings Dozer : les sous classes concrètes de {@link AbstractDTO} des paquetages
+ * stock.dozer.warmUp.basePackages (fr.paris.lutece.plugins par défaut) sont recherchées dans le classpath, leur entité est déduite du paramètre de type, et
+ * chaque couple est mappé dans les deux sens, en parallèle (stock.dozer.warmUp.parallelism threads, le nombre de processeurs par défaut). Dozer construit
+ * ainsi au démarrage plutôt qu'à la première requête la class map de premier niveau de chaque couple : le DTO mappé étant vide, ses champs imbriqués sont
+ * null et ne sont pas parcourus, leurs class maps sont construites à leur premier mapping. Le préchauffage ne valide donc pas les mappings : une erreur
+ * sur un champ imbriqué n'apparaît qu'à l'exécution. Le temps de chaque mapping est tracé. Une erreur de mapping Dozer ({@link MappingException}) pendant
+ * le préchauffage arrête le démarrage par une {@link TechnicalException}. Les DTO sans constructeur public sans argument, ou dont le DTO vide est refusé
+ * par un convertisseur (toute autre exception), ne peuvent pas être préchauffés : ils sont ignorés avec un avertissement et seront mappés à leur première
+ * utilisation. Les couples ayant un mapper généré (voir {@link StockMappers}) ne passent pas par Dozer.<br>
+ * Le service doit être déclaré comme bean dans le contexte Spring du plugin utilisateur.
+ */
+public class DozerWarmUpService implements StartUpService
+{
+    private static final Logger LOGGER = Logger.getLogger( DozerWarmUpService.class );
+    private static final String PROPERTY_BASE_PACKAGES = "stock.dozer.warmUp.basePackages";
+    private static final String PROPERTY_PARALLELISM = "stock.dozer.warmUp.parallelism";
+    private static final String DEFAULT_BASE_PACKAGES = "fr.paris.lutece.plugins";
+    private static final String SEPARATOR_PACKAGES = ",";
+    private static final String THREAD_NAME_PREFIX = "stock-dozer-warmup-";
+    private static final String NAME = "Stock Dozer warm-up";
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName( )
+    {
+        return NAME;
+    }
+
+    /**
+     * Préchauffe les mappings des DTO. {@inheritDoc}
+     */
+    public void process( )
+    {
+        long lStart = System.currentTimeMillis( );
+        Map<String, Long> mapTimes = warmUp( );
+        LOGGER.info( "Préchauffage Dozer : " + mapTimes.size( ) + " mappings en " + ( System.currentTimeMillis( ) - lStart ) + " ms" );
+    }
+
+    /**
+     * Préchauffe les mappings des DTO trouvés dans le classpath
+     * 
+     * @return le temps de chaque mapping préchauffé en millisecondes, par couple DTO / entité. Les mappings ignorés n'y figurent pas
+     * @throws TechnicalException
+     *             à la première erreur de mapping Dozer
+     */
+    public Map<String, Long> warmUp( )
+    {
+        ClassLoader classLoader = Thread.currentThread( ).getContextClassLoader( );
+        Map<Class<?>, Class<?>> mapMappings = findMappings( classLoader );
+        Map<String, Long> mapTimes = new LinkedHashMap<String, Long>( );
+        if ( mapMappings.isEmpty( ) )
+        {
+            return mapTimes;
+        }
+
+        int nParallelism = AppPropertiesService.getPropertyInt( PROPERTY_PARALLELISM, Runtime.getRuntime( ).availableProcessors( ) );
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( nParallelism, mapMappings.size( ) ) ),
+                createThreadFactory( classLoader ) );
+        try
+        {
+            CompletionService<Map.Entry<String, Long>> completionService = new ExecutorCompletionService<Map.Entry<String, Long>>( executor );
+            for ( final Map.Entry<Class<?>, Class<?>> mapping : mapMappings.entrySet( ) )
+            {
+                completionService.submit( new Callable<Map.Entry<String, Long>>( )
+                {
+                    public Map.Entry<String, Long> call( )
+                    {
+                        Long lTime = warmUp( mapping.getKey( ), mapping.getValue( ) );
+
+                        return new AbstractMap.SimpleImmutableEntry<String, Long>( getMappingName( mapping.getKey( ), mapping.getValue( ) ), lTime );
+                    }
+                } );
+            }
+            for ( int i = 0; i < mapMappings.size( ); i++ )
+            {
+                Map.Entry<String, Long> time = waitFor( completionService.take( ) );
+                if ( time.getValue( ) != null )
+                {
+                    LOGGER.info( "Préchauffage Dozer : " + time.getKey( ) + " en " + time.getValue( ) + " ms" );
+                    mapTimes.put( time.getKey( ), time.getValue( ) );
+                }
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new TechnicalException( "Préchauffage des mappings Dozer interrompu", e );
+        }
+        finally
+        {
+            executor.shutdownNow( );
+        }
+
+        return mapTimes;
+    }
+
+    /**
+     * Recherche les DTO concrets des paquetages configurés, et leur entité
+     * 
+     * @param classLoader
+     *            le class loader des DTO
+     * @return les entités par DTO
+     * @throws TechnicalException
+     *             si la classe d'un DTO ne peut pas être chargée
+     */
+    private static Map<Class<?>, Class<?>> findMappings( ClassLoader classLoader )
+    {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider( false );
+        scanner.addIncludeFilter( new AssignableTypeFilter( AbstractDTO.class ) );
+
+        Map<Class<?>, Class<?>> mapMappings = new LinkedHashMap<Class<?>, Class<?>>( );
+        for ( String strPackage : AppPropertiesService.getProperty( PROPERTY_BASE_PACKAGES, DEFAULT_BASE_PACKAGES ).split( SEPARATOR_PACKAGES ) )
+        {
+            for ( BeanDefinition candidate : scanner.findCandidateComponents( strPackage.trim( ) ) )
+            {
+                Class<?> dtoClass;
+                try
+                {
+                    dtoClass = ClassUtils.forName( candidate.getBeanClassName( ), classLoader );
+                }
+                catch( ClassNotFoundException | LinkageError e )
+                {
+                    throw new TechnicalException( "Problème lors du chargement du DTO " + candidate.getBeanClassName( ), e );
+                }
+                Class<?> entityClass = GenericTypeResolver.resolveTypeArgument( dtoClass, AbstractDTO.class );
+                if ( entityClass == null )
+                {
+                    LOGGER.warn( "Préchauffage Dozer : entité du DTO " + dtoClass.getName( ) + " non déterminée, mapping ignoré" );
+                }
+                else
+                {
+                    mapMappings.put( dtoClass, entityClass );
+                }
+            }
+        }
+
+        return mapMappings;
+    }
+
+    /**
+     * Mappe un DTO vide vers son entité puis l'entité obtenue vers le DTO. Seule la class map de premier niveau est construite, les champs imbriqués null
+     * n'étant pas parcourus. Un DTO qui ne peut pas être instancié sans argument, ou dont le DTO vide est refusé par un convertisseur, est ignoré
+     * 
+     * @param dtoClass
+     *            la classe du DTO
+     * @param entityClass
+     *            la classe de l'entité
+     * @return le temps du mapping en millisecondes, null si le mapping est ignoré
+     * @throws TechnicalException
+     *             si Dozer ne peut pas mapper le DTO vide
+     */
+    private static Long warmUp( Class<?> dtoClass, Class<?> entityClass )
+    {
+        long lStart = System.nanoTime( );
+        if ( StockMappers.find( dtoClass, entityClass ) == null )
+        {
+            Object dto;
+            try
+            {
+                dto = dtoClass.getConstructor( ).newInstance( );
+            }
+            catch( ReflectiveOperationException | RuntimeException e )
+            {
+                LOGGER.warn( "Préchauffage Dozer : le DTO " + dtoClass.getName( ) + " ne peut pas être instancié sans argument, mapping ignoré", e );
+
+                return null;
+            }
+            try
+            {
+                Mapper mapper = MapperProvider.getMapper( );
+                Object entity = mapper.map( dto, entityClass );
+                mapper.map( entity, dtoClass );
+            }
+            catch( MappingException e )
+            {
+                throw new TechnicalException( "Problème lors du préchauffage du mapping Dozer " + getMappingName( dtoClass, entityClass ), e );
+            }
+            catch( RuntimeException e )
+            {
+                // Dozer ne transforme pas les exceptions des convertisseurs en MappingException
+                LOGGER.warn( "Préchauffage Dozer : DTO vide refusé par un convertisseur du mapping " + getMappingName( dtoClass, entityClass )
+                        + ", mapping ignoré", e );
+
+                return null;
+            }
+        }
+
+        return ( System.nanoTime( ) - lStart ) / 1000000L;
+    }
+
+    /**
+     * Attend le préchauffage d'un mapping
+     * 
+     * @param future
+     *            le préchauffage
+     * @return le nom du mapping et son temps
+     * @throws InterruptedException
+     *             si l'attente est interrompue
+     */
+    private static Map.Entry<String, Long> waitFor( Future<Map.Entry<String, Long>> future ) throws InterruptedException
+    {
+        try
+        {
+            return future.get( );
+        }
+        catch( ExecutionException e )
+        {
+            if ( e.getCause( ) instanceof TechnicalException )
+            {
+                throw (TechnicalException) e.getCause( );
+            }
+            throw new TechnicalException( "Problème lors du préchauffage des mappings Dozer", e.getCause( ) );
+        }
+    }
+
+    /**
+     * Retourne le nom d'un mapping
+     * 
+     * @param dtoClass
+     *            la classe du DTO
+     * @param entityClass
+     *            la classe de l'entité
+     * @return le nom
+     */
+    private static String getMappingName( Class<?> dtoClass, Class<?> entityClass )
+    {
+        return dtoClass.getName( ) + " <-> " + entityClass.getName( );
+    }
+
+    /**
+     * Crée la fabrique des threads de préchauffage
+     * 
+     * @param classLoader
+     *            le class loader des DTO, utilisé par Dozer pour charger les classes
+     * @return la fabrique
+     */
+    private static ThreadFactory createThreadFactory( final ClassLoader classLoader )
+    {
+        final AtomicInteger threadNumber = new AtomicInteger( );
+
+        return new ThreadFactory( )
+        {
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet( ) );
+                thread.setDaemon( true );
+                thread.setContextClassLoader( classLoader );
+
+                return thread;
+            }
+        };
+    }
+}
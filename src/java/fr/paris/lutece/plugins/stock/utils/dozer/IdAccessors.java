@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.dozer;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Lecture de l'id des objets par leur méthode getId( ), résolue une seule fois par classe en {@link MethodHandle}. L'id est lu comme un long, sans passer par
+ * une chaîne : les ids entiers sont élargis, les ids objets sont convertis (un id null vaut 0).
+ */
+public final class IdAccessors
+{
+    private static final String METHOD_GET_ID = "getId";
+    private static final long NULL_ID = 0L;
+    private static final MethodType TYPE_PRIMITIVE = MethodType.methodType( long.class, Object.class );
+    private static final MethodType TYPE_OBJECT = MethodType.methodType( Object.class, Object.class );
+    private static final MethodHandle TO_LONG;
+
+    private static final ClassValue<MethodHandle> ACCESSORS = new ClassValue<MethodHandle>( )
+    {
+        @Override
+        protected MethodHandle computeValue( Class<?> type )
+        {
+            return createAccessor( type );
+        }
+    };
+
+    static
+    {
+        try
+        {
+            TO_LONG = MethodHandles.lookup( ).findStatic( IdAccessors.class, "toLong", MethodType.methodType( long.class, Object.class ) );
+        }
+        catch( ReflectiveOperationException e )
+        {
+            throw new ExceptionInInitializerError( e );
+        }
+    }
+
+    /**
+     * Constructeur
+     */
+    private IdAccessors( )
+    {
+
+    }
+
+    /**
+     * Retourne l'id d'un objet
+     * 
+     * @param bean
+     *            l'objet, non null
+     * @return l'id, 0 si l'id est null
+     * @throws TechnicalException
+     *             si la classe de l'objet n'a pas de méthode getId( ) publique ou si l'id n'est pas numérique
+     */
+    public static long getId( Object bean )
+    {
+        MethodHandle accessor = ACCESSORS.get( bean.getClass( ) );
+        try
+        {
+            return (long) accessor.invokeExact( bean );
+        }
+        catch( RuntimeException | Error e )
+        {
+            throw e;
+        }
+        catch( Throwable e )
+        {
+            throw new TechnicalException( "Problème lors de la lecture de l'id d'un " + bean.getClass( ), e );
+        }
+    }
+
+    /**
+     * Crée l'accesseur de l'id d'une classe
+     * 
+     * @param type
+     *            la classe
+     * @return l'accesseur, de type (Object) long
+     * @throws TechnicalException
+     *             si la classe n'a pas de méthode getId( ) publique
+     */
+    private static MethodHandle createAccessor( Class<?> type )
+    {
+        try
+        {
+            Method method = type.getMethod( METHOD_GET_ID );
+            if ( !Modifier.isPublic( method.getDeclaringClass( ).getModifiers( ) ) )
+            {
+                method.setAccessible( true );
+            }
+            MethodHandle getter = MethodHandles.lookup( ).unreflect( method );
+            Class<?> idType = method.getReturnType( );
+            if ( idType.isPrimitive( ) && idType != boolean.class && idType != void.class && idType != float.class && idType != double.class )
+            {
+                return getter.asType( TYPE_PRIMITIVE );
+            }
+
+            return MethodHandles.filterReturnValue( getter.asType( TYPE_OBJECT ), TO_LONG );
+        }
+        catch( NoSuchMethodException e )
+        {
+            throw new TechnicalException( "Problème lors de la lecture de l'id d'un " + type + " : pas de méthode getId( ) publique", e );
+        }
+        catch( IllegalAccessException e )
+        {
+            throw new TechnicalException( "Problème lors de la lecture de l'id d'un " + type, e );
+        }
+    }
+
+    /**
+     * Convertit un id objet en long
+     * 
+     * @param id
+     *            l'id
+     * @return l'id en long, 0 si l'id est null
+     * @throws TechnicalException
+     *             si l'id n'est pas numérique
+     */
+    @SuppressWarnings( "unused" )
+    private static long toLong( Object id )
+    {
+        if ( id == null )
+        {
+            return NULL_ID;
+        }
+        if ( id instanceof Number )
+        {
+            return ( (Number) id ).longValue( );
+        }
+
+        try
+        {
+            return Long.parseLong( id.toString( ) );
+        }
+        catch( NumberFormatException e )
+        {
+            throw new TechnicalException( "Problème lors de la lecture de l'id : " + id + " n'est pas numérique", e );
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.dozer;
+
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+
+import org.dozer.Mapper;
+
+/**
+ * Fournit le mapper Dozer aux DTO. Le bean "mapper" est cherché une seule fois dans le contexte Spring, au premier appel, puis partagé : l'instanciation d'un
+ * DTO ne fait plus de recherche dans le contexte. Le mapper peut aussi être injecté, ie pour créer des DTO hors d'un contexte Spring.
+ */
+public final class MapperProvider
+{
+    private static final String BEAN_MAPPER = "mapper";
+
+    private static volatile Mapper _mapper;
+
+    /**
+     * Constructeur
+     */
+    private MapperProvider( )
+    {
+
+    }
+
+    /**
+     * Retourne le mapper, cherché dans le contexte Spring au premier appel s'il n'a pas été injecté
+     * 
+     * @return le mapper
+     */
+    public static Mapper getMapper( )
+    {
+        Mapper mapper = _mapper;
+        if ( mapper == null )
+        {
+            synchronized( MapperProvider.class )
+            {
+                mapper = _mapper;
+                if ( mapper == null )
+                {
+                    mapper = (Mapper) SpringContextService.getBean( BEAN_MAPPER );
+                    _mapper = mapper;
+                }
+            }
+        }
+
+        return mapper;
+    }
+
+    /**
+     * Injecte le mapper
+     * 
+     * @param mapper
+     *            le mapper, null pour le chercher à nouveau dans le contexte Spring au prochain appel (ie après le rechargement du contexte)
+     */
+    public static void setMapper( Mapper mapper )
+    {
+        _mapper = mapper;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.dozer;
+
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+
+import org.dozer.CustomConverter;
+import org.dozer.DozerBeanMapper;
+import org.dozer.Mapper;
+
+/**
+ * Vérifie qu'un mapper Dozer et ses convertisseurs peuvent être utilisés par plusieurs threads à la fois. Sont acceptés {@link DozerBeanMapper}, thread safe
+ * une fois initialisé, et les classes annotées avec {@link ThreadSafe}. Les convertisseurs déclarés par leur classe dans les fichiers de mapping ne sont pas
+ * vérifiés.
+ */
+public final class MapperThreadSafety
+{
+
+    /**
+     * Constructeur
+     */
+    private MapperThreadSafety( )
+    {
+
+    }
+
+    /**
+     * Vérifie qu'un mapper et ses convertisseurs sont thread safe
+     * 
+     * @param mapper
+     *            le mapper
+     * @throws TechnicalException
+     *             si le mapper ou l'un de ses convertisseurs n'est pas déclaré thread safe
+     */
+    public static void check( Mapper mapper )
+    {
+        check( mapper, "le mapper" );
+        if ( mapper instanceof DozerBeanMapper )
+        {
+            DozerBeanMapper dozerMapper = (DozerBeanMapper) mapper;
+            for ( CustomConverter converter : dozerMapper.getCustomConverters( ) )
+            {
+                check( converter, "le convertisseur" );
+            }
+            for ( CustomConverter converter : dozerMapper.getCustomConvertersWithId( ).values( ) )
+            {
+                check( converter, "le convertisseur" );
+            }
+        }
+    }
+
+    /**
+     * Indique si un objet est déclaré thread safe
+     * 
+     * @param object
+     *            le mapper ou le convertisseur
+     * @return true si l'objet est thread safe
+     */
+    public static boolean isThreadSafe( Object object )
+    {
+        return object == null || object.getClass( ) == DozerBeanMapper.class || object.getClass( ).isAnnotationPresent( ThreadSafe.class );
+    }
+
+    /**
+     * Vérifie qu'un objet est déclaré thread safe
+     * 
+     * @param object
+     *            le mapper ou le convertisseur
+     * @param strRole
+     *            le rôle de l'objet, pour le message d'erreur
+     */
+    private static void check( Object object, String strRole )
+    {
+        if ( !isThreadSafe( object ) )
+        {
+            throw new TechnicalException( "Conversion parallèle impossible : " + strRole + " " + object.getClass( ).getName( )
+                    + " n'est pas déclaré thread safe (@ThreadSafe)" );
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.mapper;
+
+/**
+ * Demande la génération à la compilation d'un mapper entre le DTO annoté et son entité, utilisé à la place de Dozer par
+ * {@link fr.paris.lutece.plugins.stock.commons.AbstractDTO#map(Class)} et {@link StockMappers}. Voir {@link StockMapperProcessor} pour les propriétés
+ * supportées. À réserver aux couples mappés par défaut par Dozer : les mappings de champs déclarés dans la configuration Dozer ne sont pas repris.<br>
+ * Un DTO annoté n'a pas à implémenter {@link fr.paris.lutece.plugins.stock.commons.AbstractDTO#convert()} : l'implémentation par défaut convertit le DTO
+ * avec le mapper généré, avec Dozer s'il n'a pas été généré. L'annotation est donc conservée à l'exécution.
+ */
+@java.lang.annotation.Documented
+@java.lang.annotation.Target( value = {
+        java.lang.annotation.ElementType.TYPE
+} )
+@java.lang.annotation.Retention( value = java.lang.annotation.RetentionPolicy.RUNTIME )
+public @interface GenerateMapper
+{
+
+    /**
+     * Classe de l'entité du DTO, qui doit être le type converti par le DTO
+     * 
+     * @return la classe de l'entité
+     */
+    Class<?> entity( );
+}
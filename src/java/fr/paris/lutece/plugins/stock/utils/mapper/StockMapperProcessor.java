@@ -0,0 +1,646 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.mapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Processeur d'annotations générant les mappers des DTO annotés avec {@link GenerateMapper}. Pour chaque DTO, la classe &lt;DTO&gt;_StockMapper est générée
+ * dans le paquetage du DTO si toutes les propriétés de même nom du DTO et de l'entité sont supportées, dans les deux sens. Sinon rien n'est généré, une note
+ * de compilation en donne la raison, et le couple reste converti par Dozer.<br>
+ * Propriétés supportées :
+ * <ul>
+ * <li>types identiques : primitifs, wrappers, String, BigDecimal, BigInteger et énumérations sont copiés, les dates sont clonées ;</li>
+ * <li>Integer vers {@link fr.paris.lutece.plugins.stock.utils.EntityBean} et inversement, avec la sémantique de
+ * {@link fr.paris.lutece.plugins.stock.utils.dozer.CustomIdDozerConverter} ;</li>
+ * <li>DTO vers entité et inversement, par {@link StockMappers#mapReference(Object, Class)}.</li>
+ * </ul>
+ * Les mappers générés ne suivent pas les objets déjà convertis : un DTO dont les références mènent, par d'autres DTO annotés, à lui-même (A.b et B.a par
+ * exemple) n'a pas de mapper généré, la conversion d'un graphe circulaire ne se terminant pas. Dozer, qui gère ces graphes, reste utilisé.<br>
+ * L'entité déclarée par l'annotation doit être le type converti par le DTO (le paramètre de AbstractDTO), l'implémentation par défaut de
+ * {@link fr.paris.lutece.plugins.stock.commons.AbstractDTO#convert()} la retournant : sinon la compilation échoue.<br>
+ * Le processeur n'est pas déclaré comme service dans la librairie : il doit être indiqué au compilateur des projets qui l'utilisent (option -processor de
+ * javac ou annotationProcessors du maven-compiler-plugin).
+ */
+@SupportedAnnotationTypes( "fr.paris.lutece.plugins.stock.utils.mapper.GenerateMapper" )
+public class StockMapperProcessor extends AbstractProcessor
+{
+    private static final String CLASS_ABSTRACT_DTO = "fr.paris.lutece.plugins.stock.commons.AbstractDTO";
+    private static final String CLASS_ENTITY_BEAN = "fr.paris.lutece.plugins.stock.utils.EntityBean";
+    private static final String CLASS_INTEGER = "java.lang.Integer";
+    private static final String CLASS_OBJECT = "java.lang.Object";
+    private static final String METHOD_CONVERT = "convert";
+    private static final Set<String> VALUE_TYPES = new HashSet<String>( Arrays.asList( "java.lang.String", "java.lang.Boolean", "java.lang.Character",
+            "java.lang.Byte", "java.lang.Short", CLASS_INTEGER, "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.math.BigDecimal",
+            "java.math.BigInteger" ) );
+    private static final Set<String> DATE_TYPES = new HashSet<String>( Arrays.asList( "java.util.Date", "java.sql.Date", "java.sql.Time", "java.sql.Timestamp" ) );
+    private static final String INDENT = "        ";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion( )
+    {
+        return SourceVersion.latestSupported( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv )
+    {
+        for ( Element element : roundEnv.getElementsAnnotatedWith( GenerateMapper.class ) )
+        {
+            if ( element.getKind( ) != ElementKind.CLASS || ( (TypeElement) element ).getNestingKind( ) != NestingKind.TOP_LEVEL )
+            {
+                processingEnv.getMessager( ).printMessage( Diagnostic.Kind.ERROR, "@GenerateMapper : seules les classes de premier niveau sont supportées",
+                        element );
+                continue;
+            }
+            TypeElement dto = (TypeElement) element;
+            Types types = processingEnv.getTypeUtils( );
+            if ( !types.isAssignable( types.erasure( dto.asType( ) ), types.erasure( getType( CLASS_ABSTRACT_DTO ) ) ) )
+            {
+                processingEnv.getMessager( ).printMessage( Diagnostic.Kind.ERROR, "@GenerateMapper : la classe doit étendre AbstractDTO", dto );
+                continue;
+            }
+            TypeElement entity = getEntity( dto );
+            TypeMirror convertedType = getConvertedType( dto );
+            if ( entity != null && !types.isAssignable( types.erasure( entity.asType( ) ), convertedType ) )
+            {
+                processingEnv.getMessager( ).printMessage( Diagnostic.Kind.ERROR,
+                        "@GenerateMapper : l'entité " + entity.getQualifiedName( ) + " n'est pas du type converti par le DTO (" + convertedType + ")", dto );
+                continue;
+            }
+            generate( dto, entity );
+        }
+
+        return true;
+    }
+
+    /**
+     * Génère le mapper d'un DTO, si toutes ses propriétés sont supportées
+     * 
+     * @param dto
+     *            le DTO
+     * @param entity
+     *            l'entité
+     */
+    private void generate( TypeElement dto, TypeElement entity )
+    {
+        StringBuilder sbToEntity = new StringBuilder( );
+        StringBuilder sbToDTO = new StringBuilder( );
+        String strError = checkInstantiable( dto );
+        if ( strError == null )
+        {
+            strError = checkInstantiable( entity );
+        }
+        if ( strError == null )
+        {
+            strError = appendMappings( dto, entity, sbToEntity, null );
+        }
+        if ( strError == null )
+        {
+            strError = appendMappings( entity, dto, sbToDTO, null );
+        }
+        if ( strError == null )
+        {
+            strError = findCycle( dto, new ArrayList<TypeElement>( ), new HashSet<TypeElement>( ) );
+        }
+        if ( strError != null )
+        {
+            processingEnv.getMessager( ).printMessage( Diagnostic.Kind.NOTE,
+                    "Mapper non généré pour " + dto.getQualifiedName( ) + " : " + strError + ", la conversion reste faite par Dozer", dto );
+
+            return;
+        }
+
+        String strPackage = processingEnv.getElementUtils( ).getPackageOf( dto ).getQualifiedName( ).toString( );
+        String strSimpleName = dto.getSimpleName( ) + StockMappers.SUFFIX;
+        String strDTO = dto.getQualifiedName( ).toString( );
+        String strEntity = entity.getQualifiedName( ).toString( );
+
+        StringBuilder sbSource = new StringBuilder( );
+        if ( !strPackage.isEmpty( ) )
+        {
+            sbSource.append( "package " ).append( strPackage ).append( ";\n\n" );
+        }
+        sbSource.append( "/**\n * Mapper entre " ).append( strDTO ).append( " et " ).append( strEntity ).append( ", généré par " )
+                .append( StockMapperProcessor.class.getName( ) ).append( ". Ne pas modifier.\n */\n" );
+        sbSource.append( "public final class " ).append( strSimpleName ).append( " implements " ).append( IStockMapper.class.getName( ) ).append( "<" )
+                .append( strDTO ).append( ", " ).append( strEntity ).append( ">\n{\n" );
+        sbSource.append( "    public Class<" ).append( strDTO ).append( "> getDTOClass( )\n    {\n        return " ).append( strDTO ).append( ".class;\n    }\n\n" );
+        sbSource.append( "    public Class<" ).append( strEntity ).append( "> getEntityClass( )\n    {\n        return " ).append( strEntity )
+                .append( ".class;\n    }\n\n" );
+        appendMethod( sbSource, "toEntity", strDTO, strEntity, sbToEntity );
+        sbSource.append( "\n" );
+        appendMethod( sbSource, "toDTO", strEntity, strDTO, sbToDTO );
+        sbSource.append( "}\n" );
+
+        try
+        {
+            JavaFileObject file = processingEnv.getFiler( ).createSourceFile( strPackage.isEmpty( ) ? strSimpleName : strPackage + "." + strSimpleName, dto );
+            Writer writer = file.openWriter( );
+            try
+            {
+                writer.write( sbSource.toString( ) );
+            }
+            finally
+            {
+                writer.close( );
+            }
+        }
+        catch( IOException e )
+        {
+            processingEnv.getMessager( ).printMessage( Diagnostic.Kind.ERROR, "Problème lors de l'écriture du mapper " + strSimpleName + " : " + e.getMessage( ),
+                    dto );
+        }
+    }
+
+    /**
+     * Écrit une méthode de conversion
+     * 
+     * @param sbSource
+     *            le source de la classe
+     * @param strMethod
+     *            le nom de la méthode
+     * @param strSource
+     *            la classe source
+     * @param strDest
+     *            la classe de destination
+     * @param sbMappings
+     *            les instructions de copie des propriétés
+     */
+    private static void appendMethod( StringBuilder sbSource, String strMethod, String strSource, String strDest, StringBuilder sbMappings )
+    {
+        sbSource.append( "    public " ).append( strDest ).append( " " ).append( strMethod ).append( "( " ).append( strSource ).append( " source )\n    {\n" );
+        sbSource.append( INDENT ).append( "if ( source == null )\n" ).append( INDENT ).append( "{\n" ).append( INDENT ).append( "    return null;\n" )
+                .append( INDENT ).append( "}\n" );
+        sbSource.append( INDENT ).append( strDest ).append( " dest = new " ).append( strDest ).append( "( );\n" );
+        sbSource.append( sbMappings );
+        sbSource.append( INDENT ).append( "return dest;\n    }\n" );
+    }
+
+    /**
+     * Ajoute les instructions de copie des propriétés de même nom d'une classe vers une autre
+     * 
+     * @param source
+     *            la classe source
+     * @param dest
+     *            la classe de destination
+     * @param sbMappings
+     *            les instructions
+     * @param setReferences
+     *            reçoit les DTO convertis par {@link StockMappers#mapReference(Object, Class)}, peut être null
+     * @return la raison pour laquelle une propriété n'est pas supportée, null si toutes le sont
+     */
+    private String appendMappings( TypeElement source, TypeElement dest, StringBuilder sbMappings, Set<TypeElement> setReferences )
+    {
+        Types types = processingEnv.getTypeUtils( );
+        Map<String, ExecutableElement> mapGetters = getAccessors( source, true );
+        Map<String, ExecutableElement> mapSetters = getAccessors( dest, false );
+        for ( Map.Entry<String, ExecutableElement> setter : mapSetters.entrySet( ) )
+        {
+            ExecutableElement getter = mapGetters.get( setter.getKey( ) );
+            if ( getter == null )
+            {
+                continue;
+            }
+            if ( setter.getValue( ) == null )
+            {
+                return "plusieurs setters pour la propriété " + setter.getKey( );
+            }
+            TypeMirror sourceType = ( (ExecutableType) types.asMemberOf( (DeclaredType) source.asType( ), getter ) ).getReturnType( );
+            TypeMirror destType = ( (ExecutableType) types.asMemberOf( (DeclaredType) dest.asType( ), setter.getValue( ) ) ).getParameterTypes( ).get( 0 );
+            String strStatement = getStatement( "source." + getter.getSimpleName( ) + "( )", "dest." + setter.getValue( ).getSimpleName( ), sourceType,
+                    destType );
+            if ( strStatement == null )
+            {
+                return "propriété " + setter.getKey( ) + " non supportée (" + sourceType + " vers " + destType + ")";
+            }
+            sbMappings.append( strStatement );
+            if ( setReferences != null )
+            {
+                addReference( sourceType, setReferences );
+                addReference( destType, setReferences );
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Ajoute un type aux DTO référencés s'il s'agit d'un DTO ayant un mapper généré
+     * 
+     * @param type
+     *            le type d'une propriété
+     * @param setReferences
+     *            les DTO référencés
+     */
+    private void addReference( TypeMirror type, Set<TypeElement> setReferences )
+    {
+        Types types = processingEnv.getTypeUtils( );
+        if ( type.getKind( ) == TypeKind.DECLARED && types.isAssignable( types.erasure( type ), types.erasure( getType( CLASS_ABSTRACT_DTO ) ) ) )
+        {
+            TypeElement element = (TypeElement) types.asElement( type );
+            if ( element.getAnnotation( GenerateMapper.class ) != null )
+            {
+                setReferences.add( element );
+            }
+        }
+    }
+
+    /**
+     * Cherche un cycle de références entre DTO ayant un mapper généré, à partir d'un DTO. Les DTO sans mapper généré sont convertis par Dozer, qui ne
+     * rappelle pas les mappers générés : ils terminent le parcours.
+     * 
+     * @param dto
+     *            le DTO
+     * @param listPath
+     *            les DTO en cours de parcours, depuis le DTO de départ
+     * @param setChecked
+     *            les DTO dont les références ont été parcourues sans trouver de cycle
+     * @return la description du cycle, null s'il n'y en a pas
+     */
+    private String findCycle( TypeElement dto, List<TypeElement> listPath, Set<TypeElement> setChecked )
+    {
+        TypeElement entity = getEntity( dto );
+        if ( entity == null || setChecked.contains( dto ) )
+        {
+            return null;
+        }
+        Set<TypeElement> setReferences = new LinkedHashSet<TypeElement>( );
+        appendMappings( dto, entity, new StringBuilder( ), setReferences );
+        appendMappings( entity, dto, new StringBuilder( ), setReferences );
+
+        listPath.add( dto );
+        for ( TypeElement reference : setReferences )
+        {
+            int nIndex = listPath.indexOf( reference );
+            if ( nIndex >= 0 )
+            {
+                StringBuilder sbCycle = new StringBuilder( "références circulaires entre DTO (" );
+                for ( TypeElement element : listPath.subList( nIndex, listPath.size( ) ) )
+                {
+                    sbCycle.append( element.getSimpleName( ) ).append( " -> " );
+                }
+
+                return sbCycle.append( reference.getSimpleName( ) ).append( ")" ).toString( );
+            }
+            String strCycle = findCycle( reference, listPath, setChecked );
+            if ( strCycle != null )
+            {
+                return strCycle;
+            }
+        }
+        listPath.remove( listPath.size( ) - 1 );
+        setChecked.add( dto );
+
+        return null;
+    }
+
+    /**
+     * Retourne l'instruction de copie d'une propriété
+     * 
+     * @param strGet
+     *            l'appel du getter
+     * @param strSet
+     *            le setter, sans les parenthèses
+     * @param sourceType
+     *            le type source
+     * @param destType
+     *            le type de destination
+     * @return l'instruction, null si la conversion n'est pas supportée
+     */
+    private String getStatement( String strGet, String strSet, TypeMirror sourceType, TypeMirror destType )
+    {
+        Types types = processingEnv.getTypeUtils( );
+        String strSourceType = getTypeName( sourceType );
+        String strDestType = getTypeName( destType );
+        if ( strSourceType == null || strDestType == null )
+        {
+            return null;
+        }
+
+        // Copie directe (avec boxing si besoin)
+        if ( isValueType( sourceType ) && types.isSameType( sourceType, destType ) || sourceType.getKind( ).isPrimitive( )
+                && types.isSameType( types.boxedClass( (PrimitiveType) sourceType ).asType( ), destType ) )
+        {
+            return INDENT + strSet + "( " + strGet + " );\n";
+        }
+        if ( destType.getKind( ).isPrimitive( ) && types.isSameType( types.boxedClass( (PrimitiveType) destType ).asType( ), sourceType ) )
+        {
+            return INDENT + "{\n" + INDENT + "    " + strSourceType + " value = " + strGet + ";\n" + INDENT + "    if ( value != null )\n" + INDENT + "    {\n"
+                    + INDENT + "        " + strSet + "( value );\n" + INDENT + "    }\n" + INDENT + "}\n";
+        }
+        // Dates, mutables
+        if ( DATE_TYPES.contains( strSourceType ) && types.isSameType( sourceType, destType ) )
+        {
+            return INDENT + "{\n" + INDENT + "    " + strSourceType + " value = " + strGet + ";\n" + INDENT + "    " + strSet + "( ( value == null ) ? null : ("
+                    + strSourceType + ") value.clone( ) );\n" + INDENT + "}\n";
+        }
+
+        TypeMirror entityBeanType = getType( CLASS_ENTITY_BEAN );
+        // Id vers entité : pas d'entité pour un id null ou négatif
+        if ( CLASS_INTEGER.equals( strSourceType ) && types.isAssignable( destType, entityBeanType ) )
+        {
+            TypeElement destElement = (TypeElement) types.asElement( destType );
+            if ( checkInstantiable( destElement ) != null )
+            {
+                return null;
+            }
+
+            return INDENT + "{\n" + INDENT + "    java.lang.Integer value = " + strGet + ";\n" + INDENT + "    " + strDestType + " entity = null;\n" + INDENT
+                    + "    if ( value != null && value > 0 )\n" + INDENT + "    {\n" + INDENT + "        entity = new " + strDestType + "( );\n" + INDENT
+                    + "        entity.setId( value );\n" + INDENT + "    }\n" + INDENT + "    " + strSet + "( entity );\n" + INDENT + "}\n";
+        }
+        // Entité vers id
+        if ( CLASS_INTEGER.equals( strDestType ) && types.isAssignable( sourceType, entityBeanType ) )
+        {
+            return INDENT + "{\n" + INDENT + "    " + strSourceType + " value = " + strGet + ";\n" + INDENT + "    " + strSet
+                    + "( ( value == null ) ? null : value.getId( ) );\n" + INDENT + "}\n";
+        }
+        // DTO vers entité et inversement
+        TypeMirror dtoType = types.erasure( getType( CLASS_ABSTRACT_DTO ) );
+        if ( sourceType.getKind( ) == TypeKind.DECLARED && destType.getKind( ) == TypeKind.DECLARED
+                && ( types.isAssignable( types.erasure( sourceType ), dtoType ) || types.isAssignable( types.erasure( destType ), dtoType ) ) )
+        {
+            return INDENT + strSet + "( " + StockMappers.class.getName( ) + ".mapReference( " + strGet + ", " + strDestType + ".class ) );\n";
+        }
+
+        return null;
+    }
+
+    /**
+     * Retourne les getters ou les setters publics d'une classe, par nom de propriété
+     * 
+     * @param type
+     *            la classe
+     * @param bGetters
+     *            true pour les getters, false pour les setters
+     * @return les accesseurs, la valeur est null pour les propriétés ayant plusieurs setters
+     */
+    private Map<String, ExecutableElement> getAccessors( TypeElement type, boolean bGetters )
+    {
+        Elements elements = processingEnv.getElementUtils( );
+        Map<String, ExecutableElement> mapAccessors = new LinkedHashMap<String, ExecutableElement>( );
+        for ( ExecutableElement method : ElementFilter.methodsIn( elements.getAllMembers( type ) ) )
+        {
+            Set<Modifier> modifiers = method.getModifiers( );
+            if ( !modifiers.contains( Modifier.PUBLIC ) || modifiers.contains( Modifier.STATIC )
+                    || CLASS_OBJECT.equals( ( (TypeElement) method.getEnclosingElement( ) ).getQualifiedName( ).toString( ) ) )
+            {
+                continue;
+            }
+            String strName = method.getSimpleName( ).toString( );
+            String strProperty = null;
+            if ( bGetters && method.getParameters( ).isEmpty( ) )
+            {
+                if ( strName.startsWith( "get" ) && method.getReturnType( ).getKind( ) != TypeKind.VOID )
+                {
+                    strProperty = strName.substring( 3 );
+                }
+                else if ( strName.startsWith( "is" ) && method.getReturnType( ).getKind( ) == TypeKind.BOOLEAN )
+                {
+                    strProperty = strName.substring( 2 );
+                }
+            }
+            else if ( !bGetters && method.getParameters( ).size( ) == 1 && strName.startsWith( "set" ) && method.getReturnType( ).getKind( ) == TypeKind.VOID )
+            {
+                strProperty = strName.substring( 3 );
+            }
+            if ( strProperty != null && !strProperty.isEmpty( ) )
+            {
+                String strKey = decapitalize( strProperty );
+                if ( !bGetters && mapAccessors.containsKey( strKey ) )
+                {
+                    mapAccessors.put( strKey, null );
+                }
+                else
+                {
+                    mapAccessors.put( strKey, method );
+                }
+            }
+        }
+
+        return mapAccessors;
+    }
+
+    /**
+     * Vérifie qu'une classe peut être instanciée par le mapper généré
+     * 
+     * @param type
+     *            la classe
+     * @return la raison pour laquelle elle ne peut pas l'être, null si elle peut l'être
+     */
+    private static String checkInstantiable( TypeElement type )
+    {
+        if ( type == null )
+        {
+            return "entité introuvable";
+        }
+        Set<Modifier> modifiers = type.getModifiers( );
+        if ( !modifiers.contains( Modifier.PUBLIC ) || modifiers.contains( Modifier.ABSTRACT ) )
+        {
+            return type.getQualifiedName( ) + " n'est pas une classe publique concrète";
+        }
+        if ( !type.getTypeParameters( ).isEmpty( ) )
+        {
+            return type.getQualifiedName( ) + " est générique";
+        }
+        if ( type.getNestingKind( ) != NestingKind.TOP_LEVEL && !modifiers.contains( Modifier.STATIC ) )
+        {
+            return type.getQualifiedName( ) + " est une classe interne";
+        }
+        for ( ExecutableElement constructor : ElementFilter.constructorsIn( type.getEnclosedElements( ) ) )
+        {
+            if ( constructor.getParameters( ).isEmpty( ) && constructor.getModifiers( ).contains( Modifier.PUBLIC ) )
+            {
+                return null;
+            }
+        }
+
+        return type.getQualifiedName( ) + " n'a pas de constructeur public sans argument";
+    }
+
+    /**
+     * Retourne l'entité déclarée par l'annotation d'un DTO
+     * 
+     * @param dto
+     *            le DTO
+     * @return l'entité, null si elle est introuvable
+     */
+    private TypeElement getEntity( TypeElement dto )
+    {
+        GenerateMapper annotation = dto.getAnnotation( GenerateMapper.class );
+        try
+        {
+            // Classe déjà compilée et chargeable par le processeur
+            return processingEnv.getElementUtils( ).getTypeElement( annotation.entity( ).getCanonicalName( ) );
+        }
+        catch( MirroredTypeException e )
+        {
+            TypeMirror entityType = e.getTypeMirror( );
+
+            return ( entityType.getKind( ) == TypeKind.DECLARED ) ? (TypeElement) processingEnv.getTypeUtils( ).asElement( entityType ) : null;
+        }
+    }
+
+    /**
+     * Retourne le type retourné par la méthode convert( ) d'un DTO, ie le paramètre de type de AbstractDTO
+     * 
+     * @param dto
+     *            le DTO
+     * @return le type converti, effacé
+     */
+    private TypeMirror getConvertedType( TypeElement dto )
+    {
+        Types types = processingEnv.getTypeUtils( );
+        for ( ExecutableElement method : ElementFilter.methodsIn( processingEnv.getElementUtils( ).getTypeElement( CLASS_ABSTRACT_DTO ).getEnclosedElements( ) ) )
+        {
+            if ( METHOD_CONVERT.equals( method.getSimpleName( ).toString( ) ) && method.getParameters( ).isEmpty( ) )
+            {
+                return types.erasure( ( (ExecutableType) types.asMemberOf( (DeclaredType) dto.asType( ), method ) ).getReturnType( ) );
+            }
+        }
+
+        return getType( CLASS_OBJECT );
+    }
+
+    /**
+     * Retourne le nom utilisable dans le source d'un type primitif ou d'une classe non générique
+     * 
+     * @param type
+     *            le type
+     * @return le nom, null pour les autres types
+     */
+    private static String getTypeName( TypeMirror type )
+    {
+        if ( type.getKind( ).isPrimitive( ) )
+        {
+            return type.getKind( ).name( ).toLowerCase( Locale.ROOT );
+        }
+        if ( type.getKind( ) == TypeKind.DECLARED && ( (DeclaredType) type ).getTypeArguments( ).isEmpty( ) )
+        {
+            return ( (TypeElement) ( (DeclaredType) type ).asElement( ) ).getQualifiedName( ).toString( );
+        }
+
+        return null;
+    }
+
+    /**
+     * Indique si un type est copié sans conversion : primitif, wrapper, String, nombre, énumération
+     * 
+     * @param type
+     *            le type
+     * @return true si le type est copié tel quel
+     */
+    private static boolean isValueType( TypeMirror type )
+    {
+        if ( type.getKind( ).isPrimitive( ) )
+        {
+            return true;
+        }
+        if ( type.getKind( ) != TypeKind.DECLARED )
+        {
+            return false;
+        }
+        Element element = ( (DeclaredType) type ).asElement( );
+
+        return element.getKind( ) == ElementKind.ENUM || VALUE_TYPES.contains( ( (TypeElement) element ).getQualifiedName( ).toString( ) );
+    }
+
+    /**
+     * Retourne le type d'une classe
+     * 
+     * @param strClassName
+     *            le nom de la classe
+     * @return le type
+     */
+    private TypeMirror getType( String strClassName )
+    {
+        return processingEnv.getElementUtils( ).getTypeElement( strClassName ).asType( );
+    }
+
+    /**
+     * Retourne le nom de propriété d'un accesseur, selon les règles des JavaBeans
+     * 
+     * @param strName
+     *            le nom sans préfixe
+     * @return le nom de la propriété
+     */
+    private static String decapitalize( String strName )
+    {
+        if ( strName.length( ) > 1 && Character.isUpperCase( strName.charAt( 0 ) ) && Character.isUpperCase( strName.charAt( 1 ) ) )
+        {
+            return strName;
+        }
+
+        return Character.toLowerCase( strName.charAt( 0 ) ) + strName.substring( 1 );
+    }
+}
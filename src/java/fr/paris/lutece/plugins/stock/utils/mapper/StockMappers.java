@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.mapper;
+
+import fr.paris.lutece.plugins.stock.commons.AbstractDTO;
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+import fr.paris.lutece.plugins.stock.utils.dozer.MapperProvider;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.dozer.Mapper;
+
+/**
+ * Conversions entre DTO et entités par les mappers générés par {@link StockMapperProcessor}, avec repli sur Dozer pour les couples sans mapper généré. Le
+ * mapper d'un couple est cherché une seule fois, par convention de nommage (&lt;DTO&gt;_StockMapper dans le paquetage du DTO).
+ */
+public final class StockMappers
+{
+    /** Suffixe des classes générées */
+    public static final String SUFFIX = "_StockMapper";
+
+    private static final Object NO_MAPPER = new Object( );
+
+    private static final ClassValue<ConcurrentMap<Class<?>, Object>> MAPPERS = new ClassValue<ConcurrentMap<Class<?>, Object>>( )
+    {
+        @Override
+        protected ConcurrentMap<Class<?>, Object> computeValue( Class<?> sourceClass )
+        {
+            return new ConcurrentHashMap<Class<?>, Object>( );
+        }
+    };
+
+    /**
+     * Constructeur
+     */
+    private StockMappers( )
+    {
+
+    }
+
+    /**
+     * Convertit un objet avec le mapper généré s'il existe, avec le mapper Dozer de {@link MapperProvider} sinon
+     * 
+     * @param <T>
+     *            le type de destination
+     * @param source
+     *            l'objet source
+     * @param destinationClass
+     *            la classe de destination
+     * @return l'objet converti, null si la source est null
+     */
+    public static <T> T map( Object source, Class<T> destinationClass )
+    {
+        return map( source, destinationClass, null );
+    }
+
+    /**
+     * Convertit un objet avec le mapper généré s'il existe, avec Dozer sinon
+     * 
+     * @param <T>
+     *            le type de destination
+     * @param source
+     *            l'objet source
+     * @param destinationClass
+     *            la classe de destination
+     * @param dozerMapper
+     *            le mapper Dozer de repli, celui de {@link MapperProvider} si null
+     * @return l'objet converti, null si la source est null
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T map( Object source, Class<T> destinationClass, Mapper dozerMapper )
+    {
+        if ( source == null )
+        {
+            return null;
+        }
+        IStockMapper<Object, Object> generatedMapper = (IStockMapper<Object, Object>) find( source.getClass( ), destinationClass );
+        if ( generatedMapper == null )
+        {
+            Mapper mapper = ( dozerMapper == null ) ? MapperProvider.getMapper( ) : dozerMapper;
+
+            return mapper.map( source, destinationClass );
+        }
+        if ( generatedMapper.getDTOClass( ) == source.getClass( ) )
+        {
+            return destinationClass.cast( generatedMapper.toEntity( source ) );
+        }
+
+        return destinationClass.cast( generatedMapper.toDTO( source ) );
+    }
+
+    /**
+     * Convertit une référence vers une autre entité ou un autre DTO, avec la sémantique de
+     * {@link fr.paris.lutece.plugins.stock.utils.dozer.CustomDTODozerConverter} : un DTO sans id ou d'id négatif n'est pas converti.
+     * 
+     * @param <T>
+     *            le type de destination
+     * @param source
+     *            l'objet source
+     * @param destinationClass
+     *            la classe de destination
+     * @return l'objet converti, null si la source est null ou est un DTO sans id
+     */
+    public static <T> T mapReference( Object source, Class<T> destinationClass )
+    {
+        if ( source instanceof AbstractDTO )
+        {
+            Integer nId = ( (AbstractDTO<?>) source ).getId( );
+            if ( nId == null || nId <= 0 )
+            {
+                return null;
+            }
+        }
+
+        return map( source, destinationClass );
+    }
+
+    /**
+     * Retourne le mapper généré entre deux classes
+     * 
+     * @param sourceClass
+     *            la classe source
+     * @param destinationClass
+     *            la classe de destination
+     * @return le mapper, null s'il n'y en a pas
+     */
+    public static IStockMapper<?, ?> find( Class<?> sourceClass, Class<?> destinationClass )
+    {
+        ConcurrentMap<Class<?>, Object> mapMappers = MAPPERS.get( sourceClass );
+        Object mapper = mapMappers.get( destinationClass );
+        if ( mapper == null )
+        {
+            mapper = load( sourceClass, destinationClass );
+            if ( mapper == null )
+            {
+                mapper = load( destinationClass, sourceClass );
+            }
+            if ( mapper == null )
+            {
+                mapper = NO_MAPPER;
+            }
+            mapMappers.putIfAbsent( destinationClass, mapper );
+        }
+
+        return ( mapper == NO_MAPPER ) ? null : (IStockMapper<?, ?>) mapper;
+    }
+
+    /**
+     * Charge le mapper généré d'un DTO
+     * 
+     * @param dtoClass
+     *            la classe du DTO supposé
+     * @param entityClass
+     *            la classe de l'entité supposée
+     * @return le mapper, null si le DTO n'a pas de mapper généré vers cette entité
+     */
+    private static IStockMapper<?, ?> load( Class<?> dtoClass, Class<?> entityClass )
+    {
+        if ( !AbstractDTO.class.isAssignableFrom( dtoClass ) )
+        {
+            return null;
+        }
+        Class<?> mapperClass;
+        try
+        {
+            mapperClass = Class.forName( dtoClass.getName( ) + SUFFIX, true, dtoClass.getClassLoader( ) );
+        }
+        catch( ClassNotFoundException e )
+        {
+            return null;
+        }
+        try
+        {
+            IStockMapper<?, ?> mapper = (IStockMapper<?, ?>) mapperClass.getConstructor( ).newInstance( );
+
+            return ( mapper.getEntityClass( ) == entityClass ) ? mapper : null;
+        }
+        catch( ReflectiveOperationException e )
+        {
+            throw new TechnicalException( "Problème lors de l'instanciation du mapper " + mapperClass.getName( ), e );
+        }
+    }
+}
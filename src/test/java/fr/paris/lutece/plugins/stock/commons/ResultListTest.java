@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Round trips of {@link ResultList} through its serialized format.
+ */
+public class ResultListTest
+{
+    private static final int CODEC_ID = 42;
+
+    /**
+     * Registers the codec of {@link CodedElement}.
+     */
+    @BeforeClass
+    public static void registerCodec( )
+    {
+        ElementCodecRegistry.register( CodedElement.class, CODEC_ID, new IElementCodec<CodedElement>( )
+        {
+            public void write( ObjectOutput out, CodedElement element ) throws IOException
+            {
+                out.writeInt( element._nId );
+                out.writeUTF( element._strName );
+            }
+
+            public CodedElement read( ObjectInput in ) throws IOException
+            {
+                return new CodedElement( in.readInt( ), in.readUTF( ) );
+            }
+        } );
+    }
+
+    /**
+     * A null element, an element written by its codec and an element written by Java serialization are read back in order, with the total result and
+     * its precision.
+     * 
+     * @throws Exception
+     *             if the round trip fails
+     */
+    @Test
+    public void testElements( ) throws Exception
+    {
+        ResultList<Object> list = new ResultList<Object>( );
+        list.add( null );
+        list.add( new CodedElement( 1, "coded" ) );
+        list.add( new BigDecimal( "12.50" ) );
+        list.setTotalResult( 1000 );
+        list.setTotalResultType( ResultList.TotalResultType.CAPPED );
+
+        ResultList<Object> read = roundTrip( list );
+
+        assertEquals( 3, read.size( ) );
+        assertNull( read.get( 0 ) );
+        CodedElement coded = (CodedElement) read.get( 1 );
+        assertEquals( 1, coded._nId );
+        assertEquals( "coded", coded._strName );
+        assertEquals( new BigDecimal( "12.50" ), read.get( 2 ) );
+        assertEquals( 1000, read.getTotalResult( ) );
+        assertEquals( ResultList.TotalResultType.CAPPED, read.getTotalResultType( ) );
+        assertFalse( read.hasMore( ) );
+        assertNull( read.getNextCursor( ) );
+    }
+
+    /**
+     * The has more flag and the next cursor are read back.
+     * 
+     * @throws Exception
+     *             if the round trip fails
+     */
+    @Test
+    public void testPaginationFlags( ) throws Exception
+    {
+        ResultList<Object> list = new ResultList<Object>( );
+        list.add( "first" );
+        list.setHasMore( true );
+        list.setNextCursor( "cursor-42" );
+        list.setTotalResultType( ResultList.TotalResultType.UNKNOWN );
+
+        ResultList<Object> read = roundTrip( list );
+
+        assertEquals( 1, read.size( ) );
+        assertEquals( "first", read.get( 0 ) );
+        assertTrue( read.hasMore( ) );
+        assertEquals( "cursor-42", read.getNextCursor( ) );
+        assertEquals( ResultList.TotalResultType.UNKNOWN, read.getTotalResultType( ) );
+    }
+
+    /**
+     * A list written with another format version is refused.
+     * 
+     * @throws Exception
+     *             if the stream can not be built
+     */
+    @Test( expected = InvalidObjectException.class )
+    public void testUnknownVersion( ) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( );
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeByte( 2 );
+        out.writeInt( 0 );
+        out.writeByte( 0 );
+        out.writeByte( 0 );
+        out.writeInt( 0 );
+        out.close( );
+
+        new ResultList<Object>( ).readExternal( new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray( ) ) ) );
+    }
+
+    /**
+     * Serializes and deserializes a list
+     * 
+     * @param list
+     *            the list
+     * @return the list read back
+     * @throws Exception
+     *             if the round trip fails
+     */
+    @SuppressWarnings( "unchecked" )
+    private static ResultList<Object> roundTrip( ResultList<Object> list ) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( );
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( list );
+        out.close( );
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray( ) ) );
+        try
+        {
+            return (ResultList<Object>) in.readObject( );
+        }
+        finally
+        {
+            in.close( );
+        }
+    }
+
+    /**
+     * Element written by its codec : not serializable, so that only the codec can write it.
+     */
+    private static final class CodedElement
+    {
+        private final int _nId;
+        private final String _strName;
+
+        /**
+         * Constructor
+         * 
+         * @param nId
+         *            the id
+         * @param strName
+         *            the name
+         */
+        CodedElement( int nId, String strName )
+        {
+            _nId = nId;
+            _strName = strName;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the counts of the queries built by {@link CountQueryOptimizer} with the number of distinct results of the criteria query counted, on an in
+ * memory database.
+ */
+public class CountQueryOptimizerTest
+{
+    private static EntityManagerFactory _emf;
+
+    private EntityManager _em;
+
+    private CriteriaBuilder _cb;
+
+    /**
+     * Creates the database : 5 products, 2 of them without category, 3 with offers.
+     */
+    @BeforeClass
+    public static void setUpDatabase( )
+    {
+        _emf = Persistence.createEntityManagerFactory( "stock-test" );
+        EntityManager em = _emf.createEntityManager( );
+        em.getTransaction( ).begin( );
+        TestCategory books = new TestCategory( 1, "books" );
+        TestCategory music = new TestCategory( 2, "music" );
+        TestProduct product1 = new TestProduct( 1, "product1", books );
+        TestProduct product2 = new TestProduct( 2, "product2", books );
+        TestProduct product3 = new TestProduct( 3, "product3", music );
+        Object [ ] entities = {
+                books, music, product1, product2, product3, new TestProduct( 4, "product4", null ), new TestProduct( 5, "product5", null ),
+                new TestOffer( 1, 5, product1 ), new TestOffer( 2, 0, product1 ), new TestOffer( 3, 3, product2 ), new TestOffer( 4, 1, product3 ),
+                new TestOffer( 5, 2, product3 ), new TestOffer( 6, 7, product3 )
+        };
+        for ( Object entity : entities )
+        {
+            em.persist( entity );
+        }
+        em.getTransaction( ).commit( );
+        em.close( );
+    }
+
+    /**
+     * Closes the database.
+     */
+    @AfterClass
+    public static void tearDownDatabase( )
+    {
+        _emf.close( );
+    }
+
+    /**
+     * Opens the entity manager of a test.
+     */
+    @Before
+    public void setUp( )
+    {
+        _em = _emf.createEntityManager( );
+        _cb = _em.getCriteriaBuilder( );
+    }
+
+    /**
+     * Closes the entity manager of a test.
+     */
+    @After
+    public void tearDown( )
+    {
+        _em.close( );
+    }
+
+    /**
+     * Whole table.
+     */
+    @Test
+    public void testWholeTable( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        query.select( query.from( TestProduct.class ) );
+
+        assertCount( 5, query );
+    }
+
+    /**
+     * Left fetch of a collection, dropped from the count.
+     */
+    @Test
+    public void testLeftFetchToMany( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.fetch( "offers", JoinType.LEFT );
+        query.select( root );
+
+        assertCount( 5, query );
+    }
+
+    /**
+     * Inner join of a to-one association, filtering the products without category.
+     */
+    @Test
+    public void testInnerJoinToOne( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.join( "category" );
+        query.select( root );
+
+        assertCount( 3, query );
+    }
+
+    /**
+     * Inner fetch of a to-one association, kept as a join.
+     */
+    @Test
+    public void testInnerFetchToOne( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.fetch( "category" );
+        query.select( root );
+
+        assertCount( 3, query );
+    }
+
+    /**
+     * Inner join of a collection, multiplying the rows.
+     */
+    @Test
+    public void testInnerJoinToMany( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.join( "offers" );
+        query.select( root );
+
+        assertCount( 3, query );
+    }
+
+    /**
+     * Left join holding an inner join, filtering the rows.
+     */
+    @Test
+    public void testLeftJoinHoldingInnerJoin( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.join( "offers", JoinType.LEFT ).join( "product" );
+        query.select( root );
+
+        assertCount( 3, query );
+    }
+
+    /**
+     * Restriction on a to-one join.
+     */
+    @Test
+    public void testRestrictionOnToOneJoin( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        Join<TestProduct, TestCategory> category = root.join( "category" );
+        query.select( root ).where( _cb.equal( category.get( "name" ), "books" ) );
+
+        assertCount( 2, query );
+    }
+
+    /**
+     * Restriction on a collection join, matching several rows of a product.
+     */
+    @Test
+    public void testRestrictionOnToManyJoin( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        Join<TestProduct, TestOffer> offer = root.join( "offers" );
+        query.select( root ).where( _cb.greaterThan( offer.<Integer> get( "quantity" ), 0 ) );
+
+        assertCount( 3, query );
+    }
+
+    /**
+     * Restriction with an unused left join, kept in the count.
+     */
+    @Test
+    public void testRestrictionWithLeftJoin( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.join( "offers", JoinType.LEFT );
+        query.select( root ).where( _cb.isNull( root.get( "category" ) ) );
+
+        assertCount( 2, query );
+    }
+
+    /**
+     * Restriction with a fetch, rejected before the count query is built.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testRestrictionWithFetch( )
+    {
+        CriteriaQuery<TestProduct> query = _cb.createQuery( TestProduct.class );
+        Root<TestProduct> root = query.from( TestProduct.class );
+        root.fetch( "offers", JoinType.LEFT );
+        query.select( root ).where( _cb.isNull( root.get( "category" ) ) );
+
+        CountQueryOptimizer.copyFrom( _cb.createQuery( Long.class ), query );
+    }
+
+    /**
+     * Checks the count of a query, and that the optimized count query gives the same result.
+     * 
+     * @param nExpected
+     *            the expected count
+     * @param criteriaQuery
+     *            the criteria query
+     */
+    private void assertCount( int nExpected, CriteriaQuery<TestProduct> criteriaQuery )
+    {
+        assertEquals( "naive count", nExpected, new HashSet<TestProduct>( _em.createQuery( criteriaQuery ).getResultList( ) ).size( ) );
+
+        CriteriaQuery<Long> countQuery = _cb.createQuery( Long.class );
+        Root<?> countRoot = CountQueryOptimizer.copyFrom( countQuery, criteriaQuery );
+        countQuery.select( CountQueryOptimizer.isDistinctRequired( countQuery ) ? _cb.countDistinct( countRoot ) : _cb.count( countRoot ) );
+
+        assertEquals( "optimized count", nExpected, _em.createQuery( countQuery ).getSingleResult( ).longValue( ) );
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+/**
+ * Offer entity of the count tests.
+ */
+@Entity
+public class TestOffer
+{
+    @Id
+    private Integer id;
+
+    private int quantity;
+
+    @ManyToOne
+    private TestProduct product;
+
+    /**
+     * Creates a new TestOffer.
+     */
+    public TestOffer( )
+    {
+
+    }
+
+    /**
+     * Creates a new TestOffer.
+     * 
+     * @param nId
+     *            the id
+     * @param nQuantity
+     *            the quantity
+     * @param product
+     *            the product
+     */
+    public TestOffer( int nId, int nQuantity, TestProduct product )
+    {
+        this.id = nId;
+        this.quantity = nQuantity;
+        this.product = product;
+    }
+
+    /**
+     * Returns the id.
+     * 
+     * @return the id
+     */
+    public Integer getId( )
+    {
+        return id;
+    }
+
+    /**
+     * Returns the quantity.
+     * 
+     * @return the quantity
+     */
+    public int getQuantity( )
+    {
+        return quantity;
+    }
+
+    /**
+     * Returns the product.
+     * 
+     * @return the product
+     */
+    public TestProduct getProduct( )
+    {
+        return product;
+    }
+}
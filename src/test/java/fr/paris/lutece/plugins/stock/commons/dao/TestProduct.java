@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.commons.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+
+/**
+ * Product entity of the count tests : an optional category and several offers.
+ */
+@Entity
+public class TestProduct
+{
+    @Id
+    private Integer id;
+
+    private String name;
+
+    @ManyToOne
+    private TestCategory category;
+
+    @OneToMany( mappedBy = "product" )
+    private List<TestOffer> offers = new ArrayList<TestOffer>( );
+
+    /**
+     * Creates a new TestProduct.
+     */
+    public TestProduct( )
+    {
+
+    }
+
+    /**
+     * Creates a new TestProduct.
+     * 
+     * @param nId
+     *            the id
+     * @param strName
+     *            the name
+     * @param category
+     *            the category, may be null
+     */
+    public TestProduct( int nId, String strName, TestCategory category )
+    {
+        this.id = nId;
+        this.name = strName;
+        this.category = category;
+    }
+
+    /**
+     * Returns the id.
+     * 
+     * @return the id
+     */
+    public Integer getId( )
+    {
+        return id;
+    }
+
+    /**
+     * Returns the name.
+     * 
+     * @return the name
+     */
+    public String getName( )
+    {
+        return name;
+    }
+
+    /**
+     * Returns the category.
+     * 
+     * @return the category, may be null
+     */
+    public TestCategory getCategory( )
+    {
+        return category;
+    }
+
+    /**
+     * Returns the offers.
+     * 
+     * @return the offers
+     */
+    public List<TestOffer> getOffers( )
+    {
+        return offers;
+    }
+}
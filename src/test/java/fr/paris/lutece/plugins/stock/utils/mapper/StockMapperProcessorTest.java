@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.stock.utils.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import fr.paris.lutece.plugins.stock.commons.AbstractDTO;
+import fr.paris.lutece.plugins.stock.commons.exception.TechnicalException;
+import fr.paris.lutece.plugins.stock.utils.dozer.MapperProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.dozer.Mapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compiles DTOs annotated with {@link GenerateMapper} with {@link StockMapperProcessor}, then checks the generated mappers or the notes explaining why
+ * they were not generated.
+ */
+public class StockMapperProcessorTest
+{
+    private static final String PACKAGE = "test.mapper";
+    private static final String ENTITY_BEAN = "public class %s implements fr.paris.lutece.plugins.stock.utils.EntityBean";
+    private static final String DTO = "@fr.paris.lutece.plugins.stock.utils.mapper.GenerateMapper( entity = %s.class ) public class %s extends fr.paris.lutece.plugins.stock.commons.AbstractDTO<%s>";
+    private static final String NOT_GENERATED = "Mapper non généré pour " + PACKAGE + ".";
+
+    @Rule
+    public TemporaryFolder _folder = new TemporaryFolder( );
+
+    private final RecordingMapper _dozerMapper = new RecordingMapper( );
+    private final DiagnosticCollector<JavaFileObject> _diagnostics = new DiagnosticCollector<JavaFileObject>( );
+    private File _sourceOutput;
+    private ClassLoader _classLoader;
+
+    /**
+     * Replaces the Dozer mapper, called by the DTOs without generated mapper
+     */
+    @Before
+    public void setUpDozer( )
+    {
+        MapperProvider.setMapper( _dozerMapper );
+    }
+
+    /**
+     * Restores the Dozer mapper
+     */
+    @After
+    public void tearDownDozer( )
+    {
+        MapperProvider.setMapper( null );
+    }
+
+    /**
+     * A DTO whose properties are all supported is converted both ways by its generated mapper : copied values with boxing, cloned dates, ids to entities
+     * and DTO references. Dozer is not called.
+     * 
+     * @throws Exception
+     *             if the compilation or the conversions fail
+     */
+    @Test
+    public void testGeneratedMapper( ) throws Exception
+    {
+        assertTrue( compileProducts( ) );
+        assertFalse( hasNote( NOT_GENERATED ) );
+        assertTrue( new File( _sourceOutput, "test/mapper/ProductDTO" + StockMappers.SUFFIX + ".java" ).isFile( ) );
+        assertTrue( new File( _sourceOutput, "test/mapper/CategoryDTO" + StockMappers.SUFFIX + ".java" ).isFile( ) );
+
+        Object category = newBean( "CategoryDTO" );
+        set( category, "id", Integer.class, 5 );
+        set( category, "name", String.class, "books" );
+        Date created = new Date( 1000L );
+        Object dto = newBean( "ProductDTO" );
+        set( dto, "id", Integer.class, 7 );
+        set( dto, "name", String.class, "product" );
+        set( dto, "quantity", Integer.class, 3 );
+        set( dto, "created", Date.class, created );
+        set( dto, "category", Integer.class, 4 );
+        set( dto, "mainCategory", load( "CategoryDTO" ), category );
+
+        // Default convert( ) of AbstractDTO
+        Object entity = ( (AbstractDTO<?>) dto ).convert( );
+
+        assertSame( load( "ProductEntity" ), entity.getClass( ) );
+        assertEquals( 7, get( entity, "id" ) );
+        assertEquals( "product", get( entity, "name" ) );
+        assertEquals( 3, get( entity, "quantity" ) );
+        assertEquals( created, get( entity, "created" ) );
+        assertNotSame( created, get( entity, "created" ) );
+        assertEquals( 4, get( get( entity, "category" ), "id" ) );
+        Object mainCategory = get( entity, "mainCategory" );
+        assertSame( load( "CategoryEntity" ), mainCategory.getClass( ) );
+        assertEquals( "books", get( mainCategory, "name" ) );
+
+        Object dtoBack = StockMappers.map( entity, load( "ProductDTO" ) );
+
+        assertEquals( "product", get( dtoBack, "name" ) );
+        assertEquals( 3, get( dtoBack, "quantity" ) );
+        assertEquals( 4, get( dtoBack, "category" ) );
+        assertEquals( 5, get( get( dtoBack, "mainCategory" ), "id" ) );
+        assertEquals( 0, _dozerMapper._listCalls.size( ) );
+    }
+
+    /**
+     * Like Dozer with the stock converters, an id which is null or not positive gives no entity, a DTO reference without id is not converted and a null
+     * wrapper does not overwrite a primitive.
+     * 
+     * @throws Exception
+     *             if the compilation or the conversion fails
+     */
+    @Test
+    public void testMissingIds( ) throws Exception
+    {
+        assertTrue( compileProducts( ) );
+
+        Object dto = newBean( "ProductDTO" );
+        set( dto, "category", Integer.class, -1 );
+        set( dto, "mainCategory", load( "CategoryDTO" ), newBean( "CategoryDTO" ) );
+
+        Object entity = ( (AbstractDTO<?>) dto ).convert( );
+
+        assertNull( get( entity, "category" ) );
+        assertNull( get( entity, "mainCategory" ) );
+        assertEquals( 0, get( entity, "quantity" ) );
+    }
+
+    /**
+     * DTOs referencing each other through their generated mappers have no mapper : the conversion would not end on a circular graph.
+     * 
+     * @throws Exception
+     *             if the compilation fails
+     */
+    @Test
+    public void testCycle( ) throws Exception
+    {
+        assertTrue( compile( source( ENTITY_BEAN, "OrderEntity", "Integer id", "CustomerEntity customer" ),
+                source( ENTITY_BEAN, "CustomerEntity", "Integer id", "OrderEntity lastOrder" ),
+                source( DTO, "OrderDTO", "Integer id", "CustomerDTO customer" ), source( DTO, "CustomerDTO", "Integer id", "OrderDTO lastOrder" ) ) );
+
+        assertTrue( hasNote( NOT_GENERATED + "OrderDTO : références circulaires entre DTO" ) );
+        assertTrue( hasNote( NOT_GENERATED + "CustomerDTO : références circulaires entre DTO" ) );
+        assertFalse( new File( _sourceOutput, "test/mapper/OrderDTO" + StockMappers.SUFFIX + ".java" ).exists( ) );
+        assertFalse( new File( _sourceOutput, "test/mapper/CustomerDTO" + StockMappers.SUFFIX + ".java" ).exists( ) );
+    }
+
+    /**
+     * A DTO with an unsupported property has no mapper, a note gives the property, and the default convert( ) calls Dozer.
+     * 
+     * @throws Exception
+     *             if the compilation or the conversion fails
+     */
+    @Test
+    public void testUnsupportedProperty( ) throws Exception
+    {
+        assertTrue( compile( source( ENTITY_BEAN, "TagEntity", "Integer id", "java.util.List<String> labels" ),
+                source( DTO, "TagDTO", "Integer id", "java.util.List<String> labels" ) ) );
+
+        assertTrue( hasNote( NOT_GENERATED + "TagDTO : propriété labels non supportée" ) );
+        assertFalse( new File( _sourceOutput, "test/mapper/TagDTO" + StockMappers.SUFFIX + ".java" ).exists( ) );
+
+        ( (AbstractDTO<?>) newBean( "TagDTO" ) ).convert( );
+
+        assertEquals( Collections.<Class<?>> singletonList( load( "TagEntity" ) ), _dozerMapper._listCalls );
+    }
+
+    /**
+     * The entity of the annotation must be the type converted by the DTO
+     * 
+     * @throws Exception
+     *             if the compiler can not be run
+     */
+    @Test
+    public void testEntityNotConverted( ) throws Exception
+    {
+        assertFalse( compile( source( ENTITY_BEAN, "UserEntity", "Integer id" ), source( ENTITY_BEAN, "GroupEntity", "Integer id" ),
+                source( "@fr.paris.lutece.plugins.stock.utils.mapper.GenerateMapper( entity = GroupEntity.class ) "
+                        + "public class UserDTO extends fr.paris.lutece.plugins.stock.commons.AbstractDTO<UserEntity>", "UserDTO", "Integer id" ) ) );
+
+        assertTrue( hasMessage( Diagnostic.Kind.ERROR, "@GenerateMapper : l'entité " + PACKAGE + ".GroupEntity n'est pas du type converti par le DTO" ) );
+    }
+
+    /**
+     * A DTO which is not annotated and does not implement convert( ) can not be converted
+     */
+    @Test( expected = TechnicalException.class )
+    public void testConvertWithoutMapper( )
+    {
+        new PlainDTO( ).convert( );
+    }
+
+    /**
+     * Compiles the products and their categories, all the properties being supported
+     * 
+     * @return true if the compilation succeeded
+     * @throws IOException
+     *             if the compiler can not be run
+     */
+    private boolean compileProducts( ) throws IOException
+    {
+        return compile( source( ENTITY_BEAN, "CategoryEntity", "Integer id", "String name" ),
+                source( ENTITY_BEAN, "ProductEntity", "Integer id", "String name", "int quantity", "java.util.Date created", "CategoryEntity category",
+                        "CategoryEntity mainCategory" ), source( DTO, "CategoryDTO", "Integer id", "String name" ),
+                source( DTO, "ProductDTO", "Integer id", "String name", "Integer quantity", "java.util.Date created", "Integer category",
+                        "CategoryDTO mainCategory" ) );
+    }
+
+    /**
+     * Builds the source of a bean of the test package
+     * 
+     * @param strDeclaration
+     *            the declaration of the class, whose %s are replaced by the class name, the entity name and the class name again for a DTO
+     * @param strName
+     *            the class name, ending with DTO for the DTOs
+     * @param properties
+     *            the properties, as "type name"
+     * @return the source
+     */
+    private static JavaFileObject source( String strDeclaration, String strName, String... properties )
+    {
+        String strEntity = strName.endsWith( "DTO" ) ? strName.substring( 0, strName.length( ) - 3 ) + "Entity" : strName;
+        StringBuilder sbSource = new StringBuilder( "package " ).append( PACKAGE ).append( ";\n" );
+        sbSource.append( String.format( strDeclaration, strEntity, strName, strEntity ) ).append( "\n{\n" );
+        for ( String strProperty : properties )
+        {
+            int nSpace = strProperty.lastIndexOf( ' ' );
+            String strType = strProperty.substring( 0, nSpace );
+            String strField = strProperty.substring( nSpace + 1 );
+            String strAccessor = Character.toUpperCase( strField.charAt( 0 ) ) + strField.substring( 1 );
+            sbSource.append( "    private " ).append( strType ).append( " _" ).append( strField ).append( ";\n" );
+            sbSource.append( "    public " ).append( strType ).append( " get" ).append( strAccessor ).append( "( ) { return _" ).append( strField )
+                    .append( "; }\n" );
+            sbSource.append( "    public void set" ).append( strAccessor ).append( "( " ).append( strType ).append( " value ) { _" ).append( strField )
+                    .append( " = value; }\n" );
+        }
+        sbSource.append( "}\n" );
+
+        return new SourceFile( strName, sbSource.toString( ) );
+    }
+
+    /**
+     * Compiles sources with the processor, in the temporary folder
+     * 
+     * @param sources
+     *            the sources
+     * @return true if the compilation succeeded
+     * @throws IOException
+     *             if the compiler can not be run
+     */
+    private boolean compile( JavaFileObject... sources ) throws IOException
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler( );
+        File classOutput = _folder.newFolder( "classes" );
+        _sourceOutput = _folder.newFolder( "generated" );
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager( _diagnostics, Locale.ROOT, StandardCharsets.UTF_8 );
+        try
+        {
+            fileManager.setLocation( StandardLocation.CLASS_OUTPUT, Collections.singleton( classOutput ) );
+            fileManager.setLocation( StandardLocation.SOURCE_OUTPUT, Collections.singleton( _sourceOutput ) );
+            fileManager.setLocation( StandardLocation.CLASS_PATH, Arrays.asList( getLocation( AbstractDTO.class ), getLocation( Mapper.class ) ) );
+            JavaCompiler.CompilationTask task = compiler.getTask( null, fileManager, _diagnostics, null, null, Arrays.asList( sources ) );
+            task.setProcessors( Collections.singleton( new StockMapperProcessor( ) ) );
+            boolean bSuccess = task.call( );
+            _classLoader = new URLClassLoader( new URL [ ] {
+                classOutput.toURI( ).toURL( )
+            }, getClass( ).getClassLoader( ) );
+
+            return bSuccess;
+        }
+        finally
+        {
+            fileManager.close( );
+        }
+    }
+
+    /**
+     * Returns the class path entry of a class
+     * 
+     * @param clazz
+     *            the class
+     * @return the directory or the jar of the class
+     */
+    private static File getLocation( Class<?> clazz )
+    {
+        try
+        {
+            return new File( clazz.getProtectionDomain( ).getCodeSource( ).getLocation( ).toURI( ) );
+        }
+        catch( java.net.URISyntaxException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Indicates whether the processor printed a note starting with a text
+     * 
+     * @param strStart
+     *            the start of the note
+     * @return true if there is such a note
+     */
+    private boolean hasNote( String strStart )
+    {
+        return hasMessage( Diagnostic.Kind.NOTE, strStart );
+    }
+
+    /**
+     * Indicates whether the compilation printed a message starting with a text
+     * 
+     * @param kind
+     *            the kind of message
+     * @param strStart
+     *            the start of the message
+     * @return true if there is such a message
+     */
+    private boolean hasMessage( Diagnostic.Kind kind, String strStart )
+    {
+        for ( Diagnostic<? extends JavaFileObject> diagnostic : _diagnostics.getDiagnostics( ) )
+        {
+            if ( diagnostic.getKind( ) == kind && diagnostic.getMessage( Locale.ROOT ).startsWith( strStart ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Loads a compiled class of the test package
+     * 
+     * @param strName
+     *            the simple name of the class
+     * @return the class
+     * @throws ClassNotFoundException
+     *             if the class was not compiled
+     */
+    private Class<?> load( String strName ) throws ClassNotFoundException
+    {
+        return Class.forName( PACKAGE + "." + strName, true, _classLoader );
+    }
+
+    /**
+     * Creates a bean of the test package
+     * 
+     * @param strName
+     *            the simple name of the class
+     * @return the bean
+     * @throws ReflectiveOperationException
+     *             if the bean can not be created
+     */
+    private Object newBean( String strName ) throws ReflectiveOperationException
+    {
+        return load( strName ).getConstructor( ).newInstance( );
+    }
+
+    /**
+     * Sets a property of a bean
+     * 
+     * @param bean
+     *            the bean
+     * @param strProperty
+     *            the property
+     * @param type
+     *            the type of the property
+     * @param value
+     *            the value
+     * @throws ReflectiveOperationException
+     *             if the setter can not be called
+     */
+    private static void set( Object bean, String strProperty, Class<?> type, Object value ) throws ReflectiveOperationException
+    {
+        bean.getClass( ).getMethod( "set" + Character.toUpperCase( strProperty.charAt( 0 ) ) + strProperty.substring( 1 ), type ).invoke( bean, value );
+    }
+
+    /**
+     * Returns a property of a bean
+     * 
+     * @param bean
+     *            the bean
+     * @param strProperty
+     *            the property
+     * @return the value
+     * @throws ReflectiveOperationException
+     *             if the getter can not be called
+     */
+    private static Object get( Object bean, String strProperty ) throws ReflectiveOperationException
+    {
+        return bean.getClass( ).getMethod( "get" + Character.toUpperCase( strProperty.charAt( 0 ) ) + strProperty.substring( 1 ) ).invoke( bean );
+    }
+
+    /**
+     * Source held in memory
+     */
+    private static final class SourceFile extends SimpleJavaFileObject
+    {
+        private final String _strSource;
+
+        /**
+         * Constructor
+         * 
+         * @param strName
+         *            the simple name of the class
+         * @param strSource
+         *            the source
+         */
+        SourceFile( String strName, String strSource )
+        {
+            super( URI.create( "string:///" + PACKAGE.replace( '.', '/' ) + "/" + strName + Kind.SOURCE.extension ), Kind.SOURCE );
+            _strSource = strSource;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public CharSequence getCharContent( boolean bIgnoreEncodingErrors )
+        {
+            return _strSource;
+        }
+    }
+
+    /**
+     * Dozer mapper recording the destination classes of the conversions, without converting
+     */
+    private static final class RecordingMapper implements Mapper
+    {
+        private final List<Class<?>> _listCalls = new ArrayList<Class<?>>( );
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <T> T map( Object source, Class<T> destinationClass )
+        {
+            _listCalls.add( destinationClass );
+
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void map( Object source, Object destination )
+        {
+            _listCalls.add( destination.getClass( ) );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <T> T map( Object source, Class<T> destinationClass, String strMapId )
+        {
+            return map( source, destinationClass );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void map( Object source, Object destination, String strMapId )
+        {
+            map( source, destination );
+        }
+    }
+
+    /**
+     * DTO neither annotated nor implementing convert( )
+     */
+    public static class PlainDTO extends AbstractDTO<Object>
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Integer getId( )
+        {
+            return null;
+        }
+    }
+}